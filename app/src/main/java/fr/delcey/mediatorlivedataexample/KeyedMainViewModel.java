@@ -0,0 +1,309 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.ViewModel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.livedata.IntObserver;
+import fr.delcey.mediatorlivedataexample.repository.KeyedCounterRepository;
+import fr.delcey.mediatorlivedataexample.utils.FrameTicker;
+
+/**
+ * La version "multi-compteurs" du MainViewModel : au lieu d'un ViewModel (et d'un MediatorLiveData avec 2 observers) par couple de nombres,
+ * un seul ViewModel gère toutes les clefs d'un KeyedCounterRepository, avec les mêmes règles de gestion que le MainViewModel.<br/>
+ *
+ * Les ViewStates ne sont calculés que pour ce qui est réellement observé :
+ * <ul>
+ *     <li>par "page" de {@link #PAGE_SIZE} clefs, avec "getPageLiveData()" (pour une liste)</li>
+ *     <li>ou clef par clef, avec "getViewStateLiveData()"</li>
+ * </ul>
+ * et, à chaque changement, uniquement pour les clefs modifiées. Dans la List émise par une page, les lignes qui n'ont pas changé gardent la
+ * même instance de MainViewState : une simple comparaison "==" (ou DiffUtil) suffit à retrouver les lignes modifiées.
+ */
+public class KeyedMainViewModel extends ViewModel {
+
+    public static final int PAGE_SIZE = 50;
+
+    @NonNull
+    private final KeyedCounterRepository keyedCounterRepository;
+    @Nullable
+    private final FrameTicker frameTicker;
+
+    // Partagés par toutes les clefs : beaucoup de lignes affichent les mêmes nombres, leurs ViewStates sont alors réutilisés
+    private final MainViewStateFormatter mainViewStateFormatter = new MainViewStateFormatter();
+    private final MainViewStateMemo mainViewStateMemo = new MainViewStateMemo();
+
+    // Créées à la demande : une page ou une clef jamais observée ne coûte rien
+    @NonNull
+    private final PageLiveData[] pages;
+    @NonNull
+    private final HashMap<Integer, KeyLiveData> keyLiveDatas = new HashMap<>();
+
+    // Pages qui ont au moins une clef recalculée pendant le "flush()" en cours
+    @NonNull
+    private final int[] touchedPageIndexes;
+    private int touchedPageCount;
+
+    private boolean isFrameScheduled;
+
+    private long combineCount;
+
+    private final KeyedCounterRepository.DirtyKeyVisitor dirtyKeyVisitor = new KeyedCounterRepository.DirtyKeyVisitor() {
+        @Override
+        public void onDirtyKey(int key) {
+            KeyedMainViewModel.this.onDirtyKey(key);
+        }
+    };
+
+    private final Runnable onFrame = new Runnable() {
+        @Override
+        public void run() {
+            isFrameScheduled = false;
+
+            flush();
+        }
+    };
+
+    private final IntObserver changeCountObserver = new IntObserver() {
+        @Override
+        public void onChanged(int changeCount) {
+            if (frameTicker == null) {
+                flush();
+            } else if (!isFrameScheduled) {
+                isFrameScheduled = true;
+                frameTicker.scheduleFrame(onFrame);
+            }
+        }
+    };
+
+    public KeyedMainViewModel(@NonNull KeyedCounterRepository keyedCounterRepository) {
+        this(keyedCounterRepository, null);
+    }
+
+    // Comme pour le MainViewModel : avec un FrameTicker, les changements sont traités au maximum une fois par frame
+    public KeyedMainViewModel(@NonNull KeyedCounterRepository keyedCounterRepository, @Nullable FrameTicker frameTicker) {
+        this.keyedCounterRepository = keyedCounterRepository;
+        this.frameTicker = frameTicker;
+
+        int pageCount = (keyedCounterRepository.getKeyCount() + PAGE_SIZE - 1) / PAGE_SIZE;
+        pages = new PageLiveData[pageCount];
+        touchedPageIndexes = new int[pageCount];
+
+        keyedCounterRepository.getChangeCountLiveData().observeIntForever(changeCountObserver);
+    }
+
+    @Override
+    protected void onCleared() {
+        keyedCounterRepository.getChangeCountLiveData().removeIntObserver(changeCountObserver);
+    }
+
+    public int getKeyCount() {
+        return keyedCounterRepository.getKeyCount();
+    }
+
+    public int getPageCount() {
+        return pages.length;
+    }
+
+    // Les ViewStates des clefs [pageIndex * PAGE_SIZE ; (pageIndex + 1) * PAGE_SIZE[
+    @MainThread
+    @NonNull
+    public LiveData<List<MainViewState>> getPageLiveData(int pageIndex) {
+        PageLiveData page = pages[pageIndex];
+
+        if (page == null) {
+            page = new PageLiveData(pageIndex);
+            pages[pageIndex] = page;
+        }
+
+        return page;
+    }
+
+    @MainThread
+    @NonNull
+    public LiveData<MainViewState> getViewStateLiveData(int key) {
+        if (key < 0 || key >= keyedCounterRepository.getKeyCount()) {
+            throw new IndexOutOfBoundsException("key " + key + " is out of [0 ; " + keyedCounterRepository.getKeyCount() + "[");
+        }
+
+        KeyLiveData keyLiveData = keyLiveDatas.get(key);
+
+        if (keyLiveData == null) {
+            keyLiveData = new KeyLiveData(key);
+            keyLiveDatas.put(key, keyLiveData);
+        }
+
+        return keyLiveData;
+    }
+
+    // Nombre de ViewStates calculés (ou retrouvés dans le cache), toutes clefs confondues
+    public long getCombineCount() {
+        return combineCount;
+    }
+
+    public void onAddButtonClicked(int key) {
+        keyedCounterRepository.addToNumber(key, 1);
+    }
+
+    public void onMultiplyButtonClicked(int key) {
+        keyedCounterRepository.multiplyNumber(key, 2);
+    }
+
+    public void onRandomButtonClicked(int key) {
+        keyedCounterRepository.rollNewRandom(key);
+    }
+
+    private void flush() {
+        keyedCounterRepository.drainDirtyKeys(dirtyKeyVisitor);
+
+        for (int i = 0; i < touchedPageCount; i++) {
+            pages[touchedPageIndexes[i]].publish();
+        }
+
+        touchedPageCount = 0;
+    }
+
+    private void onDirtyKey(int key) {
+        PageLiveData page = pages[key / PAGE_SIZE];
+
+        if (page != null && page.onDirtyKey(key)) {
+            touchedPageIndexes[touchedPageCount++] = page.pageIndex;
+        }
+
+        if (!keyLiveDatas.isEmpty()) {
+            KeyLiveData keyLiveData = keyLiveDatas.get(key);
+
+            if (keyLiveData != null) {
+                keyLiveData.onDirty();
+            }
+        }
+    }
+
+    // Mêmes règles de gestion que "MainViewModel.combine()"
+    @NonNull
+    private MainViewState combine(int key) {
+        combineCount++;
+
+        int number = keyedCounterRepository.getNumber(key);
+        int randomNumber = keyedCounterRepository.getRandomNumber(key);
+
+        MainViewState memoizedViewState = mainViewStateMemo.get(number, randomNumber);
+
+        if (memoizedViewState != null) {
+            return memoizedViewState;
+        }
+
+        MainViewState viewState = mainViewStateFormatter.format(number, randomNumber);
+
+        mainViewStateMemo.put(number, randomNumber, viewState);
+
+        return viewState;
+    }
+
+    private class PageLiveData extends LiveData<List<MainViewState>> {
+
+        private final int pageIndex;
+        private final int firstKey;
+
+        // ViewStates de la page, à jour uniquement quand "isStale" est faux
+        @NonNull
+        private final MainViewState[] viewStates;
+        private boolean isStale = true;
+        private boolean isTouched;
+
+        PageLiveData(int pageIndex) {
+            this.pageIndex = pageIndex;
+
+            firstKey = pageIndex * PAGE_SIZE;
+            viewStates = new MainViewState[Math.min(PAGE_SIZE, keyedCounterRepository.getKeyCount() - firstKey)];
+        }
+
+        @Override
+        protected void onActive() {
+            // Les clefs modifiées pendant que personne n'observait la page n'ont pas été recalculées : on recalcule toute la page une fois
+            if (isStale) {
+                for (int i = 0; i < viewStates.length; i++) {
+                    viewStates[i] = combine(firstKey + i);
+                }
+
+                isStale = false;
+                setValue(Collections.unmodifiableList(Arrays.asList(viewStates.clone())));
+            }
+        }
+
+        // Renvoie vrai si la page doit être publiée à la fin du "flush()" (seulement la première fois pour ce "flush()")
+        boolean onDirtyKey(int key) {
+            if (isStale) {
+                return false;
+            }
+
+            if (!hasActiveObservers()) {
+                isStale = true;
+                return false;
+            }
+
+            MainViewState viewState = combine(key);
+
+            if (viewState.equals(viewStates[key - firstKey])) {
+                return false;
+            }
+
+            viewStates[key - firstKey] = viewState;
+
+            if (isTouched) {
+                return false;
+            }
+
+            isTouched = true;
+
+            return true;
+        }
+
+        void publish() {
+            isTouched = false;
+
+            // Une copie par émission : la List émise ne doit plus changer, les Observers peuvent la garder (pour DiffUtil par exemple)
+            setValue(Collections.unmodifiableList(Arrays.asList(viewStates.clone())));
+        }
+    }
+
+    private class KeyLiveData extends LiveData<MainViewState> {
+
+        private final int key;
+
+        private boolean isStale = true;
+
+        KeyLiveData(int key) {
+            this.key = key;
+        }
+
+        @Override
+        protected void onActive() {
+            if (isStale) {
+                onDirty();
+            }
+        }
+
+        void onDirty() {
+            if (!hasActiveObservers()) {
+                isStale = true;
+                return;
+            }
+
+            isStale = false;
+
+            MainViewState viewState = combine(key);
+
+            if (!viewState.equals(getValue())) {
+                setValue(viewState);
+            }
+        }
+    }
+}
@@ -1,14 +1,31 @@
 package fr.delcey.mediatorlivedataexample;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.concurrent.Executor;
+
+import fr.delcey.mediatorlivedataexample.history.HistoryAdapter;
+import fr.delcey.mediatorlivedataexample.history.MainViewStateHistory;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+import fr.delcey.mediatorlivedataexample.text.TextPrecomputer;
 
 /**
  * Le rôle de la partie "View" (ici, l'Activity ou le Fragment) de l'architecture MVVM est d'afficher les informations du ViewState à
@@ -31,14 +48,44 @@ public class MainActivity extends AppCompatActivity {
         Button buttonRandom = findViewById(R.id.button_random);
 
         TextView textViewNumber = findViewById(R.id.number_textview);
-        TextView textViewSentence = findViewById(R.id.sentence_textview);
+        final TextView textViewSentence = findViewById(R.id.sentence_textview);
+        // Les phrases sont mesurées sur le thread d'arrière plan de l'application, pas sur le thread principal (voir TextPrecomputer)
+        final TextPrecomputer<PrecomputedTextCompat> sentencePrecomputer = createPrecomputer(
+            textViewSentence,
+            ViewModelFactory.getInstance().getBackgroundExecutor()
+        );
+        // Après une rotation, une phrase encore en cours de mesure ne doit pas être appliquée à la TextView de l'Activity détruite
+        getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner owner) {
+                sentencePrecomputer.release();
+            }
+        });
+
+        RecyclerView recyclerViewHistory = findViewById(R.id.history_recyclerview);
+        HistoryAdapter historyAdapter = new HistoryAdapter(ViewModelFactory.getInstance().getBackgroundExecutor());
+        recyclerViewHistory.setAdapter(historyAdapter);
 
         final MainViewModel mainViewModel = new ViewModelProvider(this, ViewModelFactory.getInstance()).get(MainViewModel.class);
         mainViewModel.getViewStateLiveData().observe(this, new Observer<MainViewState>() {
             @Override
             public void onChanged(MainViewState mainViewState) {
-                textViewNumber.setText(mainViewState.getNumberToDisplay());
-                textViewSentence.setText(mainViewState.getSentence());
+                setTextIfChanged(textViewNumber, mainViewState.getNumberToDisplay());
+                if (TextUtils.isEmpty(textViewSentence.getText())) {
+                    // Premier ViewState (restauré après la mort du process, par exemple) : la phrase est mesurée tout de suite, pour être
+                    // affichée dès la première frame avec le nombre
+                    sentencePrecomputer.submitNow(mainViewState.getSentence());
+                } else {
+                    // La phrase (plusieurs lignes) est mesurée en arrière plan : le thread principal ne fait que l'attacher à la TextView
+                    sentencePrecomputer.submit(mainViewState.getSentence());
+                }
+            }
+        });
+
+        mainViewModel.getHistoryLiveData().observe(this, new Observer<MainViewStateHistory.Snapshot>() {
+            @Override
+            public void onChanged(MainViewStateHistory.Snapshot snapshot) {
+                historyAdapter.submit(snapshot);
             }
         });
 
@@ -57,4 +104,56 @@ public class MainActivity extends AppCompatActivity {
             }
         });
     }
+
+    // En debug uniquement : le rapport des mesures (nombre et durée des "combine()", latences, etc...) est écrit dans le Logcat
+    @Override
+    protected void onStop() {
+        super.onStop();
+
+        if (Metrics.ENABLED) {
+            Log.d("Metrics", Metrics.getTextReport());
+        }
+    }
+
+    // Les paramètres (police, taille, etc...) sont lus une seule fois, ici : PrecomputedTextCompat refuse un texte mesuré avec d'autres
+    // paramètres que ceux de la TextView
+    @NonNull
+    private static TextPrecomputer<PrecomputedTextCompat> createPrecomputer(
+        @NonNull final TextView textView,
+        @NonNull Executor backgroundExecutor
+    ) {
+        final PrecomputedTextCompat.Params params = TextViewCompat.getTextMetricsParams(textView);
+        final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+        return new TextPrecomputer<>(
+            "MainActivity.sentence",
+            new TextPrecomputer.Precomputation<PrecomputedTextCompat>() {
+                @NonNull
+                @Override
+                public PrecomputedTextCompat precompute(@NonNull String text) {
+                    return PrecomputedTextCompat.create(text, params);
+                }
+            },
+            new TextPrecomputer.Callback<PrecomputedTextCompat>() {
+                @Override
+                public void onPrecomputed(@NonNull PrecomputedTextCompat precomputedText) {
+                    TextViewCompat.setPrecomputedText(textView, precomputedText);
+                }
+            },
+            backgroundExecutor,
+            new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    mainThreadHandler.post(command);
+                }
+            }
+        );
+    }
+
+    // Un "setText()" déclenche une nouvelle mesure et un nouveau "layout" de la TextView, même si le texte est identique : on l'évite
+    private static void setTextIfChanged(@NonNull TextView textView, @NonNull String text) {
+        if (!TextUtils.equals(textView.getText(), text)) {
+            textView.setText(text);
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package fr.delcey.mediatorlivedataexample;
+
+import android.app.Application;
+
+/**
+ * L'Application est créée avant toute Activity : on garde son instance pour que la ViewModelFactory puisse accéder au Context de
+ * l'application (pour trouver le dossier où sauvegarder les données, par exemple), sans jamais garder de référence à une Activity.
+ */
+public class MainApplication extends Application {
+
+    private static Application sApplication;
+
+    public static Application getInstance() {
+        return sApplication;
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        sApplication = this;
+    }
+}
@@ -1,13 +1,28 @@
 package fr.delcey.mediatorlivedataexample;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModel;
 
+import java.util.concurrent.Executor;
+
+import fr.delcey.mediatorlivedataexample.flow.Combiner;
+import fr.delcey.mediatorlivedataexample.flow.CombinerFactory;
+import fr.delcey.mediatorlivedataexample.flow.Conflation;
+import fr.delcey.mediatorlivedataexample.flow.ViewStateFlows;
+import fr.delcey.mediatorlivedataexample.history.MainViewStateHistory;
+import fr.delcey.mediatorlivedataexample.livedata.CombineLatestLiveData;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
 import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
 import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.utils.FrameTicker;
+import kotlinx.coroutines.CoroutineDispatcher;
+import kotlinx.coroutines.flow.Flow;
 
 /**
  * Cette classe est le "coeur" de notre application, elle est l'intermédiaire entre la View (MainActivity)
@@ -24,75 +39,308 @@ public class MainViewModel extends ViewModel {
     private final NumberRepository numberRepository;
     private final RandomRepository randomRepository;
 
-    private final MediatorLiveData<MainViewState> mainViewStateMediatorLiveData = new MediatorLiveData<>();
+    // Le CombineLatestLiveData remplace les "addSource()" écrits à la main : il garde la dernière valeur de chaque source et n'appelle
+    // "combine()" que lorsque les 2 sources ont une valeur, et que l'une d'elles a vraiment changé. C'est celui du SharedMainViewStateStream
+    // si le ViewState est partagé.
+    private final CombineLatestLiveData<MainViewState> combineLatestLiveData;
+
+    // Le CombineLatestLiveData lui-même, ou le relais du ViewState partagé
+    private final LiveData<MainViewState> mainViewStateLiveData;
+
+    // Table pré-calculée, cache et formatter : le "combine()" de ce ViewModel, ou celui du SharedMainViewStateStream
+    private final MainViewStateCombiner mainViewStateCombiner;
+
+    // Les derniers ViewStates produits par "combine()", pour l'affichage de l'historique (une RecyclerView par exemple)
+    public static final int HISTORY_MAX_SIZE = 10_000;
+    private final MainViewStateHistory history = new MainViewStateHistory(HISTORY_MAX_SIZE);
+    private final MutableLiveData<MainViewStateHistory.Snapshot> historyLiveData = new MutableLiveData<>();
+
+    // Null si l'état n'est pas sauvegardé pour survivre à la mort du process
+    @Nullable
+    private final SnapshotStore snapshotStore;
 
     // Injection de dépendance depuis la Factory
     public MainViewModel(
         NumberRepository numberRepository,
         RandomRepository randomRepository
+    ) {
+        this(numberRepository, randomRepository, (FrameTicker) null);
+    }
+
+    // Avec un FrameTicker, le ViewState est recalculé au maximum une fois par frame, peu importe le nombre de changements des sources
+    // (si null, le ViewState est recalculé immédiatement à chaque changement d'une des sources, comportement "classique")
+    public MainViewModel(
+        NumberRepository numberRepository,
+        RandomRepository randomRepository,
+        @Nullable FrameTicker frameTicker
+    ) {
+        this(numberRepository, randomRepository, frameTicker, null, null);
+    }
+
+    // Avec un "combineExecutor" (un seul thread), "combine()" et tout le formatage des Strings sont faits en arrière plan : seul le
+    // MainViewState final est émis sur le thread principal, via le "mainThreadExecutor" (le Looper principal si null). Si les sources
+    // changent plus vite que les calculs, seules leurs dernières valeurs sont calculées.
+    public MainViewModel(
+        NumberRepository numberRepository,
+        RandomRepository randomRepository,
+        @Nullable FrameTicker frameTicker,
+        @Nullable Executor combineExecutor,
+        @Nullable Executor mainThreadExecutor
+    ) {
+        this(numberRepository, randomRepository, frameTicker, combineExecutor, mainThreadExecutor, null);
+    }
+
+    // Avec une MainViewStateLookupTable, la plupart des ViewStates sont déjà construits quand l'utilisateur clique : "combine()" n'est plus
+    // qu'une lecture dans un tableau
+    public MainViewModel(
+        NumberRepository numberRepository,
+        RandomRepository randomRepository,
+        @Nullable FrameTicker frameTicker,
+        @Nullable Executor combineExecutor,
+        @Nullable Executor mainThreadExecutor,
+        @Nullable MainViewStateLookupTable lookupTable
     ) {
         this.numberRepository = numberRepository;
         this.randomRepository = randomRepository;
+        this.snapshotStore = null;
+
+        // En mode EXACT, le nombre ne déborde jamais (ni le produit avec le nombre aléatoire)
+        final boolean isExact = numberRepository.getMode() == NumberRepository.Mode.EXACT;
 
-        // Attention au bug !! Quand on utilise un mediatorLiveData, lorsqu'on fait les "addSource", il faut bien utiliser la même variable
-        // dans le "addSource" et dans le onChanged des autres sources (quand on fait "numberLiveData.getValue()" par exemple)
-        LiveData<Integer> numberLiveData = numberRepository.getNumberLiveData();
-        LiveData<Integer> randomNumberLiveData = randomRepository.getRandomNumberLiveData();
+        mainViewStateCombiner = new MainViewStateCombiner(isExact, lookupTable);
 
-        mainViewStateMediatorLiveData.addSource(numberLiveData, new Observer<Integer>() {
+        combineLatestLiveData = new CombineLatestLiveData<MainViewState>(
+            frameTicker,
+            combineExecutor,
+            mainThreadExecutor,
+            mainViewStateCombiner,
+            isExact ? numberRepository.getExactNumberLiveData() : numberRepository.getNumberLiveData(),
+            randomRepository.getRandomNumberLiveData()
+        ) {
+            // Chaque ViewState réellement émis (donc toujours sur le thread principal) est ajouté à l'historique
             @Override
-            public void onChanged(Integer number) {
-                combine(number, randomNumberLiveData.getValue());
+            public void setValue(MainViewState value) {
+                super.setValue(value);
+
+                onViewStateEmitted(value);
             }
-        });
+        };
+        mainViewStateLiveData = combineLatestLiveData;
+
+        // Nombre et durée des "combine()", retard du ViewState sur les sources, etc... (uniquement en debug, voir Metrics)
+        if (Metrics.ENABLED) {
+            combineLatestLiveData.setMetrics(Metrics.combine("MainViewModel"));
+        }
+    }
+
+    // Avec un SharedMainViewStateStream, "combine()" n'est fait qu'une fois par changement pour tous les ViewModels qui le partagent : ce
+    // ViewModel ne fait que relayer le ViewState partagé et tenir son historique. Les compteurs ("getCombineCount()", etc...) sont alors
+    // ceux du flux partagé.
+    public MainViewModel(
+        NumberRepository numberRepository,
+        RandomRepository randomRepository,
+        @NonNull SharedMainViewStateStream sharedMainViewStateStream
+    ) {
+        this(numberRepository, randomRepository, sharedMainViewStateStream, null);
+    }
+
+    // Avec un SnapshotStore (le SavedStateHandle du ViewModel, voir ViewModelFactory), le nombre, le dernier tirage et la position de la
+    // table pré-calculée sont sauvegardés à chaque ViewState émis (voir MainViewModelSnapshot). Après la mort du process, ils sont redonnés
+    // aux repositories (s'ils n'ont pas déjà une valeur plus récente) et le premier ViewState est calculé immédiatement, dans le
+    // constructeur : il est affiché dès la première frame, sans attendre le FrameTicker ni un clic.
+    public MainViewModel(
+        NumberRepository numberRepository,
+        RandomRepository randomRepository,
+        @NonNull SharedMainViewStateStream sharedMainViewStateStream,
+        @Nullable SnapshotStore snapshotStore
+    ) {
+        this.numberRepository = numberRepository;
+        this.randomRepository = randomRepository;
+        this.snapshotStore = snapshotStore;
+
+        mainViewStateCombiner = sharedMainViewStateStream.getCombiner();
+        combineLatestLiveData = sharedMainViewStateStream.getCombinedLiveData();
 
-        mainViewStateMediatorLiveData.addSource(randomNumberLiveData, new Observer<Integer>() {
+        // Le flux partagé n'est écouté que tant que la View observe ce ViewModel
+        final MediatorLiveData<MainViewState> relayLiveData = new MediatorLiveData<>();
+
+        MainViewState restoredViewState = snapshotStore == null ? null : restore(snapshotStore);
+
+        if (restoredViewState != null) {
+            relayLiveData.setValue(restoredViewState);
+
+            onViewStateEmitted(restoredViewState);
+        }
+
+        relayLiveData.addSource(sharedMainViewStateStream.asLiveData(), new Observer<MainViewState>() {
             @Override
-            public void onChanged(Integer randomNumber) {
-                combine(numberLiveData.getValue(), randomNumber);
+            public void onChanged(MainViewState mainViewState) {
+                // Le premier ViewState du flux partagé a peut-être déjà été émis, restauré depuis le SnapshotStore
+                if (mainViewState.equals(relayLiveData.getValue())) {
+                    return;
+                }
+
+                relayLiveData.setValue(mainViewState);
+
+                onViewStateEmitted(mainViewState);
             }
         });
+        mainViewStateLiveData = relayLiveData;
     }
 
-    // Attention ici, les paramètres de la méthode "combine" (ce n'est pas un mot clef mais on l'utilise beaucoup avec le MediatorLiveData)
-    // doivent toujours être considérés comme "nullables". En effet, "randomNumberLiveData.getValue()" (ou "numberLiveData.getValue()") peut
-    // renvoyer une valeur null si jamais on n'a pas encore exposé de donnée dans cette LiveData.
-    private void combine(@Nullable Integer number, @Nullable Integer randomNumber) {
-        // On ne peut pas calculer le produit de ces 2 nombres si l'un d'eux est null.
-        if (number == null || randomNumber == null) {
-            return;
+    // Redonne le snapshot sauvegardé aux repositories, et calcule le ViewState correspondant (null s'il n'y a pas de snapshot lisible)
+    @Nullable
+    private MainViewState restore(@NonNull SnapshotStore snapshotStore) {
+        MainViewModelSnapshot snapshot = MainViewModelSnapshot.fromByteArray(snapshotStore.read());
+
+        if (snapshot == null) {
+            return null;
+        }
+
+        if (snapshot.number != null) {
+            numberRepository.restoreIfEmpty(snapshot.number);
         }
 
-        int result = number * randomNumber;
-        String isEvenOrOdd;
+        randomRepository.restoreIfEmpty(snapshot.randomNumber);
 
-        if (result % 2 == 0) {
-            isEvenOrOdd = "pair";
-        } else {
-            isEvenOrOdd = "impair";
+        if (snapshot.hasCacheSeed) {
+            mainViewStateCombiner.seedCache(snapshot.cacheSeed);
         }
 
-        // C'est une mauvaise pratique que d'avoir une String en dur dans le ViewModel, il faut la récupérer avec les Resources !
-        // C'est juste par simplicité. :)
-        String sentence = "Le premier nombre est " + number +
-            ", le nombre aléatoire est " + randomNumber +
-            "\nLeur multiplication donne " + result + ", qui est " + isEvenOrOdd + ".";
-
-        mainViewStateMediatorLiveData.setValue(
-            new MainViewState(
-                // On affiche toujours dans une TextView des Strings ("0"), pas des int (0).
-                // Le ViewState ne doit donc avoir que des Strings (sauf pour des id de base de donnée par exemple, vu qu'ils ne seront pas affichés)
-                // Les int qui peuvent être utilisés sont tous les identifiants de Resource Android. 
-                // Exemple : @DrawableRes (R.drawable.my_super_icon), @StringRes (R.string.my_great_text), @ColorInt et @ColorRes (R.color.my_shiny_color), etc...
-                String.valueOf(result),
-                sentence
-            )
-        );
+        ExactNumber number = getCurrentNumber();
+
+        if (number == null || !randomRepository.getRandomNumberLiveData().hasValue()) {
+            return null;
+        }
+
+        return mainViewStateCombiner.combine(number, randomRepository.getRandomNumberLiveData().getIntValue());
+    }
+
+    // Chaque ViewState réellement émis (donc toujours sur le thread principal) est ajouté à l'historique, et l'état est sauvegardé. On
+    // sauvegarde les nombres qui ont servi à construire ce ViewState, pas ceux des repositories : avec le FrameTicker, les repositories ont
+    // peut-être déjà une valeur plus récente, pas encore affichée.
+    private void onViewStateEmitted(@NonNull MainViewState viewState) {
+        history.append(viewState);
+        historyLiveData.setValue(history.snapshot());
+
+        ExactNumber number = viewState.getNumber();
+
+        if (snapshotStore != null && number != null) {
+            // Le combiner a centré la fenêtre de la table pré-calculée sur ce nombre (s'il tient dans un int, voir "combine()")
+            boolean hasCacheSeed = mainViewStateCombiner.hasCacheSeed() && number.isInt();
+
+            snapshotStore.write(
+                new MainViewModelSnapshot(
+                    number,
+                    viewState.getRandomNumber(),
+                    hasCacheSeed,
+                    hasCacheSeed ? (int) number.longValue() : 0
+                ).toByteArray()
+            );
+        }
+    }
+
+    // Null si le nombre n'a pas encore de valeur
+    @Nullable
+    private ExactNumber getCurrentNumber() {
+        if (numberRepository.getMode() == NumberRepository.Mode.EXACT) {
+            return numberRepository.getExactNumberLiveData().getValue();
+        }
+
+        if (numberRepository.getNumberLiveData().hasValue()) {
+            return ExactNumber.valueOf(numberRepository.getNumberLiveData().getIntValue());
+        }
+
+        return null;
     }
 
     // Getter typé en LiveData (et pas MediatorLiveData pour éviter la modification de la valeur de la LiveData dans la View)
     public LiveData<MainViewState> getViewStateLiveData() {
-        return mainViewStateMediatorLiveData;
+        return mainViewStateLiveData;
+    }
+
+    // Le même ViewState en Flow (Kotlin), calculé à partir des StateFlows des repositories, sur le "dispatcher" choisi. Contrairement à la
+    // LiveData, il y a un ViewState dès le départ (les StateFlows ont toujours une valeur), et il n'est pas ajouté à l'historique.
+    // Chaque collecte fait ses propres calculs, en parallèle du chemin LiveData : elle a son propre formatter (pas de table ni de cache).
+    @NonNull
+    public Flow<MainViewState> getViewStateFlow(@NonNull Conflation conflation, @NonNull CoroutineDispatcher dispatcher) {
+        if (numberRepository.getMode() == NumberRepository.Mode.EXACT) {
+            return ViewStateFlows.combineLatest(
+                numberRepository.getExactNumberFlow(),
+                randomRepository.getRandomNumberFlow(),
+                conflation,
+                dispatcher,
+                new CombinerFactory<ExactNumber, Integer, MainViewState>() {
+                    @NonNull
+                    @Override
+                    public Combiner<ExactNumber, Integer, MainViewState> create() {
+                        final MainViewStateFormatter formatter = new MainViewStateFormatter();
+
+                        return new Combiner<ExactNumber, Integer, MainViewState>() {
+                            @Override
+                            public MainViewState combine(ExactNumber number, Integer randomNumber) {
+                                return formatter.format(number, randomNumber);
+                            }
+                        };
+                    }
+                }
+            );
+        }
+
+        return ViewStateFlows.combineLatest(
+            numberRepository.getNumberFlow(),
+            randomRepository.getRandomNumberFlow(),
+            conflation,
+            dispatcher,
+            new CombinerFactory<Integer, Integer, MainViewState>() {
+                @NonNull
+                @Override
+                public Combiner<Integer, Integer, MainViewState> create() {
+                    final MainViewStateFormatter formatter = new MainViewStateFormatter();
+
+                    return new Combiner<Integer, Integer, MainViewState>() {
+                        @Override
+                        public MainViewState combine(Integer number, Integer randomNumber) {
+                            return formatter.format(number, randomNumber);
+                        }
+                    };
+                }
+            }
+        );
+    }
+
+    // Chaque émission est un Snapshot de l'historique, obtenu en O(1) quelle que soit sa taille (voir HistoryDiffer pour l'afficher)
+    public LiveData<MainViewStateHistory.Snapshot> getHistoryLiveData() {
+        return historyLiveData;
+    }
+
+    // Nombre de fois où une des sources (NumberRepository ou RandomRepository) a changé
+    public long getSourceChangeCount() {
+        return combineLatestLiveData.getSourceChangeCount();
+    }
+
+    // Nombre de ViewStates réellement calculés. En mode "coalescing", il est bien inférieur à "getSourceChangeCount()" lors des rafales.
+    public long getCombineCount() {
+        return combineLatestLiveData.getCombineCount();
+    }
+
+    // Nombre d'émissions évitées : une source a ré-émis la même valeur, ou le ViewState calculé est identique au ViewState actuel
+    public long getSuppressedEmissionCount() {
+        return combineLatestLiveData.getUnchangedSourceCount() + combineLatestLiveData.getSuppressedEmissionCount();
+    }
+
+    // Nombre de ViewStates retrouvés dans le cache plutôt que recalculés
+    public long getMemoHitCount() {
+        return mainViewStateCombiner.getMemoHitCount();
+    }
+
+    // Nombre de ViewStates lus dans la table pré-calculée, et nombre de fois où la table ne les avait pas (encore)
+    public long getLookupTableHitCount() {
+        return mainViewStateCombiner.getLookupTableHitCount();
+    }
+
+    public long getLookupTableMissCount() {
+        return mainViewStateCombiner.getLookupTableMissCount();
     }
 
     // Les méthodes publiques ici représentent les différentes actions que l'utilisateur peut faire sur l'interface, le ViewModel se charge
@@ -101,7 +349,38 @@ public class MainViewModel extends ViewModel {
         numberRepository.addToNumber(1);
     }
 
+    public void onMultiplyButtonClicked() {
+        numberRepository.multiplyNumber(2);
+    }
+
     public void onRandomButtonClicked() {
         randomRepository.rollNewRandom();
     }
+
+    // Sans effet si le NumberRepository n'a pas de journal des opérations, ou s'il n'y a rien à annuler / rétablir
+    public void onUndoButtonClicked() {
+        if (numberRepository.getOperationLog() != null) {
+            numberRepository.undo();
+        }
+    }
+
+    public void onRedoButtonClicked() {
+        if (numberRepository.getOperationLog() != null) {
+            numberRepository.redo();
+        }
+    }
+
+    // Rejoue toute une séquence d'opérations (un script de "+1" et de "x2" par exemple) : le ViewState ne sera recalculé qu'une seule fois
+    public void onOperationsReplayed(@NonNull NumberRepository.Batch batch) {
+        numberRepository.batch(batch);
+    }
+
+    // Là où est gardé le dernier MainViewModelSnapshot (le SavedStateHandle du ViewModel dans l'application, une simple variable dans
+    // les tests). Le ViewModel ne dépend pas directement du SavedStateHandle : le module "benchmark" compile ses sources sans lui.
+    public interface SnapshotStore {
+        @Nullable
+        byte[] read();
+
+        void write(@NonNull byte[] snapshot);
+    }
 }
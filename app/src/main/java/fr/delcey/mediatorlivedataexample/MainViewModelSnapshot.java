@@ -0,0 +1,181 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.math.BigInteger;
+
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+/**
+ * Ce que le MainViewModel sauvegarde dans son SavedStateHandle pour survivre à la mort du process : le nombre, le dernier nombre aléatoire
+ * et la position de la table pré-calculée.<br/>
+ *
+ * Le tout est écrit dans un seul byte[] compact et versionné (et non dans un Bundle de valeurs "boxées", avec une clef String par valeur) :
+ * <pre>
+ * [version] [flags] [nombre] [nombre aléatoire] [position de la table]
+ * </pre>
+ * Les entiers sont écrits en "varint" (7 bits par octet, le bit de poids fort indique qu'un octet suit), en "zigzag" pour les entiers
+ * signés (-1 -> 1, 1 -> 2, etc...) : un petit nombre ne prend qu'un octet. Un nombre qui ne tient pas dans un long (mode EXACT) est écrit
+ * sous la forme de sa longueur, suivie des octets de "BigInteger.toByteArray()". Un snapshot typique fait 4 ou 5 octets.<br/>
+ *
+ * Un snapshot d'une version inconnue (plus récente) ou illisible est ignoré : l'application repart simplement de zéro.
+ */
+final class MainViewModelSnapshot {
+
+    static final int VERSION = 1;
+
+    private static final int FLAG_HAS_NUMBER = 1;
+    private static final int FLAG_BIG_NUMBER = 1 << 1;
+    private static final int FLAG_HAS_CACHE_SEED = 1 << 2;
+
+    // Null si le nombre n'avait pas encore de valeur
+    @Nullable
+    final ExactNumber number;
+    final int randomNumber;
+
+    // Le nombre autour duquel la MainViewStateLookupTable avait construit sa fenêtre (si elle existe)
+    final boolean hasCacheSeed;
+    final int cacheSeed;
+
+    MainViewModelSnapshot(@Nullable ExactNumber number, int randomNumber, boolean hasCacheSeed, int cacheSeed) {
+        this.number = number;
+        this.randomNumber = randomNumber;
+        this.hasCacheSeed = hasCacheSeed;
+        this.cacheSeed = cacheSeed;
+    }
+
+    @NonNull
+    byte[] toByteArray() {
+        byte[] bigNumberBytes = null;
+        int flags = 0;
+
+        if (number != null) {
+            flags |= FLAG_HAS_NUMBER;
+
+            if (!number.isLong()) {
+                flags |= FLAG_BIG_NUMBER;
+                bigNumberBytes = number.toBigInteger().toByteArray();
+            }
+        }
+
+        if (hasCacheSeed) {
+            flags |= FLAG_HAS_CACHE_SEED;
+        }
+
+        // Taille maximale : 10 octets par varint (un long), et la longueur + les octets du BigInteger
+        byte[] buffer = new byte[2 + 10 + 5 + 5 + (bigNumberBytes == null ? 0 : 5 + bigNumberBytes.length)];
+        int position = 0;
+
+        buffer[position++] = (byte) VERSION;
+        buffer[position++] = (byte) flags;
+
+        if (bigNumberBytes != null) {
+            position = writeVarLong(buffer, position, bigNumberBytes.length);
+            System.arraycopy(bigNumberBytes, 0, buffer, position, bigNumberBytes.length);
+            position += bigNumberBytes.length;
+        } else if (number != null) {
+            position = writeVarLong(buffer, position, zigzag(number.longValue()));
+        }
+
+        position = writeVarLong(buffer, position, zigzag(randomNumber));
+
+        if (hasCacheSeed) {
+            position = writeVarLong(buffer, position, zigzag(cacheSeed));
+        }
+
+        byte[] result = new byte[position];
+        System.arraycopy(buffer, 0, result, 0, position);
+
+        return result;
+    }
+
+    // Null si le snapshot est absent, illisible, ou d'une version plus récente
+    @Nullable
+    static MainViewModelSnapshot fromByteArray(@Nullable byte[] bytes) {
+        if (bytes == null || bytes.length < 2 || bytes[0] != VERSION) {
+            return null;
+        }
+
+        Reader reader = new Reader(bytes);
+        int flags = bytes[1];
+
+        try {
+            ExactNumber number = null;
+
+            if ((flags & FLAG_BIG_NUMBER) != 0) {
+                long length = reader.readVarLong();
+
+                if (length <= 0 || length > bytes.length - reader.position) {
+                    return null;
+                }
+
+                byte[] bigNumberBytes = new byte[(int) length];
+                System.arraycopy(bytes, reader.position, bigNumberBytes, 0, bigNumberBytes.length);
+                reader.position += bigNumberBytes.length;
+
+                number = ExactNumber.valueOf(new BigInteger(bigNumberBytes));
+            } else if ((flags & FLAG_HAS_NUMBER) != 0) {
+                number = ExactNumber.valueOf(unzigzag(reader.readVarLong()));
+            }
+
+            int randomNumber = (int) unzigzag(reader.readVarLong());
+
+            boolean hasCacheSeed = (flags & FLAG_HAS_CACHE_SEED) != 0;
+            int cacheSeed = hasCacheSeed ? (int) unzigzag(reader.readVarLong()) : 0;
+
+            return new MainViewModelSnapshot(number, randomNumber, hasCacheSeed, cacheSeed);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int writeVarLong(@NonNull byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buffer[position++] = (byte) value;
+
+        return position;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Reader {
+
+        @NonNull
+        private final byte[] bytes;
+        private int position = 2;
+
+        private Reader(@NonNull byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new IllegalArgumentException("Truncated snapshot");
+                }
+
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package fr.delcey.mediatorlivedataexample;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.Objects;
 
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
 /**
  * Le ViewState sert à représenter l'état de la vue.<br/>
  *
@@ -14,9 +17,36 @@ public class MainViewState {
     private final String numberToDisplay;
     private final String sentence;
 
+    // Les nombres qui ont servi à construire ce ViewState, pour sauvegarder exactement ce qui est affiché (voir MainViewModelSnapshot) :
+    // "exactNumber" en mode EXACT, "number" sinon. Ils ne font pas partie de equals() : seul l'affichage compte pour la vue et les tests.
+    private final boolean hasInputs;
+    private final int number;
+    @Nullable
+    private final ExactNumber exactNumber;
+    private final int randomNumber;
+
     public MainViewState(String numberToDisplay, String sentence) {
+        this(numberToDisplay, sentence, false, 0, null, 0);
+    }
+
+    MainViewState(String numberToDisplay, String sentence, int number, @Nullable ExactNumber exactNumber, int randomNumber) {
+        this(numberToDisplay, sentence, true, number, exactNumber, randomNumber);
+    }
+
+    private MainViewState(
+        String numberToDisplay,
+        String sentence,
+        boolean hasInputs,
+        int number,
+        @Nullable ExactNumber exactNumber,
+        int randomNumber
+    ) {
         this.numberToDisplay = numberToDisplay;
         this.sentence = sentence;
+        this.hasInputs = hasInputs;
+        this.number = number;
+        this.exactNumber = exactNumber;
+        this.randomNumber = randomNumber;
     }
 
     public String getNumberToDisplay() {
@@ -27,6 +57,20 @@ public class MainViewState {
         return sentence;
     }
 
+    // Null si le ViewState a été construit "à la main" (dans les tests par exemple) : ses nombres ne sont pas connus
+    @Nullable
+    ExactNumber getNumber() {
+        if (!hasInputs) {
+            return null;
+        }
+
+        return exactNumber != null ? exactNumber : ExactNumber.valueOf(number);
+    }
+
+    int getRandomNumber() {
+        return randomNumber;
+    }
+
     @NonNull
     @Override
     public String toString() {
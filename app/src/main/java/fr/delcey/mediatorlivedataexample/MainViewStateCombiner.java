@@ -0,0 +1,121 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import fr.delcey.mediatorlivedataexample.livedata.CombineLatestLiveData;
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+/**
+ * Le "combine()" du MainViewModel : construit le MainViewState à partir du nombre et du nombre aléatoire, en passant par la table
+ * pré-calculée (si elle existe), le cache des derniers ViewStates puis le formatter.<br/>
+ *
+ * Utilisé par chaque MainViewModel, ou une seule fois pour tous par le SharedMainViewStateStream. Attention, cette classe n'est pas
+ * thread-safe : elle ne doit être appelée que depuis un seul thread (celui de son CombineLatestLiveData).
+ */
+class MainViewStateCombiner implements CombineLatestLiveData.Combiner<MainViewState> {
+
+    // Index des sources dans le CombineLatestLiveData (dans l'ordre où elles lui sont données)
+    static final int NUMBER_INDEX = 0;
+    static final int RANDOM_NUMBER_INDEX = 1;
+
+    // En mode EXACT, le nombre ne déborde jamais (ni le produit avec le nombre aléatoire)
+    private final boolean isExact;
+
+    // Réutilisé à chaque "combine()" pour ne pas générer de "déchets" (et donc de passage du Garbage Collector) à chaque émission
+    private final MainViewStateFormatter mainViewStateFormatter = new MainViewStateFormatter();
+
+    // Les derniers ViewStates calculés : si on retombe sur les mêmes nombres, pas besoin de reconstruire les Strings
+    private final MainViewStateMemo mainViewStateMemo = new MainViewStateMemo();
+
+    // Les ViewStates pré-calculés en arrière plan autour du nombre actuel (null si désactivé)
+    @Nullable
+    private final MainViewStateLookupTable lookupTable;
+
+    MainViewStateCombiner(boolean isExact, @Nullable MainViewStateLookupTable lookupTable) {
+        this.isExact = isExact;
+        this.lookupTable = lookupTable;
+    }
+
+    @Override
+    public MainViewState combine(@NonNull CombineLatestLiveData.Values values) {
+        if (isExact) {
+            return combine(values.<ExactNumber>get(NUMBER_INDEX), values.getInt(RANDOM_NUMBER_INDEX));
+        }
+
+        return combine(values.getInt(NUMBER_INDEX), values.getInt(RANDOM_NUMBER_INDEX));
+    }
+
+    // Nombre de ViewStates retrouvés dans le cache plutôt que recalculés
+    long getMemoHitCount() {
+        return mainViewStateMemo.getHitCount();
+    }
+
+    // Nombre de ViewStates lus dans la table pré-calculée, et nombre de fois où la table ne les avait pas (encore)
+    long getLookupTableHitCount() {
+        return lookupTable == null ? 0 : lookupTable.getHitCount();
+    }
+
+    long getLookupTableMissCount() {
+        return lookupTable == null ? 0 : lookupTable.getMissCount();
+    }
+
+    // Position de la fenêtre de la table pré-calculée (sauvegardée avec l'état du MainViewModel), et sa restauration : la fenêtre est
+    // reconstruite en arrière plan tout de suite, sans attendre le premier "combine()"
+    boolean hasCacheSeed() {
+        return lookupTable != null;
+    }
+
+    void seedCache(int cacheSeed) {
+        if (lookupTable != null) {
+            lookupTable.prefetchAround(cacheSeed);
+        }
+    }
+
+    // Plus besoin de considérer les paramètres comme "nullables" : le CombineLatestLiveData n'appelle "combine" (ce n'est pas un mot clef
+    // mais on l'utilise beaucoup avec le MediatorLiveData) que lorsque les 2 sources ont déjà exposé une valeur.
+    @NonNull
+    MainViewState combine(int number, int randomNumber) {
+        if (lookupTable != null) {
+            // Le nombre a peut-être changé : la fenêtre de la table suit en arrière plan
+            lookupTable.prefetchAround(number);
+
+            MainViewState precalculatedViewState = lookupTable.get(number, randomNumber);
+
+            if (precalculatedViewState != null) {
+                return precalculatedViewState;
+            }
+        }
+
+        MainViewState memoizedViewState = mainViewStateMemo.get(number, randomNumber);
+
+        if (memoizedViewState != null) {
+            return memoizedViewState;
+        }
+
+        // On affiche toujours dans une TextView des Strings ("0"), pas des int (0).
+        // Le ViewState ne doit donc avoir que des Strings (sauf pour des id de base de donnée par exemple, vu qu'ils ne seront pas affichés)
+        // Les int qui peuvent être utilisés sont tous les identifiants de Resource Android.
+        // Exemple : @DrawableRes (R.drawable.my_super_icon), @StringRes (R.string.my_great_text), @ColorInt et @ColorRes (R.color.my_shiny_color), etc...
+        // Le formatter construit ces Strings sans allocation intermédiaire (pas de concaténation, pas de String.valueOf())
+        MainViewState viewState = mainViewStateFormatter.format(number, randomNumber);
+
+        mainViewStateMemo.put(number, randomNumber, viewState);
+
+        return viewState;
+    }
+
+    // Le chemin "int" (table pré-calculée, cache, formatter sans allocation) tant que le produit tient dans un int, sans débordement sinon
+    @NonNull
+    MainViewState combine(@NonNull ExactNumber number, int randomNumber) {
+        if (number.isInt()) {
+            long result = number.longValue() * randomNumber;
+
+            if (result == (int) result) {
+                return combine((int) number.longValue(), randomNumber);
+            }
+        }
+
+        return mainViewStateFormatter.format(number, randomNumber);
+    }
+}
@@ -0,0 +1,167 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import fr.delcey.mediatorlivedataexample.number.DigitChunkFormatter;
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+/**
+ * Construit les String du MainViewState sans "déchets" intermédiaires : pas de StringBuilder, pas de concaténation avec "+", pas de
+ * "String.valueOf()". Les chiffres sont écrits directement dans un buffer de char réutilisé d'une émission à l'autre, et les petits nombres
+ * (ceux que produisent les repositories la plupart du temps) sont mis en cache.<br/>
+ *
+ * Seules les String finales (celles qui seront affichées) sont allouées. Attention, cette classe n'est pas thread-safe : chaque ViewModel
+ * doit avoir sa propre instance.
+ */
+class MainViewStateFormatter {
+
+    // Cache partagé des "petits" nombres déjà convertis en String (les résultats de 0 à 1023)
+    private static final int CACHED_NUMBER_COUNT = 1024;
+    private static final String[] CACHED_NUMBERS = new String[CACHED_NUMBER_COUNT];
+
+    // C'est une mauvaise pratique que d'avoir une String en dur dans le ViewModel, il faut la récupérer avec les Resources !
+    // C'est juste par simplicité. :)
+    private static final char[] SENTENCE_START = "Le nombre ".toCharArray();
+    private static final char[] SENTENCE_IS = " est ".toCharArray();
+    private static final char[] EVEN = "pair".toCharArray();
+    private static final char[] ODD = "impair".toCharArray();
+    private static final char[] SENTENCE_RANDOM_NUMBER = ", le nombre aléatoire est ".toCharArray();
+
+    // Un int s'écrit au maximum sur 11 caractères ("-2147483648")
+    private static final int MAX_INT_LENGTH = 11;
+
+    // Agrandi uniquement pour les très grands nombres (cf "format(ExactNumber, int)")
+    private char[] buffer = new char[getSentenceLength(MAX_INT_LENGTH)];
+
+    // Pour les nombres qui ne tiennent plus dans un int
+    private final DigitChunkFormatter digitChunkFormatter = new DigitChunkFormatter();
+
+    // Le ViewState de "number x randomNumber" (comme en Java, le produit "déborde" s'il ne tient pas dans un int)
+    @NonNull
+    MainViewState format(int number, int randomNumber) {
+        return format(number, null, randomNumber);
+    }
+
+    // Chemin "int" (le plus courant) si le résultat y tient, sinon le nombre est converti par paquets de chiffres
+    @NonNull
+    MainViewState format(@NonNull ExactNumber number, int randomNumber) {
+        if (number.isInt()) {
+            long result = number.longValue() * randomNumber;
+
+            if (result == (int) result) {
+                return format((int) number.longValue(), number, randomNumber);
+            }
+        }
+
+        ExactNumber result = number.times(randomNumber);
+        String numberToDisplay = digitChunkFormatter.format(result);
+
+        return new MainViewState(
+            numberToDisplay,
+            formatSentence(numberToDisplay, result.isEven(), randomNumber),
+            0,
+            number,
+            randomNumber
+        );
+    }
+
+    @NonNull
+    private MainViewState format(int number, @Nullable ExactNumber exactNumber, int randomNumber) {
+        int result = number * randomNumber;
+
+        return new MainViewState(
+            formatNumber(result),
+            formatSentence(result, randomNumber),
+            number,
+            exactNumber,
+            randomNumber
+        );
+    }
+
+    @NonNull
+    String formatNumber(int number) {
+        if (number < 0 || number >= CACHED_NUMBER_COUNT) {
+            int length = writeNumber(number, 0);
+
+            return new String(buffer, 0, length);
+        }
+
+        // Pas besoin de synchronisation : dans le pire des cas, deux threads créent chacun la même String
+        String cached = CACHED_NUMBERS[number];
+
+        if (cached == null) {
+            int length = writeNumber(number, 0);
+
+            cached = new String(buffer, 0, length);
+            CACHED_NUMBERS[number] = cached;
+        }
+
+        return cached;
+    }
+
+    // Exemple : "Le nombre 42 est pair, le nombre aléatoire est 7"
+    @NonNull
+    String formatSentence(int result, int randomNumber) {
+        int position = write(SENTENCE_START, 0);
+        position = writeNumber(result, position);
+        position = write(SENTENCE_IS, position);
+        // Le bit de poids faible suffit à connaitre la parité (y compris pour les nombres négatifs), pas besoin de modulo
+        position = write((result & 1) == 0 ? EVEN : ODD, position);
+        position = write(SENTENCE_RANDOM_NUMBER, position);
+        position = writeNumber(randomNumber, position);
+
+        return new String(buffer, 0, position);
+    }
+
+    @NonNull
+    private String formatSentence(@NonNull String number, boolean isEven, int randomNumber) {
+        if (buffer.length < getSentenceLength(number.length())) {
+            buffer = new char[getSentenceLength(number.length())];
+        }
+
+        int position = write(SENTENCE_START, 0);
+        number.getChars(0, number.length(), buffer, position);
+        position += number.length();
+        position = write(SENTENCE_IS, position);
+        position = write(isEven ? EVEN : ODD, position);
+        position = write(SENTENCE_RANDOM_NUMBER, position);
+        position = writeNumber(randomNumber, position);
+
+        return new String(buffer, 0, position);
+    }
+
+    private static int getSentenceLength(int numberLength) {
+        return SENTENCE_START.length + numberLength + SENTENCE_IS.length + ODD.length + SENTENCE_RANDOM_NUMBER.length + MAX_INT_LENGTH;
+    }
+
+    private int write(@NonNull char[] chars, int position) {
+        System.arraycopy(chars, 0, buffer, position, chars.length);
+
+        return position + chars.length;
+    }
+
+    // Ecrit les chiffres de "number" dans le buffer à partir de "position", et renvoie la position suivant le dernier chiffre
+    private int writeNumber(int number, int position) {
+        // On passe par un long pour pouvoir prendre la valeur absolue de Integer.MIN_VALUE
+        long remaining = number;
+
+        if (remaining < 0) {
+            buffer[position++] = '-';
+            remaining = -remaining;
+        }
+
+        int digitCount = 1;
+        for (long power = 10; power <= remaining; power *= 10) {
+            digitCount++;
+        }
+
+        int end = position + digitCount;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + (remaining % 10));
+            remaining /= 10;
+        }
+
+        return end;
+    }
+}
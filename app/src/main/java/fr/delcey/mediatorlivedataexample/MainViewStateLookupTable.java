@@ -0,0 +1,187 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+
+/**
+ * Table des MainViewStates pré-calculés en arrière plan : pour une "fenêtre" de nombres autour du nombre actuel, et pour chacun des tirages
+ * possibles du RandomRepository (de 1 à 10), le MainViewState est déjà construit (multiplication, parité et Strings comprises).<br/>
+ *
+ * Le nombre n'avance que de +1 (ou x2) à chaque clic : la plupart des clics tombent donc dans la fenêtre, et "combine()" se résume à une
+ * lecture dans un tableau. Quand le nombre s'approche d'un bord de la fenêtre (ou en sort), une nouvelle fenêtre centrée sur lui est
+ * construite sur le "refillExecutor", en reprenant les ViewStates déjà calculés de l'ancienne fenêtre. L'ancienne fenêtre est alors
+ * oubliée : la mémoire utilisée ne dépasse jamais WINDOW_SIZE x 10 ViewStates.<br/>
+ *
+ * Une fenêtre est immuable une fois publiée : la lecture ne prend aucun verrou, même si elle est faite sur un autre thread que le calcul.
+ */
+public class MainViewStateLookupTable {
+
+    // Nombre de valeurs du nombre couvertes par une fenêtre
+    static final int WINDOW_SIZE = 64;
+
+    private static final int RANDOM_NUMBER_COUNT = RandomRepository.MAX_RANDOM_NUMBER - RandomRepository.MIN_RANDOM_NUMBER + 1;
+
+    // Le nombre augmente bien plus souvent qu'il ne diminue : la fenêtre garde peu de valeurs "derrière" lui et beaucoup "devant"
+    private static final int WINDOW_VALUES_BEHIND = WINDOW_SIZE / 4;
+
+    // Une nouvelle fenêtre est construite dès que le nombre sort de [firstNumber + LOW_MARGIN ; firstNumber + HIGH_MARGIN[
+    private static final int LOW_MARGIN = WINDOW_SIZE / 8;
+    private static final int HIGH_MARGIN = WINDOW_SIZE * 5 / 8;
+
+    @NonNull
+    private final Executor refillExecutor;
+
+    // Utilisé uniquement sur le thread du "refillExecutor" (le formatter n'est pas thread-safe)
+    private final MainViewStateFormatter formatter = new MainViewStateFormatter();
+
+    @Nullable
+    private volatile Window window;
+
+    // Dernier nombre autour duquel une fenêtre a été demandée
+    private volatile int requestedNumber;
+
+    // Vrai si une construction de fenêtre est déjà prévue sur le "refillExecutor"
+    private final AtomicBoolean isRefillScheduled = new AtomicBoolean();
+
+    // Modifiés uniquement par le thread qui appelle "get()" (celui de "combine()")
+    private long hitCount;
+    private long missCount;
+
+    // Modifié uniquement par le thread du "refillExecutor"
+    private volatile long refillCount;
+
+    private final Runnable refillRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // On baisse le flag AVANT de lire le nombre demandé : une demande qui arriverait pendant la construction en provoquera une autre
+            isRefillScheduled.set(false);
+
+            int number = requestedNumber;
+
+            if (needsRefill(window, number)) {
+                window = buildWindow(window, number);
+                refillCount++;
+            }
+        }
+    };
+
+    public MainViewStateLookupTable(@NonNull Executor refillExecutor) {
+        this.refillExecutor = refillExecutor;
+    }
+
+    // Le ViewState pré-calculé pour ce couple, ou null s'il n'est pas (encore) dans la fenêtre
+    @Nullable
+    MainViewState get(int number, int randomNumber) {
+        Window currentWindow = window;
+
+        if (currentWindow != null) {
+            MainViewState viewState = currentWindow.get(number, randomNumber);
+
+            if (viewState != null) {
+                hitCount++;
+                return viewState;
+            }
+        }
+
+        missCount++;
+        return null;
+    }
+
+    // Prévient la table que le nombre a changé : si besoin, une nouvelle fenêtre autour de lui sera construite en arrière plan
+    @AnyThread
+    void prefetchAround(int number) {
+        requestedNumber = number;
+
+        if (needsRefill(window, number) && isRefillScheduled.compareAndSet(false, true)) {
+            refillExecutor.execute(refillRunnable);
+        }
+    }
+
+    long getHitCount() {
+        return hitCount;
+    }
+
+    long getMissCount() {
+        return missCount;
+    }
+
+    long getRefillCount() {
+        return refillCount;
+    }
+
+    private static boolean needsRefill(@Nullable Window window, int number) {
+        if (window == null) {
+            return true;
+        }
+
+        long offset = (long) number - window.firstNumber;
+
+        return offset < LOW_MARGIN || offset >= HIGH_MARGIN;
+    }
+
+    @WorkerThread
+    @NonNull
+    private Window buildWindow(@Nullable Window oldWindow, int number) {
+        // En long pour ne pas déborder près de Integer.MIN_VALUE / Integer.MAX_VALUE
+        long firstNumber = Math.max(
+            Integer.MIN_VALUE,
+            Math.min((long) number - WINDOW_VALUES_BEHIND, (long) Integer.MAX_VALUE - WINDOW_SIZE + 1)
+        );
+
+        MainViewState[] viewStates = new MainViewState[WINDOW_SIZE * RANDOM_NUMBER_COUNT];
+
+        for (int row = 0; row < WINDOW_SIZE; row++) {
+            int rowNumber = (int) (firstNumber + row);
+            int rowStart = row * RANDOM_NUMBER_COUNT;
+
+            long oldRow = oldWindow == null ? -1 : (long) rowNumber - oldWindow.firstNumber;
+
+            if (oldRow >= 0 && oldRow < WINDOW_SIZE) {
+                // Déjà calculés dans l'ancienne fenêtre : on reprend simplement les références
+                System.arraycopy(oldWindow.viewStates, (int) oldRow * RANDOM_NUMBER_COUNT, viewStates, rowStart, RANDOM_NUMBER_COUNT);
+            } else {
+                for (int i = 0; i < RANDOM_NUMBER_COUNT; i++) {
+                    int randomNumber = RandomRepository.MIN_RANDOM_NUMBER + i;
+
+                    // Même calcul que MainViewModel.combine()
+                    viewStates[rowStart + i] = formatter.format(rowNumber, randomNumber);
+                }
+            }
+        }
+
+        return new Window(firstNumber, viewStates);
+    }
+
+    private static final class Window {
+
+        private final long firstNumber;
+
+        // Ligne par nombre, une colonne par tirage possible
+        @NonNull
+        private final MainViewState[] viewStates;
+
+        private Window(long firstNumber, @NonNull MainViewState[] viewStates) {
+            this.firstNumber = firstNumber;
+            this.viewStates = viewStates;
+        }
+
+        @Nullable
+        MainViewState get(int number, int randomNumber) {
+            long row = (long) number - firstNumber;
+            int column = randomNumber - RandomRepository.MIN_RANDOM_NUMBER;
+
+            if (row < 0 || row >= WINDOW_SIZE || column < 0 || column >= RANDOM_NUMBER_COUNT) {
+                return null;
+            }
+
+            return viewStates[(int) row * RANDOM_NUMBER_COUNT + column];
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Petit cache des derniers MainViewState calculés, indexé par le couple (nombre, nombre aléatoire). Quand l'utilisateur retombe sur un
+ * couple déjà vu récemment (le même nombre aléatoire tiré 2 fois de suite par exemple), on réutilise le ViewState au lieu de le recalculer.<br/>
+ *
+ * C'est un cache "à correspondance directe" : chaque couple n'a qu'une seule case possible, la dernière valeur écrite dans une case remplace
+ * la précédente. Pas de liste chainée ni d'objet "clef", donc pas d'allocation pour chercher dans le cache.
+ */
+class MainViewStateMemo {
+
+    // Doit être une puissance de 2 (cf "indexOf()")
+    private static final int SIZE = 16;
+
+    private final long[] keys = new long[SIZE];
+    private final MainViewState[] viewStates = new MainViewState[SIZE];
+
+    private long hitCount;
+    private long missCount;
+
+    @Nullable
+    MainViewState get(int number, int randomNumber) {
+        long key = toKey(number, randomNumber);
+        int index = indexOf(key);
+        MainViewState viewState = viewStates[index];
+
+        if (viewState != null && keys[index] == key) {
+            hitCount++;
+            return viewState;
+        }
+
+        missCount++;
+        return null;
+    }
+
+    void put(int number, int randomNumber, @NonNull MainViewState viewState) {
+        long key = toKey(number, randomNumber);
+        int index = indexOf(key);
+
+        keys[index] = key;
+        viewStates[index] = viewState;
+    }
+
+    long getHitCount() {
+        return hitCount;
+    }
+
+    long getMissCount() {
+        return missCount;
+    }
+
+    private static long toKey(int number, int randomNumber) {
+        return ((long) number << 32) | (randomNumber & 0xFFFFFFFFL);
+    }
+
+    private static int indexOf(long key) {
+        // On "mélange" les bits des 2 nombres pour que des couples proches ne tombent pas tous dans la même case
+        long hash = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (hash >>> 60) & (SIZE - 1);
+    }
+}
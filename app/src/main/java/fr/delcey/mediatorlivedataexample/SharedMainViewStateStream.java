@@ -0,0 +1,181 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import fr.delcey.mediatorlivedataexample.livedata.CombineLatestLiveData;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.utils.FrameTicker;
+
+/**
+ * Le MainViewState partagé par tous les MainViewModels (plusieurs écrans ou Fragments affichés en même temps) : les repositories n'ont
+ * qu'un seul Observer, et "combine()" n'est fait qu'une fois par changement, au lieu d'une fois par ViewModel.<br/>
+ *
+ * Le résultat est distribué aux abonnés via un simple tableau, recopié à chaque abonnement / désabonnement ("copy-on-write") : une émission
+ * n'est qu'une boucle sur un tableau, et un abonné peut se désabonner (ou en abonner un autre) pendant l'émission sans rien perturber.<br/>
+ *
+ * Les abonnements sont comptés : le flux ne s'abonne aux repositories qu'à l'arrivée du premier abonné, et s'en désabonne au départ du
+ * dernier (plus aucun calcul tant que personne n'écoute). Tout se passe sur le thread principal, comme pour les LiveData.
+ */
+public class SharedMainViewStateStream {
+
+    @SuppressWarnings("unchecked")
+    private static final Observer<MainViewState>[] NO_SUBSCRIBERS = new Observer[0];
+
+    @NonNull
+    private final MainViewStateCombiner mainViewStateCombiner;
+    @NonNull
+    private final CombineLatestLiveData<MainViewState> combinedLiveData;
+
+    // Jamais modifié : remplacé par une copie à chaque abonnement / désabonnement
+    @NonNull
+    private Observer<MainViewState>[] subscribers = NO_SUBSCRIBERS;
+
+    @NonNull
+    private final Observer<MainViewState> fanOutObserver = new Observer<MainViewState>() {
+        @Override
+        public void onChanged(MainViewState mainViewState) {
+            // Les abonnements / désabonnements faits pendant la boucle ne concernent que les émissions suivantes
+            Observer<MainViewState>[] currentSubscribers = subscribers;
+
+            for (Observer<MainViewState> subscriber : currentSubscribers) {
+                subscriber.onChanged(mainViewState);
+            }
+        }
+    };
+
+    public SharedMainViewStateStream(@NonNull NumberRepository numberRepository, @NonNull RandomRepository randomRepository) {
+        this(numberRepository, randomRepository, null, null);
+    }
+
+    // Le FrameTicker et la MainViewStateLookupTable (optionnels) sont eux aussi partagés : au maximum un "combine()" par frame, et une seule
+    // fenêtre pré-calculée, pour tous les ViewModels
+    public SharedMainViewStateStream(
+        @NonNull NumberRepository numberRepository,
+        @NonNull RandomRepository randomRepository,
+        @Nullable FrameTicker frameTicker,
+        @Nullable MainViewStateLookupTable lookupTable
+    ) {
+        boolean isExact = numberRepository.getMode() == NumberRepository.Mode.EXACT;
+
+        mainViewStateCombiner = new MainViewStateCombiner(isExact, lookupTable);
+        combinedLiveData = new CombineLatestLiveData<>(
+            frameTicker,
+            mainViewStateCombiner,
+            isExact ? numberRepository.getExactNumberLiveData() : numberRepository.getNumberLiveData(),
+            randomRepository.getRandomNumberLiveData()
+        );
+
+        if (Metrics.ENABLED) {
+            combinedLiveData.setMetrics(Metrics.combine("SharedMainViewStateStream"));
+        }
+    }
+
+    // Le dernier MainViewState calculé est donné immédiatement au nouvel abonné (comme une LiveData), s'il existe
+    @MainThread
+    public void subscribe(@NonNull Observer<MainViewState> subscriber) {
+        Observer<MainViewState>[] newSubscribers = copyOf(subscribers, subscribers.length + 1);
+        newSubscribers[subscribers.length] = subscriber;
+        subscribers = newSubscribers;
+
+        if (newSubscribers.length == 1) {
+            // Le CombineLatestLiveData devient actif : il s'abonne aux repositories, et émet tout de suite s'il a déjà une valeur
+            combinedLiveData.observeForever(fanOutObserver);
+        } else if (combinedLiveData.getValue() != null) {
+            subscriber.onChanged(combinedLiveData.getValue());
+        }
+    }
+
+    @MainThread
+    public void unsubscribe(@NonNull Observer<MainViewState> subscriber) {
+        int index = -1;
+
+        for (int i = 0; i < subscribers.length; i++) {
+            if (subscribers[i] == subscriber) {
+                index = i;
+                break;
+            }
+        }
+
+        if (index == -1) {
+            return;
+        }
+
+        Observer<MainViewState>[] newSubscribers = copyOf(subscribers, subscribers.length - 1);
+        System.arraycopy(subscribers, index + 1, newSubscribers, index, subscribers.length - index - 1);
+        subscribers = newSubscribers;
+
+        if (newSubscribers.length == 0) {
+            // Le CombineLatestLiveData devient inactif : il se désabonne des repositories
+            combinedLiveData.removeObserver(fanOutObserver);
+        }
+    }
+
+    // Une nouvelle LiveData à chaque appel (une par ViewModel), abonnée au flux partagé uniquement tant qu'elle est active
+    @NonNull
+    public LiveData<MainViewState> asLiveData() {
+        return new SubscriberLiveData(this);
+    }
+
+    @MainThread
+    public int getSubscriberCount() {
+        return subscribers.length;
+    }
+
+    // Nombre de ViewStates réellement calculés, pour tous les abonnés
+    public long getCombineCount() {
+        return combinedLiveData.getCombineCount();
+    }
+
+    @NonNull
+    MainViewStateCombiner getCombiner() {
+        return mainViewStateCombiner;
+    }
+
+    @NonNull
+    CombineLatestLiveData<MainViewState> getCombinedLiveData() {
+        return combinedLiveData;
+    }
+
+    @NonNull
+    private static Observer<MainViewState>[] copyOf(@NonNull Observer<MainViewState>[] subscribers, int newLength) {
+        @SuppressWarnings("unchecked")
+        Observer<MainViewState>[] copy = new Observer[newLength];
+        System.arraycopy(subscribers, 0, copy, 0, Math.min(subscribers.length, newLength));
+
+        return copy;
+    }
+
+    private static final class SubscriberLiveData extends LiveData<MainViewState> implements Observer<MainViewState> {
+
+        @NonNull
+        private final SharedMainViewStateStream stream;
+
+        private SubscriberLiveData(@NonNull SharedMainViewStateStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        protected void onActive() {
+            stream.subscribe(this);
+        }
+
+        @Override
+        protected void onInactive() {
+            stream.unsubscribe(this);
+        }
+
+        // A chaque réabonnement (onStop() / onStart(), rotation...), le flux redonne son ViewState actuel : déjà émis par cette LiveData
+        @Override
+        public void onChanged(MainViewState mainViewState) {
+            if (!mainViewState.equals(getValue())) {
+                setValue(mainViewState);
+            }
+        }
+    }
+}
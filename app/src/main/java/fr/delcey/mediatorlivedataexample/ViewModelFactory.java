@@ -1,38 +1,121 @@
 package fr.delcey.mediatorlivedataexample;
 
+import android.util.Log;
+
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.SavedStateHandleSupport;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.viewmodel.CreationExtras;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
+import fr.delcey.mediatorlivedataexample.repository.MappedIntStore;
 import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
 import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.utils.ChoreographerFrameTicker;
+import fr.delcey.mediatorlivedataexample.utils.ProviderRegistry;
+import fr.delcey.mediatorlivedataexample.utils.StartupTimings;
 
 /**
  * L'Injection de dépendance se fait dans la ViewModelFactory. C'est elle qui se charge de créer tous les ViewModels, c'est donc le point
- * d'entrée de tous les ViewModels
+ * d'entrée de tous les ViewModels.<br/>
+ *
+ * Les dépendances sont enregistrées dans un ProviderRegistry : rien n'est construit tant qu'un ViewModel n'en a pas besoin, et le temps de
+ * construction de chaque repository / ViewModel est mesuré (voir "getStartupTimings()").
  */
 public class ViewModelFactory implements ViewModelProvider.Factory {
 
-    private static ViewModelFactory sFactory;
+    private static final String TAG = "ViewModelFactory";
+
+    // Clef du MainViewModelSnapshot dans le SavedStateHandle
+    private static final String MAIN_VIEW_MODEL_SNAPSHOT_KEY = "MainViewModel.snapshot";
 
-    private final NumberRepository numberRepository;
-    private final RandomRepository randomRepository;
+    private static volatile ViewModelFactory sFactory;
+
+    @NonNull
+    private final StartupTimings startupTimings = new StartupTimings();
+    @NonNull
+    private final ProviderRegistry registry = new ProviderRegistry(startupTimings);
 
     // Pattern singleton : seule la classe elle-même peut s'instancier
-    private ViewModelFactory(@NonNull NumberRepository numberRepository, @NonNull RandomRepository randomRepository) {
-        this.numberRepository = numberRepository;
-        this.randomRepository = randomRepository;
+    private ViewModelFactory() {
+        // Un seul thread d'arrière plan pour toute l'application (écritures sur le disque, table pré-calculée, mesure des textes,
+        // différences de l'historique) : rien de tout ça ne bloque le thread principal
+        registry.registerSingleton(Executor.class, new ProviderRegistry.Provider<Executor>() {
+            @NonNull
+            @Override
+            public Executor get() {
+                return Executors.newSingleThreadExecutor();
+            }
+        });
+
+        registry.registerSingleton(NumberRepository.class, new ProviderRegistry.Provider<NumberRepository>() {
+            @NonNull
+            @Override
+            public NumberRepository get() {
+                // Mode EXACT : le nombre ne déborde jamais, même après des dizaines de "x2". Le journal des opérations permet "undo" / "redo".
+                return new NumberRepository(openStore("number.bin"), NumberRepository.Mode.EXACT, true);
+            }
+        });
+
+        registry.registerSingleton(RandomRepository.class, new ProviderRegistry.Provider<RandomRepository>() {
+            @NonNull
+            @Override
+            public RandomRepository get() {
+                return new RandomRepository(openStore("random_number.bin"));
+            }
+        });
+
+        // Le MainViewState est calculé une seule fois par changement, quel que soit le nombre de MainViewModels (plusieurs écrans ou
+        // Fragments) : il est partagé par tous, et n'écoute les repositories que tant qu'au moins l'un d'eux est observé
+        registry.registerSingleton(SharedMainViewStateStream.class, new ProviderRegistry.Provider<SharedMainViewStateStream>() {
+            @NonNull
+            @Override
+            public SharedMainViewStateStream get() {
+                return new SharedMainViewStateStream(
+                    registry.get(NumberRepository.class),
+                    registry.get(RandomRepository.class),
+                    // Le ViewState ne sera recalculé qu'une fois par frame, même si les repositories émettent des rafales de valeurs
+                    new ChoreographerFrameTicker(),
+                    // "combine()" reste sur le thread principal : avec la table, ce n'est presque toujours qu'une lecture dans un tableau.
+                    // Les ViewStates autour du nombre actuel sont pré-calculés sur le thread d'arrière plan (quelques dizaines de ViewStates
+                    // toutes les 20 à 30 valeurs : rien qui puisse retarder les écritures sur le disque)
+                    new MainViewStateLookupTable(registry.get(Executor.class))
+                );
+            }
+        });
+
+        // C'est ici qu'on va enregistrer tous les différents VM : on utilise une seule ViewModelFactory pour toute l'application
+        registry.registerFactory(MainViewModel.class, new ProviderRegistry.Provider<MainViewModel>() {
+            @NonNull
+            @Override
+            public MainViewModel get() {
+                return createMainViewModel(null);
+            }
+        });
+        // Exemple pour un deuxième ViewModel :
+        // registry.registerFactory(AnotherViewModel.class, new ProviderRegistry.Provider<AnotherViewModel>() {
+        //     @NonNull
+        //     @Override
+        //     public AnotherViewModel get() {
+        //         return new AnotherViewModel(registry.get(NumberRepository.class));
+        //     }
+        // });
     }
 
-    // Pattern singleton : récupération de l'Instance unique disponible partout dans l'app
+    // Pattern singleton : récupération de l'Instance unique disponible partout dans l'app. Sa création est quasi gratuite : aucun repository
+    // n'est construit ici.
     public static ViewModelFactory getInstance() {
         if (sFactory == null) {
             synchronized (ViewModelFactory.class) {
                 if (sFactory == null) {
-                    sFactory = new ViewModelFactory(
-                        new NumberRepository(),
-                        new RandomRepository()
-                    );
+                    sFactory = new ViewModelFactory();
                 }
             }
         }
@@ -40,24 +123,81 @@ public class ViewModelFactory implements ViewModelProvider.Factory {
         return sFactory;
     }
 
-    @SuppressWarnings("unchecked")
+    // Temps de construction de chaque dépendance déjà créée, pour suivre le coût du démarrage à froid
+    @NonNull
+    public StartupTimings getStartupTimings() {
+        return startupTimings;
+    }
+
+    // Le thread d'arrière plan de l'application (écritures sur le disque, table pré-calculée, mesure des textes, etc...), pour les Views
+    @NonNull
+    public Executor getBackgroundExecutor() {
+        return registry.get(Executor.class);
+    }
+
+    // Si le fichier ne peut pas être ouvert, les données ne seront simplement pas persistées (comme avant)
+    @Nullable
+    private MappedIntStore openStore(@NonNull String fileName) {
+        try {
+            return new MappedIntStore(new File(MainApplication.getInstance().getFilesDir(), fileName), registry.get(Executor.class));
+        } catch (IOException e) {
+            Log.e(TAG, "Can't open " + fileName + ", data won't be persisted", e);
+            return null;
+        }
+    }
+
+    @NonNull
+    private MainViewModel createMainViewModel(@Nullable final SavedStateHandle savedStateHandle) {
+        return new MainViewModel(
+            registry.get(NumberRepository.class),
+            registry.get(RandomRepository.class),
+            registry.get(SharedMainViewStateStream.class),
+            savedStateHandle == null ? null : new MainViewModel.SnapshotStore() {
+                @Nullable
+                @Override
+                public byte[] read() {
+                    return savedStateHandle.get(MAIN_VIEW_MODEL_SNAPSHOT_KEY);
+                }
+
+                @Override
+                public void write(@NonNull byte[] snapshot) {
+                    savedStateHandle.set(MAIN_VIEW_MODEL_SNAPSHOT_KEY, snapshot);
+                }
+            }
+        );
+    }
+
+    // Appelée par le ViewModelProvider d'une Activity ou d'un Fragment : le SavedStateHandle est propre à chaque ViewModel, il ne peut donc
+    // pas venir du ProviderRegistry
     @NonNull
     @Override
-    public <T extends ViewModel> T create(Class<T> modelClass) {
-        if (modelClass.isAssignableFrom(MainViewModel.class)) {
-            return (T) new MainViewModel(
-                numberRepository,
-                randomRepository
-            );
+    public <T extends ViewModel> T create(@NonNull Class<T> modelClass, @NonNull CreationExtras extras) {
+        if (modelClass == MainViewModel.class) {
+            T viewModel = modelClass.cast(createMainViewModel(SavedStateHandleSupport.createSavedStateHandle(extras)));
+
+            if (BuildConfig.DEBUG) {
+                Log.d(TAG, startupTimings.getDebugReport());
+            }
+
+            return viewModel;
         }
-        // C'est ici qu'on va créer tous les différents VM : on utilise une seule ViewModelFactory pour toute l'application
-        // Exemple pour un deuxième ViewModel :
-        // else if (modelClass.isAssignableFrom(AnotherViewModel.class)) {
-        //     return (T) new AnotherViewModel(
-        //         numberRepository,
-        //         randomRepository
-        //     );
-        // }
-        throw new IllegalArgumentException("Unknown ViewModel class");
-    }
-}
\ No newline at end of file
+
+        return create(modelClass);
+    }
+
+    @NonNull
+    @Override
+    public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
+        if (!registry.isRegistered(modelClass)) {
+            throw new IllegalArgumentException("Unknown ViewModel class");
+        }
+
+        T viewModel = registry.get(modelClass);
+
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, startupTimings.getDebugReport());
+        }
+
+        return viewModel;
+    }
+}
@@ -0,0 +1,81 @@
+@file:JvmName("ViewStateFlows")
+
+package fr.delcey.mediatorlivedataexample.flow
+
+import androidx.lifecycle.Observer
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.launch
+
+/**
+ * L'équivalent en Flow (Kotlin) du CombineLatestLiveData : les 2 sources (des StateFlows des repositories) sont combinées par l'opérateur
+ * "combine", sur le "dispatcher" choisi (jamais sur le thread du collecteur si c'est un autre dispatcher). Comme pour la LiveData, un
+ * résultat identique au précédent n'est pas ré-émis.<br/>
+ *
+ * Les StateFlows sources gardent déjà uniquement leur dernière valeur : si "combine" est plus lent que les modifications, les valeurs
+ * intermédiaires ne sont jamais calculées. La Conflation choisit ce qui se passe ensuite, entre le "combine" et un collecteur plus lent que
+ * lui.<br/>
+ *
+ * Ces fonctions sont écrites en Kotlin (les opérateurs de Flow sont des fonctions "suspend", difficilement utilisables en Java) mais
+ * s'appellent depuis le Java comme des méthodes statiques de "ViewStateFlows".
+ */
+enum class Conflation {
+
+    // Tous les résultats sont livrés au collecteur. Au delà de 64 résultats en attente, "combine" est suspendu jusqu'à ce que le collecteur
+    // rattrape son retard (contre-pression)
+    BUFFER,
+
+    // Seul le dernier résultat attend le collecteur : les résultats qu'il n'a pas eu le temps de recevoir sont remplacés, "combine" n'est
+    // jamais suspendu
+    CONFLATE,
+
+    // Aucun résultat en attente : "combine" est suspendu jusqu'à ce que le collecteur ait reçu le résultat précédent
+    RENDEZVOUS
+}
+
+// Les "combine()" du MainViewModel ne sont pas thread-safe (formatter réutilisé) : chaque collecte a son propre Combiner
+fun interface Combiner<A, B, R> {
+    fun combine(first: A, second: B): R
+}
+
+fun interface CombinerFactory<A, B, R> {
+    fun create(): Combiner<A, B, R>
+}
+
+fun <A, B, R> combineLatest(
+    first: Flow<A>,
+    second: Flow<B>,
+    conflation: Conflation,
+    dispatcher: CoroutineDispatcher,
+    combinerFactory: CombinerFactory<A, B, R>
+): Flow<R> {
+    val combined = flow {
+        val combiner = combinerFactory.create()
+
+        emitAll(combine(first, second) { firstValue, secondValue -> combiner.combine(firstValue, secondValue) })
+    }
+        .distinctUntilChanged()
+        .flowOn(dispatcher)
+
+    // "conflate()" et "buffer()" juste après "flowOn()" ne rajoutent pas de canal : ils changent la capacité de celui de "flowOn()"
+    return when (conflation) {
+        Conflation.BUFFER -> combined.buffer(Channel.BUFFERED)
+        Conflation.CONFLATE -> combined.conflate()
+        Conflation.RENDEZVOUS -> combined.buffer(Channel.RENDEZVOUS)
+    }
+}
+
+// Pour collecter un Flow depuis le Java, avec un simple Observer (comme une LiveData). La collecte s'arrête avec le Job ou le "scope".
+fun <T> collectIn(flow: Flow<T>, scope: CoroutineScope, observer: Observer<in T>): Job = scope.launch {
+    flow.collect { value -> observer.onChanged(value) }
+}
@@ -0,0 +1,97 @@
+package fr.delcey.mediatorlivedataexample.history;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.concurrent.Executor;
+
+import fr.delcey.mediatorlivedataexample.MainViewState;
+import fr.delcey.mediatorlivedataexample.R;
+
+/**
+ * Affiche l'historique des MainViewStates. L'Adapter ne fait que relayer les Snapshots au HistoryDiffer : la différence est calculée en
+ * arrière plan, et une nouvelle émission ne coûte qu'un "notifyItemRangeInserted()" (et un "notifyItemRangeRemoved()" quand l'historique
+ * est plein) sur le thread principal, jamais un "notifyDataSetChanged()".
+ */
+public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHolder> {
+
+    @NonNull
+    private final HistoryDiffer historyDiffer;
+
+    // La différence est calculée sur le "diffExecutor" : le thread d'arrière plan de l'application, partagé par tous les Adapters
+    public HistoryAdapter(@NonNull Executor diffExecutor) {
+        final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+        historyDiffer = new HistoryDiffer(
+            new HistoryDiffer.Callback() {
+                @Override
+                public void onInserted(int position, int count) {
+                    notifyItemRangeInserted(position, count);
+                }
+
+                @Override
+                public void onRemoved(int position, int count) {
+                    notifyItemRangeRemoved(position, count);
+                }
+            },
+            diffExecutor,
+            new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    mainThreadHandler.post(command);
+                }
+            }
+        );
+
+        // Les identifiants de l'historique ne changent jamais : la RecyclerView peut réutiliser les vues des entrées déjà affichées
+        setHasStableIds(true);
+    }
+
+    public void submit(@NonNull MainViewStateHistory.Snapshot snapshot) {
+        historyDiffer.submit(snapshot);
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return new ViewHolder(LayoutInflater.from(parent.getContext()).inflate(R.layout.history_item, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        //noinspection ConstantConditions : "getItemCount()" vaut 0 tant qu'il n'y a pas de Snapshot
+        MainViewState viewState = historyDiffer.getCurrentSnapshot().get(position);
+
+        holder.sentenceTextView.setText(viewState.getSentence());
+    }
+
+    @Override
+    public long getItemId(int position) {
+        //noinspection ConstantConditions
+        return historyDiffer.getCurrentSnapshot().getId(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return historyDiffer.getItemCount();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+
+        @NonNull
+        private final TextView sentenceTextView;
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+
+            sentenceTextView = itemView.findViewById(R.id.history_item_sentence_textview);
+        }
+    }
+}
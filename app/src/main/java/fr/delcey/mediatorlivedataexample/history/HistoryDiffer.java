@@ -0,0 +1,143 @@
+package fr.delcey.mediatorlivedataexample.history;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Sur le modèle de l'AsyncListDiffer de RecyclerView : les Snapshots de l'historique sont soumis depuis le thread principal, la différence
+ * avec le Snapshot affiché est calculée sur un Executor en arrière plan, puis appliquée sur le thread principal (nouvelle "liste courante"
+ * et notifications d'insertions / suppressions).<br/>
+ *
+ * Grâce aux identifiants stables de l'historique, pas besoin de l'algorithme de Myers (DiffUtil, en O(N)) : la différence entre 2 Snapshots
+ * se résume à "X entrées supprimées au début, Y entrées insérées à la fin", et se calcule en O(1). Comme avec AsyncListDiffer, si un
+ * nouveau Snapshot est soumis avant la fin d'un calcul, le résultat de ce calcul est ignoré.
+ */
+public class HistoryDiffer {
+
+    @NonNull
+    private final Callback callback;
+    @NonNull
+    private final Executor backgroundExecutor;
+    @NonNull
+    private final Executor mainThreadExecutor;
+
+    @Nullable
+    private MainViewStateHistory.Snapshot currentSnapshot;
+
+    // Numéro du dernier Snapshot soumis : seul le résultat qui lui correspond sera appliqué
+    private int maxScheduledGeneration;
+
+    public HistoryDiffer(@NonNull Callback callback, @NonNull Executor backgroundExecutor, @NonNull Executor mainThreadExecutor) {
+        this.callback = callback;
+        this.backgroundExecutor = backgroundExecutor;
+        this.mainThreadExecutor = mainThreadExecutor;
+    }
+
+    @MainThread
+    @Nullable
+    public MainViewStateHistory.Snapshot getCurrentSnapshot() {
+        return currentSnapshot;
+    }
+
+    @MainThread
+    public int getItemCount() {
+        return currentSnapshot == null ? 0 : currentSnapshot.size();
+    }
+
+    @MainThread
+    public void submit(@Nullable final MainViewStateHistory.Snapshot newSnapshot) {
+        final int generation = ++maxScheduledGeneration;
+        final MainViewStateHistory.Snapshot oldSnapshot = currentSnapshot;
+
+        if (newSnapshot == oldSnapshot) {
+            return;
+        }
+
+        // Cas triviaux, comme AsyncListDiffer : pas besoin de passer par l'arrière plan
+        if (newSnapshot == null || oldSnapshot == null) {
+            currentSnapshot = newSnapshot;
+
+            if (oldSnapshot != null && oldSnapshot.size() > 0) {
+                callback.onRemoved(0, oldSnapshot.size());
+            }
+            if (newSnapshot != null && newSnapshot.size() > 0) {
+                callback.onInserted(0, newSnapshot.size());
+            }
+            return;
+        }
+
+        backgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Diff diff = computeDiff(oldSnapshot, newSnapshot);
+
+                mainThreadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == maxScheduledGeneration) {
+                            currentSnapshot = newSnapshot;
+                            dispatch(diff);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    @WorkerThread
+    @NonNull
+    static Diff computeDiff(@NonNull MainViewStateHistory.Snapshot oldSnapshot, @NonNull MainViewStateHistory.Snapshot newSnapshot) {
+        // Les entrées communes aux 2 Snapshots ont les identifiants [max(firstId) ; min(endId)[
+        long commonFirstId = Math.max(oldSnapshot.getFirstId(), newSnapshot.getFirstId());
+        long commonEndId = Math.min(oldSnapshot.getEndId(), newSnapshot.getEndId());
+
+        if (commonFirstId >= commonEndId) {
+            // Rien en commun (ou Snapshots d'historiques différents) : on remplace tout
+            return new Diff(oldSnapshot.size(), 0, newSnapshot.size());
+        }
+
+        return new Diff(
+            (int) (commonFirstId - oldSnapshot.getFirstId()),
+            (int) (oldSnapshot.getEndId() - commonEndId),
+            (int) (newSnapshot.getEndId() - commonEndId)
+        );
+    }
+
+    private void dispatch(@NonNull Diff diff) {
+        int commonCount = getItemCount() - diff.insertedAtEnd;
+
+        if (diff.removedAtStart > 0) {
+            callback.onRemoved(0, diff.removedAtStart);
+        }
+        if (diff.removedAtEnd > 0) {
+            callback.onRemoved(commonCount, diff.removedAtEnd);
+        }
+        if (diff.insertedAtEnd > 0) {
+            callback.onInserted(commonCount, diff.insertedAtEnd);
+        }
+    }
+
+    // Même signature que le ListUpdateCallback de RecyclerView (l'Adapter n'a qu'à appeler "notifyItemRange...()")
+    public interface Callback {
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+    }
+
+    static final class Diff {
+
+        final int removedAtStart;
+        final int removedAtEnd;
+        final int insertedAtEnd;
+
+        Diff(int removedAtStart, int removedAtEnd, int insertedAtEnd) {
+            this.removedAtStart = removedAtStart;
+            this.removedAtEnd = removedAtEnd;
+            this.insertedAtEnd = insertedAtEnd;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package fr.delcey.mediatorlivedataexample.history;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import fr.delcey.mediatorlivedataexample.MainViewState;
+
+/**
+ * Historique borné (les "maxSize" derniers MainViewStates) dans lequel on ne peut qu'ajouter à la fin. Chaque entrée a un identifiant stable
+ * (son numéro d'ordre depuis la création de l'historique) qui ne change jamais, même quand les plus anciennes entrées sont supprimées.<br/>
+ *
+ * Les entrées sont rangées par "chunks" de taille fixe, jamais modifiés une fois une case écrite. Un Snapshot n'est donc qu'une "fenêtre"
+ * (premier et dernier identifiant) sur ces chunks : en créer un ne copie aucune entrée (O(1) quelle que soit la taille de l'historique), et
+ * il reste valide et lisible depuis n'importe quel thread, même après de nouveaux ajouts.
+ */
+public class MainViewStateHistory {
+
+    private static final int CHUNK_SHIFT = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int maxSize;
+
+    // "chunks[i]" contient les entrées dont l'identifiant est dans [(baseChunk + i) * CHUNK_SIZE ; (baseChunk + i + 1) * CHUNK_SIZE[
+    @NonNull
+    private MainViewState[][] chunks;
+    private long baseChunk;
+
+    // Les entrées présentes ont les identifiants [firstId ; nextId[
+    private long firstId;
+    private long nextId;
+
+    public MainViewStateHistory(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive, got " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+
+        // Assez de chunks pour "maxSize" entrées, quel que soit l'alignement de la première entrée
+        chunks = new MainViewState[(maxSize + CHUNK_SIZE - 1) / CHUNK_SIZE + 1][];
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        return (int) (nextId - firstId);
+    }
+
+    @MainThread
+    public void append(@NonNull MainViewState viewState) {
+        int chunkIndex = (int) ((nextId >>> CHUNK_SHIFT) - baseChunk);
+
+        if (chunkIndex == chunks.length) {
+            chunkIndex = dropEvictedChunks();
+        }
+
+        MainViewState[] chunk = chunks[chunkIndex];
+
+        if (chunk == null) {
+            chunk = new MainViewState[CHUNK_SIZE];
+            chunks[chunkIndex] = chunk;
+        }
+
+        chunk[(int) (nextId & CHUNK_MASK)] = viewState;
+        nextId++;
+
+        if (nextId - firstId > maxSize) {
+            firstId++;
+        }
+    }
+
+    // O(1) : aucune entrée n'est copiée
+    @MainThread
+    @NonNull
+    public Snapshot snapshot() {
+        return new Snapshot(chunks, baseChunk, firstId, size());
+    }
+
+    // Les chunks qui ne contiennent plus que des entrées supprimées sont "oubliés". On travaille sur un NOUVEAU tableau : les Snapshots
+    // existants gardent l'ancien, et donc l'accès à leurs entrées.
+    private int dropEvictedChunks() {
+        long newBaseChunk = firstId >>> CHUNK_SHIFT;
+        int keptChunkCount = (int) (chunks.length - (newBaseChunk - baseChunk));
+
+        MainViewState[][] newChunks = new MainViewState[chunks.length][];
+        System.arraycopy(chunks, (int) (newBaseChunk - baseChunk), newChunks, 0, keptChunkCount);
+
+        chunks = newChunks;
+        baseChunk = newBaseChunk;
+
+        return keptChunkCount;
+    }
+
+    /**
+     * Vue immuable de l'historique à un instant donné. La position 0 est l'entrée la plus ancienne.
+     */
+    public static final class Snapshot {
+
+        @NonNull
+        private final MainViewState[][] chunks;
+        private final long baseChunk;
+        private final long firstId;
+        private final int size;
+
+        private Snapshot(@NonNull MainViewState[][] chunks, long baseChunk, long firstId, int size) {
+            this.chunks = chunks;
+            this.baseChunk = baseChunk;
+            this.firstId = firstId;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @NonNull
+        public MainViewState get(int position) {
+            long id = getId(position);
+
+            return chunks[(int) ((id >>> CHUNK_SHIFT) - baseChunk)][(int) (id & CHUNK_MASK)];
+        }
+
+        // Identifiant stable de l'entrée (pour "RecyclerView.Adapter.getItemId()" par exemple)
+        public long getId(int position) {
+            if (position < 0 || position >= size) {
+                throw new IndexOutOfBoundsException("position " + position + " is out of [0 ; " + size + "[");
+            }
+
+            return firstId + position;
+        }
+
+        public long getFirstId() {
+            return firstId;
+        }
+
+        // Identifiant de la prochaine entrée qui sera ajoutée (= dernier identifiant + 1)
+        public long getEndId() {
+            return firstId + size;
+        }
+    }
+}
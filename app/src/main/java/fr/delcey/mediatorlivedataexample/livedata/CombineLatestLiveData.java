@@ -0,0 +1,475 @@
+package fr.delcey.mediatorlivedataexample.livedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.Observer;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+import fr.delcey.mediatorlivedataexample.metrics.CombineMetrics;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+import fr.delcey.mediatorlivedataexample.utils.FrameTicker;
+
+/**
+ * Opérateur "combineLatest" : combine les dernières valeurs de 2 à 32 LiveData sources dans une seule LiveData.<br/>
+ *
+ * Il remplace les "addSource()" écrits à la main dans un MediatorLiveData, où chaque observer doit relire les autres sources avec
+ * "getValue()" (et où il est facile de se tromper de variable). Ici, les dernières valeurs sont gardées dans un tableau, un "bitmask"
+ * retient quelles sources ont déjà émis, et le Combiner n'est appelé que lorsque toutes les sources ont une valeur. Si une source ré-émet
+ * la même valeur, rien n'est recalculé.<br/>
+ *
+ * Les sources de type IntLiveData sont observées avec des IntObserver : leurs valeurs sont stockées dans un "int[]", sans Integer.<br/>
+ *
+ * Avec un FrameTicker, le recalcul est "coalescé" : au maximum un appel au Combiner par frame, peu importe le nombre de changements.<br/>
+ *
+ * Enfin, si le Combiner renvoie une valeur égale (au sens de "equals()") à la valeur actuelle, elle n'est pas ré-émise ("distinct until
+ * changed") : les Observers ne sont pas réveillés pour rien.<br/>
+ *
+ * Avec un "combineExecutor" (un seul thread, en arrière plan), le Combiner n'est plus appelé sur le thread principal : les dernières valeurs
+ * des sources y sont envoyées, et si de nouvelles valeurs arrivent avant que le calcul précédent n'ait commencé, seules les plus récentes
+ * sont calculées ("latest wins"). Seul le résultat final revient sur le thread principal (via le "deliveryExecutor"), où il est émis.<br/>
+ *
+ * Avec des CombineMetrics (et Metrics.ENABLED), la durée de chaque appel au Combiner et de chaque émission est mesurée.
+ */
+public class CombineLatestLiveData<R> extends MediatorLiveData<R> {
+
+    private static final int MAX_SOURCE_COUNT = Integer.SIZE;
+
+    @NonNull
+    private final Combiner<R> combiner;
+    @Nullable
+    private final FrameTicker frameTicker;
+
+    @NonNull
+    private final LiveData<?>[] sources;
+    @NonNull
+    private final SourceObserver[] sourceObservers;
+
+    // Dernières valeurs connues de chaque source : dans "intValues" pour les IntLiveData, dans "values" pour les autres
+    @NonNull
+    private final Object[] values;
+    @NonNull
+    private final int[] intValues;
+
+    // Le bit "i" est à 1 si la source "i" a déjà émis une valeur
+    private int presentMask;
+    private final int allPresentMask;
+
+    @NonNull
+    private final Values combinerValues;
+
+    private boolean isFrameScheduled;
+
+    private long sourceChangeCount;
+    private long unchangedSourceCount;
+    // "volatile" : incrémenté sur le thread du "combineExecutor" si on en a un
+    private volatile long combineCount;
+    private long suppressedEmissionCount;
+
+    // Mode "arrière plan" (null si le Combiner est appelé sur le thread principal)
+    @Nullable
+    private final Executor combineExecutor;
+    @NonNull
+    private final Executor deliveryExecutor;
+    @Nullable
+    private final BackgroundCombine backgroundCombine;
+
+    @Nullable
+    private CombineMetrics metrics;
+    // Moment du premier changement d'une source depuis le dernier calcul (uniquement avec un FrameTicker)
+    private long firstChangeNanos;
+
+    private final Runnable onFrame = new Runnable() {
+        @Override
+        public void run() {
+            isFrameScheduled = false;
+
+            if (Metrics.ENABLED && metrics != null) {
+                metrics.staleness.record(System.nanoTime() - firstChangeNanos);
+            }
+
+            combine();
+        }
+    };
+
+    public CombineLatestLiveData(@NonNull Combiner<R> combiner, @NonNull LiveData<?>... sources) {
+        this(null, combiner, sources);
+    }
+
+    public CombineLatestLiveData(@Nullable FrameTicker frameTicker, @NonNull Combiner<R> combiner, @NonNull LiveData<?>... sources) {
+        this(frameTicker, null, null, combiner, sources);
+    }
+
+    // "combineExecutor" doit exécuter ses tâches une par une (un seul thread). Si "deliveryExecutor" est null, les résultats sont émis via le
+    // Looper du thread principal. Attention, en mode "arrière plan", les valeurs des sources sont lues depuis un autre thread : elles doivent
+    // être immuables.
+    public CombineLatestLiveData(
+        @Nullable FrameTicker frameTicker,
+        @Nullable Executor combineExecutor,
+        @Nullable Executor deliveryExecutor,
+        @NonNull Combiner<R> combiner,
+        @NonNull LiveData<?>... sources
+    ) {
+        if (sources.length < 2 || sources.length > MAX_SOURCE_COUNT) {
+            throw new IllegalArgumentException("Between 2 and " + MAX_SOURCE_COUNT + " sources are supported, got " + sources.length);
+        }
+
+        this.combiner = combiner;
+        this.frameTicker = frameTicker;
+        this.sources = sources;
+
+        sourceObservers = new SourceObserver[sources.length];
+        values = new Object[sources.length];
+        intValues = new int[sources.length];
+        allPresentMask = sources.length == MAX_SOURCE_COUNT ? -1 : (1 << sources.length) - 1;
+        combinerValues = new Values(sources, values, intValues);
+
+        this.combineExecutor = combineExecutor;
+        //noinspection RestrictedApi
+        this.deliveryExecutor = deliveryExecutor != null ? deliveryExecutor : ArchTaskExecutor.getMainThreadExecutor();
+        backgroundCombine = combineExecutor != null ? new BackgroundCombine() : null;
+
+        for (int i = 0; i < sources.length; i++) {
+            sourceObservers[i] = new SourceObserver(this, i);
+
+            if (!(sources[i] instanceof IntLiveData)) {
+                addSourceUnchecked(sources[i], sourceObservers[i]);
+            }
+        }
+    }
+
+    // Les IntLiveData ne sont pas ajoutées avec "addSource()" (qui nous ferait recevoir des Integer) : on les observe nous même, uniquement
+    // pendant que cette LiveData est observée (comme le fait MediatorLiveData avec ses sources)
+    @Override
+    protected void onActive() {
+        super.onActive();
+
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] instanceof IntLiveData) {
+                ((IntLiveData) sources[i]).observeIntForever(sourceObservers[i]);
+            }
+        }
+    }
+
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] instanceof IntLiveData) {
+                ((IntLiveData) sources[i]).removeIntObserver(sourceObservers[i]);
+            }
+        }
+    }
+
+    @MainThread
+    public void setMetrics(@Nullable CombineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Nombre de fois où une des sources a émis une nouvelle valeur
+    public long getSourceChangeCount() {
+        return sourceChangeCount;
+    }
+
+    // Nombre de fois où une des sources a ré-émis la même valeur (aucun recalcul dans ce cas)
+    public long getUnchangedSourceCount() {
+        return unchangedSourceCount;
+    }
+
+    // Nombre de valeurs des sources jamais calculées car remplacées par des plus récentes avant le calcul (mode "arrière plan" uniquement)
+    public long getSupersededInputCount() {
+        if (backgroundCombine == null) {
+            return 0;
+        }
+
+        synchronized (backgroundCombine.lock) {
+            return backgroundCombine.supersededInputCount;
+        }
+    }
+
+    // Nombre d'appels au Combiner. Avec un FrameTicker, il est bien inférieur à "getSourceChangeCount()" lors des rafales.
+    public long getCombineCount() {
+        return combineCount;
+    }
+
+    // Nombre de valeurs calculées par le Combiner mais non émises car égales à la valeur actuelle
+    public long getSuppressedEmissionCount() {
+        return suppressedEmissionCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S> void addSourceUnchecked(@NonNull LiveData<S> source, @NonNull SourceObserver observer) {
+        addSource(source, (Observer<? super S>) observer);
+    }
+
+    @MainThread
+    private void onIntSourceChanged(int index, int value) {
+        int bit = 1 << index;
+
+        if ((presentMask & bit) != 0 && intValues[index] == value) {
+            unchangedSourceCount++;
+            return;
+        }
+
+        intValues[index] = value;
+        presentMask |= bit;
+
+        onSourceChanged();
+    }
+
+    @MainThread
+    private void onSourceChanged(int index, @Nullable Object value) {
+        int bit = 1 << index;
+
+        if ((presentMask & bit) != 0 && Objects.equals(values[index], value)) {
+            unchangedSourceCount++;
+            return;
+        }
+
+        values[index] = value;
+        presentMask |= bit;
+
+        onSourceChanged();
+    }
+
+    private void onSourceChanged() {
+        sourceChangeCount++;
+
+        if (frameTicker == null) {
+            combine();
+        } else if (!isFrameScheduled) {
+            // On marque la valeur comme "sale" : elle sera recalculée à la prochaine frame avec les dernières valeurs des sources. Tous
+            // les autres changements d'ici là seront "absorbés" par ce seul calcul.
+            isFrameScheduled = true;
+
+            if (Metrics.ENABLED && metrics != null) {
+                firstChangeNanos = System.nanoTime();
+            }
+
+            frameTicker.scheduleFrame(onFrame);
+        }
+    }
+
+    private void combine() {
+        // On ne peut rien calculer tant qu'une des sources n'a pas encore de valeur
+        if (presentMask != allPresentMask) {
+            return;
+        }
+
+        if (backgroundCombine != null) {
+            backgroundCombine.submit();
+            return;
+        }
+
+        R result = callCombiner(combinerValues);
+
+        // Le Combiner peut renvoyer null pour ne rien émettre
+        if (result != null) {
+            emit(result);
+        }
+    }
+
+    @Nullable
+    private R callCombiner(@NonNull Values values) {
+        combineCount++;
+
+        if (Metrics.ENABLED && metrics != null) {
+            long startNanos = System.nanoTime();
+            R result = combiner.combine(values);
+            metrics.combineDuration.record(System.nanoTime() - startNanos);
+            metrics.combineCount.increment();
+
+            return result;
+        }
+
+        return combiner.combine(values);
+    }
+
+    @MainThread
+    private void emit(@NonNull R result) {
+        if (result.equals(getValue())) {
+            suppressedEmissionCount++;
+            return;
+        }
+
+        if (Metrics.ENABLED && metrics != null) {
+            // "setValue()" notifie tous les Observers actifs de manière synchrone : on mesure donc le temps qu'ils prennent à se mettre à jour
+            long startNanos = System.nanoTime();
+            setValue(result);
+            metrics.dispatchDuration.record(System.nanoTime() - startNanos);
+            metrics.emissionCount.increment();
+        } else {
+            setValue(result);
+        }
+    }
+
+    // Le calcul en arrière plan : les valeurs des sources sont recopiées (sans allocation) dans des tableaux "en attente", que la tâche du
+    // "combineExecutor" recopie à son tour dans ses propres tableaux avant d'appeler le Combiner
+    private final class BackgroundCombine {
+
+        private final Object lock = new Object();
+
+        // Protégés par "lock"
+        @NonNull
+        private final Object[] pendingValues = new Object[sources.length];
+        @NonNull
+        private final int[] pendingIntValues = new int[sources.length];
+        private long pendingGeneration;
+        private boolean isCombineScheduled;
+        private long supersededInputCount;
+
+        // Uniquement utilisés sur le thread du "combineExecutor"
+        @NonNull
+        private final Object[] workingValues = new Object[sources.length];
+        @NonNull
+        private final int[] workingIntValues = new int[sources.length];
+        @NonNull
+        private final Values workingCombinerValues = new Values(sources, workingValues, workingIntValues);
+
+        // Numéro des valeurs du dernier résultat calculé (écrit par le thread du "combineExecutor", lu par le thread principal)
+        private volatile long computedGeneration;
+
+        // Uniquement utilisé sur le thread principal : numéro des valeurs du dernier résultat émis
+        private long deliveredGeneration;
+
+        private final Runnable combineRunnable = new Runnable() {
+            @Override
+            public void run() {
+                combineLatestPendingValues();
+            }
+        };
+
+        @MainThread
+        void submit() {
+            boolean shouldSchedule;
+
+            synchronized (lock) {
+                System.arraycopy(values, 0, pendingValues, 0, values.length);
+                System.arraycopy(intValues, 0, pendingIntValues, 0, intValues.length);
+                pendingGeneration++;
+
+                if (isCombineScheduled) {
+                    // Les valeurs en attente n'avaient pas encore été calculées : elles ne le seront jamais
+                    supersededInputCount++;
+                }
+
+                shouldSchedule = !isCombineScheduled;
+                isCombineScheduled = true;
+            }
+
+            if (shouldSchedule) {
+                //noinspection ConstantConditions : "backgroundCombine" n'existe que si "combineExecutor" n'est pas null
+                combineExecutor.execute(combineRunnable);
+            }
+        }
+
+        @WorkerThread
+        private void combineLatestPendingValues() {
+            final long generation;
+
+            synchronized (lock) {
+                System.arraycopy(pendingValues, 0, workingValues, 0, pendingValues.length);
+                System.arraycopy(pendingIntValues, 0, workingIntValues, 0, pendingIntValues.length);
+                generation = pendingGeneration;
+
+                // Baissé AVANT le calcul : des valeurs qui arriveraient pendant le calcul provoqueront un nouveau calcul
+                isCombineScheduled = false;
+            }
+
+            final R result = callCombiner(workingCombinerValues);
+
+            computedGeneration = generation;
+
+            if (result == null) {
+                return;
+            }
+
+            deliveryExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(result, generation);
+                }
+            });
+        }
+
+        @MainThread
+        private void deliver(@NonNull R result, long generation) {
+            // Un résultat ne doit jamais remplacer un résultat calculé avec des valeurs plus récentes. Et si un résultat plus récent est
+            // déjà calculé (il est forcément dans la file du thread principal), inutile d'émettre celui-ci : il serait aussitôt remplacé.
+            // On n'attend par contre jamais un résultat pas encore calculé : même si les sources changent sans arrêt, l'affichage suit.
+            if (generation <= deliveredGeneration || generation < computedGeneration) {
+                return;
+            }
+
+            deliveredGeneration = generation;
+
+            emit(result);
+        }
+    }
+
+    public interface Combiner<R> {
+        @Nullable
+        R combine(@NonNull Values values);
+    }
+
+    // Accès en lecture seule aux dernières valeurs des sources, dans l'ordre où elles ont été données au constructeur
+    public static final class Values {
+
+        @NonNull
+        private final LiveData<?>[] sources;
+        @NonNull
+        private final Object[] values;
+        @NonNull
+        private final int[] intValues;
+
+        private Values(@NonNull LiveData<?>[] sources, @NonNull Object[] values, @NonNull int[] intValues) {
+            this.sources = sources;
+            this.values = values;
+            this.intValues = intValues;
+        }
+
+        // Pour les sources de type IntLiveData
+        public int getInt(int index) {
+            return intValues[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(int index) {
+            if (sources[index] instanceof IntLiveData) {
+                return (T) Integer.valueOf(intValues[index]);
+            }
+
+            return (T) values[index];
+        }
+    }
+
+    // Un observer par source, qui connait l'index de sa source
+    private static final class SourceObserver implements Observer<Object>, IntObserver {
+
+        @NonNull
+        private final CombineLatestLiveData<?> combineLatestLiveData;
+        private final int index;
+
+        SourceObserver(@NonNull CombineLatestLiveData<?> combineLatestLiveData, int index) {
+            this.combineLatestLiveData = combineLatestLiveData;
+            this.index = index;
+        }
+
+        @Override
+        public void onChanged(int value) {
+            combineLatestLiveData.onIntSourceChanged(index, value);
+        }
+
+        @Override
+        public void onChanged(Object value) {
+            combineLatestLiveData.onSourceChanged(index, value);
+        }
+    }
+}
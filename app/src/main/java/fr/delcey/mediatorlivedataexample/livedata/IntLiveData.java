@@ -0,0 +1,404 @@
+package fr.delcey.mediatorlivedataexample.livedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LiveData;
+
+import fr.delcey.mediatorlivedataexample.metrics.EmissionMetrics;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+
+/**
+ * Une LiveData spécialisée pour les "int" : la valeur est stockée dans un "int" (plus un flag "a une valeur") et les IntObserver la
+ * reçoivent sans jamais passer par un Integer. Au delà du cache des Integer (de -128 à 127), chaque "setValue()" d'une
+ * MutableLiveData&lt;Integer&gt; alloue un nouvel objet, ce n'est pas le cas ici.<br/>
+ *
+ * Comme une IntLiveData est aussi une LiveData&lt;Integer&gt;, elle reste compatible avec tout l'écosystème (MediatorLiveData, Observer
+ * "classiques", etc...). Dans ce cas seulement, la valeur est convertie en Integer : si personne n'observe la LiveData "classiquement",
+ * aucun Integer n'est créé.<br/>
+ *
+ * Les IntObserver ont la même sémantique que les Observer : ils ne sont notifiés que lorsque leur LifecycleOwner est au moins "STARTED",
+ * reçoivent la dernière valeur lorsqu'ils redeviennent actifs, et sont retirés automatiquement lorsque leur LifecycleOwner est détruit.<br/>
+ *
+ * Avec des EmissionMetrics (et Metrics.ENABLED), les "setValue()" / "postValue()" sont comptés et la latence entre l'émission d'une valeur
+ * et sa réception par chaque IntObserver est mesurée.
+ */
+public abstract class IntLiveData extends LiveData<Integer> {
+
+    private static final int START_VERSION = -1;
+
+    private static final IntObserverWrapper[] NO_OBSERVER = new IntObserverWrapper[0];
+
+    private volatile int value;
+    private volatile boolean hasValue;
+    private int version = START_VERSION;
+
+    // Vrai si la valeur "int" a changé alors que personne n'observait la LiveData&lt;Integer&gt; : elle sera convertie en Integer dès
+    // qu'un Observer "classique" deviendra actif
+    private boolean isBoxedValueStale;
+
+    // Tableau "copy-on-write" : les ajouts / suppressions d'observers sont rares, les notifications très fréquentes et ne doivent rien allouer
+    @NonNull
+    private IntObserverWrapper[] intObservers = NO_OBSERVER;
+
+    private boolean isDispatching;
+    private boolean isDispatchInvalidated;
+
+    private final Object pendingValueLock = new Object();
+    private boolean isPostPending;
+    private int pendingValue;
+
+    @Nullable
+    private EmissionMetrics emissionMetrics;
+    // Moment de l'émission de la valeur actuelle (le "setValue()", ou le premier "postValue()" de la valeur postée)
+    private long emissionNanos;
+    private long pendingPostNanos;
+
+    private final Runnable postValueRunnable = new Runnable() {
+        @Override
+        public void run() {
+            int newValue;
+            long postNanos;
+
+            synchronized (pendingValueLock) {
+                newValue = pendingValue;
+                postNanos = pendingPostNanos;
+                isPostPending = false;
+            }
+
+            if (Metrics.ENABLED) {
+                emissionNanos = postNanos;
+            }
+
+            updateValue(newValue);
+        }
+    };
+
+    public IntLiveData() {
+        super();
+    }
+
+    public IntLiveData(int value) {
+        super();
+
+        this.value = value;
+        hasValue = true;
+        version = START_VERSION + 1;
+        isBoxedValueStale = true;
+    }
+
+    public boolean hasValue() {
+        return hasValue;
+    }
+
+    // Renvoie 0 si la LiveData n'a pas encore de valeur (à vérifier avec "hasValue()")
+    public int getIntValue() {
+        return value;
+    }
+
+    // A éviter sur le "hot path" puisque la valeur est convertie en Integer, utiliser "getIntValue()" à la place
+    @Nullable
+    @Override
+    public Integer getValue() {
+        if (!hasValue) {
+            return null;
+        }
+
+        return value;
+    }
+
+    // A appeler sur le thread principal, avant la première émission
+    public void setEmissionMetrics(@Nullable EmissionMetrics emissionMetrics) {
+        this.emissionMetrics = emissionMetrics;
+    }
+
+    @MainThread
+    protected void setValue(int value) {
+        assertMainThread("setValue");
+
+        if (Metrics.ENABLED && emissionMetrics != null) {
+            emissionMetrics.setValueCount.increment();
+            emissionNanos = System.nanoTime();
+        }
+
+        updateValue(value);
+    }
+
+    private void updateValue(int value) {
+        this.value = value;
+        hasValue = true;
+        version++;
+
+        if (hasObservers()) {
+            isBoxedValueStale = false;
+            super.setValue(value);
+        } else {
+            isBoxedValueStale = true;
+        }
+
+        dispatchIntValue(null);
+    }
+
+    // Comme pour une LiveData, si plusieurs "postValue()" sont faits avant que le thread principal ne les traite, seule la dernière valeur
+    // sera émise
+    protected void postValue(int value) {
+        boolean shouldPost;
+
+        if (Metrics.ENABLED && emissionMetrics != null) {
+            emissionMetrics.postValueCount.increment();
+        }
+
+        synchronized (pendingValueLock) {
+            shouldPost = !isPostPending;
+            isPostPending = true;
+            pendingValue = value;
+
+            if (Metrics.ENABLED && shouldPost) {
+                pendingPostNanos = System.nanoTime();
+            }
+        }
+
+        if (shouldPost) {
+            //noinspection RestrictedApi
+            ArchTaskExecutor.getInstance().postToMainThread(postValueRunnable);
+        }
+    }
+
+    // Les versions "Integer" héritées de LiveData sont redirigées vers les versions "int"
+    @Override
+    protected void setValue(@NonNull Integer value) {
+        setValue(value.intValue());
+    }
+
+    @Override
+    protected void postValue(@NonNull Integer value) {
+        postValue(value.intValue());
+    }
+
+    @Override
+    protected void onActive() {
+        // Un Observer "classique" devient actif : c'est le seul moment où l'on a besoin de convertir la valeur en Integer
+        if (isBoxedValueStale) {
+            isBoxedValueStale = false;
+            super.setValue(value);
+        }
+    }
+
+    @MainThread
+    public void observeInt(@NonNull LifecycleOwner owner, @NonNull IntObserver observer) {
+        assertMainThread("observeInt");
+
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+
+        LifecycleBoundIntObserver wrapper = new LifecycleBoundIntObserver(owner, observer);
+
+        if (!addIntObserver(wrapper)) {
+            return;
+        }
+
+        owner.getLifecycle().addObserver(wrapper);
+    }
+
+    @MainThread
+    public void observeIntForever(@NonNull IntObserver observer) {
+        assertMainThread("observeIntForever");
+
+        AlwaysActiveIntObserver wrapper = new AlwaysActiveIntObserver(observer);
+
+        if (!addIntObserver(wrapper)) {
+            return;
+        }
+
+        wrapper.activeStateChanged(true);
+    }
+
+    @MainThread
+    public void removeIntObserver(@NonNull IntObserver observer) {
+        assertMainThread("removeIntObserver");
+
+        int index = indexOf(observer);
+
+        if (index < 0) {
+            return;
+        }
+
+        IntObserverWrapper removed = intObservers[index];
+        IntObserverWrapper[] newObservers = new IntObserverWrapper[intObservers.length - 1];
+        System.arraycopy(intObservers, 0, newObservers, 0, index);
+        System.arraycopy(intObservers, index + 1, newObservers, index, intObservers.length - index - 1);
+        intObservers = newObservers;
+
+        removed.detachObserver();
+        removed.activeStateChanged(false);
+    }
+
+    public boolean hasIntObservers() {
+        return intObservers.length > 0;
+    }
+
+    private boolean addIntObserver(@NonNull IntObserverWrapper wrapper) {
+        if (indexOf(wrapper.observer) >= 0) {
+            return false;
+        }
+
+        IntObserverWrapper[] newObservers = new IntObserverWrapper[intObservers.length + 1];
+        System.arraycopy(intObservers, 0, newObservers, 0, intObservers.length);
+        newObservers[intObservers.length] = wrapper;
+        intObservers = newObservers;
+
+        return true;
+    }
+
+    private int indexOf(@NonNull IntObserver observer) {
+        for (int i = 0; i < intObservers.length; i++) {
+            if (intObservers[i].observer == observer) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    // Même algorithme que LiveData : si une nouvelle valeur arrive pendant qu'on notifie les observers, on recommence avec la nouvelle valeur
+    private void dispatchIntValue(@Nullable IntObserverWrapper initiator) {
+        if (isDispatching) {
+            isDispatchInvalidated = true;
+            return;
+        }
+
+        isDispatching = true;
+
+        do {
+            isDispatchInvalidated = false;
+
+            if (initiator != null) {
+                considerNotify(initiator, false);
+                initiator = null;
+            } else {
+                IntObserverWrapper[] observers = intObservers;
+
+                for (IntObserverWrapper observer : observers) {
+                    considerNotify(observer, true);
+
+                    if (isDispatchInvalidated) {
+                        break;
+                    }
+                }
+            }
+        } while (isDispatchInvalidated);
+
+        isDispatching = false;
+    }
+
+    // "isNewValue" est faux quand un observer (re)devenu actif reçoit une ancienne valeur : pas de latence à mesurer dans ce cas
+    private void considerNotify(@NonNull IntObserverWrapper wrapper, boolean isNewValue) {
+        if (!wrapper.active || !hasValue) {
+            return;
+        }
+
+        if (!wrapper.shouldBeActive()) {
+            wrapper.activeStateChanged(false);
+            return;
+        }
+
+        if (wrapper.lastVersion >= version) {
+            return;
+        }
+
+        wrapper.lastVersion = version;
+
+        if (Metrics.ENABLED && isNewValue && emissionMetrics != null) {
+            emissionMetrics.deliveryLatency.record(System.nanoTime() - emissionNanos);
+        }
+
+        wrapper.observer.onChanged(value);
+    }
+
+    // Pas d'annotation "SuppressLint" (qui vient du SDK Android) ici : cette classe est aussi compilée par le module "benchmark", sur la JVM
+    private static void assertMainThread(@NonNull String methodName) {
+        //noinspection RestrictedApi
+        if (!ArchTaskExecutor.getInstance().isMainThread()) {
+            throw new IllegalStateException("Cannot invoke " + methodName + " on a background thread");
+        }
+    }
+
+    private abstract class IntObserverWrapper {
+
+        @NonNull
+        final IntObserver observer;
+
+        boolean active;
+        int lastVersion = START_VERSION;
+
+        IntObserverWrapper(@NonNull IntObserver observer) {
+            this.observer = observer;
+        }
+
+        abstract boolean shouldBeActive();
+
+        void detachObserver() {
+        }
+
+        void activeStateChanged(boolean newActive) {
+            if (newActive == active) {
+                return;
+            }
+
+            active = newActive;
+
+            if (active) {
+                dispatchIntValue(this);
+            }
+        }
+    }
+
+    private class LifecycleBoundIntObserver extends IntObserverWrapper implements LifecycleEventObserver {
+
+        @NonNull
+        private final LifecycleOwner owner;
+
+        LifecycleBoundIntObserver(@NonNull LifecycleOwner owner, @NonNull IntObserver observer) {
+            super(observer);
+
+            this.owner = owner;
+        }
+
+        @Override
+        boolean shouldBeActive() {
+            return owner.getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+        }
+
+        @Override
+        public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+            if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+                removeIntObserver(observer);
+                return;
+            }
+
+            activeStateChanged(shouldBeActive());
+        }
+
+        @Override
+        void detachObserver() {
+            owner.getLifecycle().removeObserver(this);
+        }
+    }
+
+    private class AlwaysActiveIntObserver extends IntObserverWrapper {
+
+        AlwaysActiveIntObserver(@NonNull IntObserver observer) {
+            super(observer);
+        }
+
+        @Override
+        boolean shouldBeActive() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package fr.delcey.mediatorlivedataexample.livedata;
+
+/**
+ * Equivalent de androidx.lifecycle.Observer pour une IntLiveData : la valeur est reçue en "int", sans passer par un Integer.
+ */
+public interface IntObserver {
+
+    void onChanged(int value);
+}
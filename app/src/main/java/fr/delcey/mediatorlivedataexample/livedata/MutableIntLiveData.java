@@ -0,0 +1,25 @@
+package fr.delcey.mediatorlivedataexample.livedata;
+
+/**
+ * Une IntLiveData qui expose publiquement "setValue()" et "postValue()", comme MutableLiveData.
+ */
+public class MutableIntLiveData extends IntLiveData {
+
+    public MutableIntLiveData() {
+        super();
+    }
+
+    public MutableIntLiveData(int value) {
+        super(value);
+    }
+
+    @Override
+    public void setValue(int value) {
+        super.setValue(value);
+    }
+
+    @Override
+    public void postValue(int value) {
+        super.postValue(value);
+    }
+}
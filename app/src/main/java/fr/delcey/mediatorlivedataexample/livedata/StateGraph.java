@@ -0,0 +1,412 @@
+package fr.delcey.mediatorlivedataexample.livedata;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Graphe de valeurs dérivées "sans glitch" : la généralisation d'un MediatorLiveData à plusieurs niveaux (nombre -> produit -> parité ->
+ * phrase, par exemple).<br/>
+ *
+ * Avec des MediatorLiveData en chaîne, une dépendance "en diamant" (D dépend de B et de C, qui dépendent tous les 2 de A) provoque 2 calculs
+ * de D pour un seul changement de A, dont un avec une valeur de B à jour et une valeur de C périmée : un état incohérent (un "glitch") est
+ * émis. Ici, un changement de source déclenche une seule passe de propagation, dans l'ordre topologique : chaque noeud concerné est
+ * recalculé au plus une fois, après toutes ses dépendances. Si un noeud recalculé obtient une valeur égale (au sens de "equals()") à la
+ * précédente, ses dépendants ne sont pas recalculés du tout ("early cutoff").<br/>
+ *
+ * L'ordre topologique est gratuit : un noeud ne peut dépendre que de noeuds déjà créés, l'ordre de création en est donc un (et aucun cycle
+ * n'est possible). Les noeuds "sales" sont marqués dans un BitSet, parcouru une seule fois dans l'ordre croissant.<br/>
+ *
+ * Aux bords, le graphe se branche sur des LiveData : les sources peuvent être des LiveData ("source(LiveData)"), et chaque noeud peut être
+ * observé comme une LiveData ("Node.asLiveData()"). Comme avec un MediatorLiveData, les LiveData sources ne sont observées que tant qu'au
+ * moins une LiveData de sortie est active. Les LiveData de sortie ne sont mises à jour qu'à la fin de la passe : un Observer qui relit
+ * d'autres noeuds avec "Node.getValue()" ne voit jamais le graphe "à moitié" calculé.<br/>
+ *
+ * Tout se passe sur le thread principal, comme pour les LiveData.
+ */
+public class StateGraph {
+
+    @NonNull
+    private final List<Node<?>> nodes = new ArrayList<>();
+
+    // Noeuds à recalculer lors de la prochaine passe, et noeuds dont la valeur a changé (à émettre à la fin de la passe)
+    @NonNull
+    private final BitSet dirtyNodes = new BitSet();
+    @NonNull
+    private final BitSet changedNodes = new BitSet();
+
+    // Les sources branchées sur des LiveData, observées uniquement quand le graphe est actif
+    @NonNull
+    private final List<Node<?>> liveDataSources = new ArrayList<>();
+    private int activeOutputCount;
+
+    private int batchDepth;
+    private boolean isPropagating;
+
+    // Le noeud en cours de calcul : ses Inputs ne donnent accès qu'à ses dépendances
+    @Nullable
+    private Node<?> computingNode;
+    @NonNull
+    private final Inputs inputs = new Inputs();
+
+    private long propagationCount;
+    private long computeCount;
+    private long cutoffCount;
+
+    // Une source "manuelle" : sa valeur est donnée par "Node.setValue()"
+    @MainThread
+    @NonNull
+    public <T> Node<T> source() {
+        Node<T> node = new Node<>(this, nodes.size(), null, new Node<?>[0]);
+        nodes.add(node);
+
+        return node;
+    }
+
+    @MainThread
+    @NonNull
+    public <T> Node<T> source(@NonNull T initialValue) {
+        Node<T> node = source();
+        node.setValue(initialValue);
+
+        return node;
+    }
+
+    // Une source qui reprend les valeurs d'une LiveData (observée uniquement tant que le graphe est actif)
+    @MainThread
+    @NonNull
+    public <T> Node<T> source(@NonNull final LiveData<T> liveData) {
+        final Node<T> node = source();
+
+        node.input = liveData;
+        node.inputObserver = new Observer<T>() {
+            @Override
+            public void onChanged(T value) {
+                node.setValue(value);
+            }
+        };
+
+        liveDataSources.add(node);
+
+        if (activeOutputCount > 0) {
+            liveData.observeForever(node.inputObserver);
+        }
+
+        return node;
+    }
+
+    // Un noeud calculé à partir de ses dépendances (qui doivent appartenir à ce graphe). Il n'a de valeur que lorsque toutes ses dépendances
+    // en ont une.
+    @MainThread
+    @NonNull
+    public <T> Node<T> derive(@NonNull Derivation<T> derivation, @NonNull Node<?>... dependencies) {
+        if (dependencies.length == 0) {
+            throw new IllegalArgumentException("A derived node needs at least one dependency");
+        }
+
+        for (Node<?> dependency : dependencies) {
+            if (dependency.graph != this) {
+                throw new IllegalArgumentException("All the dependencies must belong to this graph");
+            }
+        }
+
+        Node<T> node = new Node<>(this, nodes.size(), derivation, dependencies.clone());
+        nodes.add(node);
+
+        for (Node<?> dependency : dependencies) {
+            dependency.dependents.add(node);
+        }
+
+        // Calcul immédiat si les dépendances ont déjà des valeurs
+        markDirty(node);
+
+        return node;
+    }
+
+    // Toutes les modifications faites dans le Runnable sont propagées en une seule passe, à la fin
+    @MainThread
+    public void batch(@NonNull Runnable changes) {
+        batchDepth++;
+
+        try {
+            changes.run();
+        } finally {
+            batchDepth--;
+        }
+
+        propagate();
+    }
+
+    public long getPropagationCount() {
+        return propagationCount;
+    }
+
+    // Nombre d'appels aux Derivations
+    public long getComputeCount() {
+        return computeCount;
+    }
+
+    // Nombre de noeuds recalculés dont la valeur n'a pas changé : leurs dépendants n'ont pas été recalculés
+    public long getCutoffCount() {
+        return cutoffCount;
+    }
+
+    private void markDirty(@NonNull Node<?> node) {
+        dirtyNodes.set(node.index);
+
+        propagate();
+    }
+
+    private void propagate() {
+        // Pendant une passe (un Observer qui modifie une source par exemple) ou un "batch()", la propagation est faite plus tard
+        if (isPropagating || batchDepth > 0) {
+            return;
+        }
+
+        isPropagating = true;
+
+        try {
+            while (!dirtyNodes.isEmpty()) {
+                propagationCount++;
+
+                // Les dépendants ont toujours un index plus grand : ils sont marqués "devant" le curseur, et seront atteints dans cette passe
+                for (int i = dirtyNodes.nextSetBit(0); i >= 0; i = dirtyNodes.nextSetBit(i + 1)) {
+                    dirtyNodes.clear(i);
+
+                    Node<?> node = nodes.get(i);
+
+                    if (node.update()) {
+                        changedNodes.set(i);
+
+                        for (int j = 0; j < node.dependents.size(); j++) {
+                            dirtyNodes.set(node.dependents.get(j).index);
+                        }
+                    }
+                }
+
+                // Tout le graphe est à jour : on peut prévenir les Observers
+                for (int i = changedNodes.nextSetBit(0); i >= 0; i = changedNodes.nextSetBit(i + 1)) {
+                    changedNodes.clear(i);
+
+                    nodes.get(i).emit();
+                }
+            }
+        } finally {
+            isPropagating = false;
+        }
+    }
+
+    private void onOutputActive() {
+        if (activeOutputCount++ > 0) {
+            return;
+        }
+
+        // Chaque LiveData donne sa valeur actuelle dès le "observeForever()" : une seule passe pour toutes
+        batch(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < liveDataSources.size(); i++) {
+                    Node<?> node = liveDataSources.get(i);
+
+                    //noinspection unchecked,ConstantConditions
+                    ((LiveData<Object>) node.input).observeForever((Observer<Object>) node.inputObserver);
+                }
+            }
+        });
+    }
+
+    private void onOutputInactive() {
+        if (--activeOutputCount > 0) {
+            return;
+        }
+
+        for (int i = 0; i < liveDataSources.size(); i++) {
+            Node<?> node = liveDataSources.get(i);
+
+            //noinspection unchecked,ConstantConditions
+            ((LiveData<Object>) node.input).removeObserver((Observer<Object>) node.inputObserver);
+        }
+    }
+
+    public interface Derivation<T> {
+        // Les valeurs des dépendances sont lues avec "inputs.get(dependency)"
+        T compute(@NonNull Inputs inputs);
+    }
+
+    public final class Inputs {
+
+        private Inputs() {
+        }
+
+        public <T> T get(@NonNull Node<T> dependency) {
+            if (computingNode == null || dependency.readableBy != computingNode) {
+                throw new IllegalArgumentException("The node being computed doesn't depend on this node");
+            }
+
+            return dependency.value;
+        }
+    }
+
+    public static final class Node<T> {
+
+        @NonNull
+        private final StateGraph graph;
+        private final int index;
+
+        // Null pour une source
+        @Nullable
+        private final Derivation<T> derivation;
+        @NonNull
+        private final Node<?>[] dependencies;
+        @NonNull
+        private final List<Node<?>> dependents = new ArrayList<>();
+
+        private T value;
+        private boolean hasValue;
+
+        // Sources uniquement : la valeur donnée par "setValue()", prise en compte lors de la prochaine passe
+        private T pendingValue;
+        private boolean hasPendingValue;
+
+        // Sources branchées sur une LiveData uniquement
+        @Nullable
+        private LiveData<T> input;
+        @Nullable
+        private Observer<T> inputObserver;
+
+        @Nullable
+        private OutputLiveData<T> output;
+
+        // Le dernier noeud calculé qui dépend de celui-ci : seul lui peut lire sa valeur (s'il est en cours de calcul)
+        @Nullable
+        private Node<?> readableBy;
+
+        private Node(@NonNull StateGraph graph, int index, @Nullable Derivation<T> derivation, @NonNull Node<?>[] dependencies) {
+            this.graph = graph;
+            this.index = index;
+            this.derivation = derivation;
+            this.dependencies = dependencies;
+        }
+
+        // Null tant que le noeud n'a pas de valeur
+        public T getValue() {
+            return value;
+        }
+
+        public boolean hasValue() {
+            return hasValue;
+        }
+
+        // Sources uniquement
+        @MainThread
+        public void setValue(T value) {
+            if (derivation != null) {
+                throw new IllegalStateException("The value of a derived node can't be set");
+            }
+
+            pendingValue = value;
+            hasPendingValue = true;
+
+            graph.markDirty(this);
+        }
+
+        // La même LiveData à chaque appel. Elle n'a pas de valeur tant que le noeud n'en a pas.
+        @MainThread
+        @NonNull
+        public LiveData<T> asLiveData() {
+            if (output == null) {
+                output = new OutputLiveData<>(graph);
+
+                if (hasValue) {
+                    output.emit(value);
+                }
+            }
+
+            return output;
+        }
+
+        // Renvoie vrai si la valeur a changé
+        private boolean update() {
+            T newValue;
+
+            if (derivation == null) {
+                if (!hasPendingValue) {
+                    return false;
+                }
+
+                newValue = pendingValue;
+                pendingValue = null;
+                hasPendingValue = false;
+            } else {
+                for (Node<?> dependency : dependencies) {
+                    if (!dependency.hasValue) {
+                        return false;
+                    }
+
+                    // Vérification en O(1) dans "Inputs.get()", quel que soit le nombre de dépendances
+                    dependency.readableBy = this;
+                }
+
+                graph.computingNode = this;
+                graph.computeCount++;
+
+                try {
+                    newValue = derivation.compute(graph.inputs);
+                } finally {
+                    graph.computingNode = null;
+                }
+            }
+
+            if (hasValue && Objects.equals(value, newValue)) {
+                if (derivation != null) {
+                    graph.cutoffCount++;
+                }
+
+                return false;
+            }
+
+            value = newValue;
+            hasValue = true;
+
+            return true;
+        }
+
+        private void emit() {
+            if (output != null) {
+                output.emit(value);
+            }
+        }
+    }
+
+    // LiveData de sortie : c'est son activation (au moins un Observer actif) qui branche le graphe sur ses LiveData sources
+    private static final class OutputLiveData<T> extends LiveData<T> {
+
+        @NonNull
+        private final StateGraph graph;
+
+        private OutputLiveData(@NonNull StateGraph graph) {
+            this.graph = graph;
+        }
+
+        private void emit(T value) {
+            setValue(value);
+        }
+
+        @Override
+        protected void onActive() {
+            graph.onOutputActive();
+        }
+
+        @Override
+        protected void onInactive() {
+            graph.onOutputInactive();
+        }
+    }
+}
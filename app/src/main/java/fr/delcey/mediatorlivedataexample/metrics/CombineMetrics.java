@@ -0,0 +1,33 @@
+package fr.delcey.mediatorlivedataexample.metrics;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Les mesures d'un CombineLatestLiveData (le MediatorLiveData du MainViewModel) :
+ * <ul>
+ *     <li>combineCount / combineDuration : nombre d'appels au Combiner et durée de chacun</li>
+ *     <li>emissionCount / dispatchDuration : nombre de valeurs émises et durée du "setValue()" (qui notifie tous les Observers)</li>
+ *     <li>staleness : temps entre le premier changement d'une source et le recalcul (non nul uniquement avec un FrameTicker)</li>
+ * </ul>
+ */
+public class CombineMetrics {
+
+    @NonNull
+    public final Counter combineCount;
+    @NonNull
+    public final LatencyHistogram combineDuration;
+    @NonNull
+    public final Counter emissionCount;
+    @NonNull
+    public final LatencyHistogram dispatchDuration;
+    @NonNull
+    public final LatencyHistogram staleness;
+
+    CombineMetrics(@NonNull String name) {
+        combineCount = Metrics.counter(name + ".combine");
+        combineDuration = Metrics.histogram(name + ".combineDuration");
+        emissionCount = Metrics.counter(name + ".emission");
+        dispatchDuration = Metrics.histogram(name + ".dispatchDuration");
+        staleness = Metrics.histogram(name + ".staleness");
+    }
+}
@@ -0,0 +1,37 @@
+package fr.delcey.mediatorlivedataexample.metrics;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Un simple compteur nommé, incrémentable depuis n'importe quel thread sans verrou
+public class Counter {
+
+    @NonNull
+    private final String name;
+
+    private final AtomicLong count = new AtomicLong();
+
+    Counter(@NonNull String name) {
+        this.name = name;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @AnyThread
+    public void increment() {
+        count.incrementAndGet();
+    }
+
+    public long get() {
+        return count.get();
+    }
+
+    void reset() {
+        count.set(0);
+    }
+}
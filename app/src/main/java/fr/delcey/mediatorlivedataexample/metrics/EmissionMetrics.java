@@ -0,0 +1,24 @@
+package fr.delcey.mediatorlivedataexample.metrics;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Les mesures d'une LiveData "source" (celle d'un repository par exemple) : nombre de "setValue()" et de "postValue()", et latence entre
+ * l'émission d'une valeur (l'appel à "setValue()" ou au premier "postValue()" en attente) et sa réception par chaque Observer. Pour une
+ * valeur "postée", cette latence inclut l'attente dans la file du thread principal : c'est le "retard" de l'UI.
+ */
+public class EmissionMetrics {
+
+    @NonNull
+    public final Counter setValueCount;
+    @NonNull
+    public final Counter postValueCount;
+    @NonNull
+    public final LatencyHistogram deliveryLatency;
+
+    EmissionMetrics(@NonNull String name) {
+        setValueCount = Metrics.counter(name + ".setValue");
+        postValueCount = Metrics.counter(name + ".postValue");
+        deliveryLatency = Metrics.histogram(name + ".deliveryLatency");
+    }
+}
@@ -0,0 +1,129 @@
+package fr.delcey.mediatorlivedataexample.metrics;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme de durées (en nanosecondes) sur le modèle d'HdrHistogram : les "buckets" sont linéaires jusqu'à 64 ns, puis chaque puissance
+ * de 2 est découpée en 32 buckets. La précision relative est donc d'environ 3 %, de la nanoseconde à plusieurs années, avec un nombre fixe
+ * de buckets (aucune allocation à l'enregistrement).<br/>
+ *
+ * L'enregistrement est "lock-free" (un simple "incrementAndGet()" sur le bucket) : il peut être fait depuis n'importe quel thread, sans
+ * jamais bloquer le thread principal.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+
+    // Le plus grand "long" positif a son bit de poids fort en position 62
+    private static final int BUCKET_COUNT = getBucketIndex(Long.MAX_VALUE) + 1;
+
+    @NonNull
+    private final String name;
+
+    @NonNull
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    LatencyHistogram(@NonNull String name) {
+        this.name = name;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @AnyThread
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        counts.incrementAndGet(getBucketIndex(nanos));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long currentMax;
+        do {
+            currentMax = maxNanos.get();
+        } while (nanos > currentMax && !maxNanos.compareAndSet(currentMax, nanos));
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long count = totalCount.get();
+
+        return count == 0 ? 0 : totalNanos.get() / count;
+    }
+
+    // Renvoie la plus grande valeur du bucket qui contient le percentile demandé (estimation "pessimiste", jamais en dessous de la réalité
+    // de plus de 3 %)
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long targetCount = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long cumulativeCount = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulativeCount += counts.get(i);
+
+            if (cumulativeCount >= targetCount) {
+                return Math.min(getBucketHighestValue(i), maxNanos.get());
+            }
+        }
+
+        return maxNanos.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+
+        totalCount.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+
+        // Position du bit de poids fort, puis les SUB_BUCKET_BITS bits suivants donnent le "sous-bucket"
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long getBucketHighestValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long top = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+
+        return ((top + 1) << shift) - 1;
+    }
+}
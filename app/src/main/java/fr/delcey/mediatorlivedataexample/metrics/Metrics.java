@@ -0,0 +1,127 @@
+package fr.delcey.mediatorlivedataexample.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.delcey.mediatorlivedataexample.BuildConfig;
+
+/**
+ * Point d'entrée des mesures de l'application : compteurs et histogrammes de durées, nommés, et exportables en texte.<br/>
+ *
+ * Tout le code de mesure est écrit sous la forme "if (Metrics.ENABLED) { ... }". ENABLED étant une constante de compilation (issue de
+ * BuildConfig.METRICS_ENABLED, à "false" en release), le compilateur supprime purement et simplement ces blocs : aucun surcoût en release.
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = BuildConfig.METRICS_ENABLED;
+
+    private static final ConcurrentHashMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    // Les objets de mesure sont à récupérer une fois (dans un constructeur par exemple), pas à chaque enregistrement
+    @NonNull
+    public static Counter counter(@NonNull String name) {
+        Counter counter = COUNTERS.get(name);
+
+        if (counter == null) {
+            Counter newCounter = new Counter(name);
+            counter = COUNTERS.putIfAbsent(name, newCounter);
+
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+
+        return counter;
+    }
+
+    @NonNull
+    public static LatencyHistogram histogram(@NonNull String name) {
+        LatencyHistogram histogram = HISTOGRAMS.get(name);
+
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram(name);
+            histogram = HISTOGRAMS.putIfAbsent(name, newHistogram);
+
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+
+        return histogram;
+    }
+
+    @NonNull
+    public static EmissionMetrics emission(@NonNull String name) {
+        return new EmissionMetrics(name);
+    }
+
+    @NonNull
+    public static CombineMetrics combine(@NonNull String name) {
+        return new CombineMetrics(name);
+    }
+
+    // Remet toutes les mesures à zéro (les objets de mesure restent valides)
+    public static void reset() {
+        for (Counter counter : COUNTERS.values()) {
+            counter.reset();
+        }
+
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+    }
+
+    // Exemple :
+    // MainViewModel.combine = 42
+    // MainViewModel.combineDuration : count=42 mean=1.2µs p50=1.0µs p90=2.1µs p99=8.3µs max=12.0µs
+    @NonNull
+    public static String getTextReport() {
+        List<Counter> counters = new ArrayList<>(COUNTERS.values());
+        Collections.sort(counters, new Comparator<Counter>() {
+            @Override
+            public int compare(Counter first, Counter second) {
+                return first.getName().compareTo(second.getName());
+            }
+        });
+
+        List<LatencyHistogram> histograms = new ArrayList<>(HISTOGRAMS.values());
+        Collections.sort(histograms, new Comparator<LatencyHistogram>() {
+            @Override
+            public int compare(LatencyHistogram first, LatencyHistogram second) {
+                return first.getName().compareTo(second.getName());
+            }
+        });
+
+        StringBuilder report = new StringBuilder("Metrics");
+
+        for (Counter counter : counters) {
+            report.append('\n').append(counter.getName()).append(" = ").append(counter.get());
+        }
+
+        for (LatencyHistogram histogram : histograms) {
+            report.append('\n').append(histogram.getName())
+                .append(" : count=").append(histogram.getCount())
+                .append(" mean=").append(toMicros(histogram.getMeanNanos()))
+                .append(" p50=").append(toMicros(histogram.getValueAtPercentile(50)))
+                .append(" p90=").append(toMicros(histogram.getValueAtPercentile(90)))
+                .append(" p99=").append(toMicros(histogram.getValueAtPercentile(99)))
+                .append(" max=").append(toMicros(histogram.getMaxNanos()));
+        }
+
+        return report.toString();
+    }
+
+    @NonNull
+    private static String toMicros(long nanos) {
+        return String.valueOf(nanos / 1_000) + '.' + (nanos / 100 % 10) + "µs";
+    }
+}
@@ -0,0 +1,171 @@
+package fr.delcey.mediatorlivedataexample.number;
+
+import androidx.annotation.NonNull;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convertit un ExactNumber en String, par "paquets" de chiffres plutôt que chiffre par chiffre :<br/>
+ * - les chiffres sont écrits 3 par 3, depuis une table partagée des 1000 groupes "000" à "999" (une division pour 3 chiffres au lieu
+ * d'une par chiffre),<br/>
+ * - un BigInteger est découpé en morceaux de 18 chiffres (qui tiennent dans un long) en le divisant par des puissances de 10^18 gardées
+ * en cache, "diviser pour régner" : chaque morceau est ensuite écrit comme un simple long. Pas de "toString()" chiffre par chiffre sur le
+ * BigInteger entier.<br/>
+ *
+ * Le buffer de caractères et les puissances de 10 sont réutilisés d'une conversion à l'autre : cette classe n'est pas thread-safe, chaque
+ * utilisateur doit avoir sa propre instance.
+ */
+public class DigitChunkFormatter {
+
+    // Les groupes de 3 chiffres "000", "001", ... "999" à la suite
+    private static final char[] DIGIT_TRIPLETS = new char[1000 * 3];
+
+    static {
+        for (int i = 0; i < 1000; i++) {
+            DIGIT_TRIPLETS[i * 3] = (char) ('0' + i / 100);
+            DIGIT_TRIPLETS[i * 3 + 1] = (char) ('0' + i / 10 % 10);
+            DIGIT_TRIPLETS[i * 3 + 2] = (char) ('0' + i % 10);
+        }
+    }
+
+    // Un long positif de moins de 10^18 a au plus 18 chiffres
+    private static final int CHUNK_DIGITS = 18;
+    private static final long CHUNK_LIMIT = 1_000_000_000_000_000_000L;
+
+    // "powers.get(k)" vaut 10^(18 x 2^k)
+    private final List<BigInteger> powers = new ArrayList<>();
+
+    @NonNull
+    private char[] buffer = new char[32];
+
+    public DigitChunkFormatter() {
+        powers.add(BigInteger.valueOf(CHUNK_LIMIT));
+    }
+
+    @NonNull
+    public String format(@NonNull ExactNumber number) {
+        if (number.isLong()) {
+            return format(number.longValue());
+        }
+
+        return format(number.toBigInteger());
+    }
+
+    @NonNull
+    public String format(long value) {
+        // Long.MIN_VALUE n'a pas de valeur absolue en long : il passe par le BigInteger
+        if (value == Long.MIN_VALUE) {
+            return format(BigInteger.valueOf(value));
+        }
+
+        int position = 0;
+
+        if (value < 0) {
+            ensureCapacity(1);
+            buffer[position++] = '-';
+            value = -value;
+        }
+
+        int digitCount = countDigits(value);
+        ensureCapacity(position + digitCount);
+        writeDigits(value, position, digitCount);
+
+        return new String(buffer, 0, position + digitCount);
+    }
+
+    @NonNull
+    public String format(@NonNull BigInteger value) {
+        int position = 0;
+
+        if (value.signum() < 0) {
+            ensureCapacity(1);
+            buffer[position++] = '-';
+            value = value.negate();
+        }
+
+        // log10(2) < 0.30103 : nombre maximum de chiffres d'après le nombre de bits
+        ensureCapacity(position + (int) (value.bitLength() * 0.30103) + 1);
+
+        int end = writeBig(value, position, 0);
+
+        return new String(buffer, 0, end);
+    }
+
+    // Ecrit "value" (positif) à partir de "position". Si "digitCount" n'est pas 0, "value" est complété par des 0 à gauche pour faire
+    // exactement "digitCount" chiffres. Renvoie la position suivant le dernier chiffre.
+    private int writeBig(@NonNull BigInteger value, int position, int digitCount) {
+        if (value.bitLength() < 63 && value.longValue() < CHUNK_LIMIT) {
+            long longValue = value.longValue();
+            int count = digitCount == 0 ? countDigits(longValue) : digitCount;
+
+            writeDigits(longValue, position, count);
+
+            return position + count;
+        }
+
+        // La plus grande puissance 10^(18 x 2^k) dont le carré dépasse "value" : "value" = high x 10^(18 x 2^k) + low, et "high" comme "low"
+        // sont plus petits que cette puissance
+        int k = 0;
+        while (getPower(k + 1).compareTo(value) <= 0) {
+            k++;
+        }
+
+        int lowDigitCount = CHUNK_DIGITS << k;
+        BigInteger[] highAndLow = value.divideAndRemainder(getPower(k));
+
+        position = writeBig(highAndLow[0], position, digitCount == 0 ? 0 : digitCount - lowDigitCount);
+
+        return writeBig(highAndLow[1], position, lowDigitCount);
+    }
+
+    @NonNull
+    private BigInteger getPower(int k) {
+        while (powers.size() <= k) {
+            BigInteger last = powers.get(powers.size() - 1);
+
+            powers.add(last.multiply(last));
+        }
+
+        return powers.get(k);
+    }
+
+    // Ecrit les "digitCount" derniers chiffres de "value" (positif) à partir de "position", de droite à gauche, 3 par 3
+    private void writeDigits(long value, int position, int digitCount) {
+        int index = position + digitCount;
+
+        while (index - position >= 3) {
+            int triplet = (int) (value % 1000);
+            value /= 1000;
+
+            index -= 3;
+            System.arraycopy(DIGIT_TRIPLETS, triplet * 3, buffer, index, 3);
+        }
+
+        // 1 ou 2 chiffres restants (les derniers caractères du triplet)
+        int remainingCount = index - position;
+
+        if (remainingCount > 0) {
+            System.arraycopy(DIGIT_TRIPLETS, (int) (value % 1000) * 3 + 3 - remainingCount, buffer, position, remainingCount);
+        }
+    }
+
+    private static int countDigits(long value) {
+        int digitCount = 1;
+
+        for (long power = 10; power <= value && digitCount < 19; power *= 10) {
+            digitCount++;
+        }
+
+        return digitCount;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            char[] newBuffer = new char[Math.max(capacity, buffer.length * 2)];
+            System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
+            buffer = newBuffer;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package fr.delcey.mediatorlivedataexample.number;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.math.BigInteger;
+
+/**
+ * Nombre entier sans dépassement de capacité : tant que la valeur tient dans un long, tous les calculs sont faits sur ce long (aucune
+ * allocation de BigInteger, juste une vérification de débordement). Ce n'est qu'au premier débordement que la valeur passe en BigInteger, et
+ * elle revient en long dès qu'elle y tient à nouveau.<br/>
+ *
+ * Immuable, donc utilisable depuis n'importe quel thread. La représentation est unique (une valeur qui tient dans un long n'est jamais
+ * stockée en BigInteger) : "equals()" peut donc comparer les champs directement.<br/>
+ *
+ * Math.addExact() / Math.multiplyExact() ne sont disponibles qu'à partir de l'API 24 : la détection du débordement est écrite ici.
+ */
+public final class ExactNumber {
+
+    // Les petites valeurs (celles du compteur au début) sont partagées : pas d'allocation pour elles
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final ExactNumber[] CACHE = new ExactNumber[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new ExactNumber(CACHE_LOW + i, null);
+        }
+    }
+
+    public static final ExactNumber ZERO = valueOf(0);
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    // Valeur si elle tient dans un long (sinon 0)
+    private final long value;
+
+    // Valeur si elle ne tient PAS dans un long (sinon null)
+    @Nullable
+    private final BigInteger bigValue;
+
+    private ExactNumber(long value, @Nullable BigInteger bigValue) {
+        this.value = value;
+        this.bigValue = bigValue;
+    }
+
+    @NonNull
+    public static ExactNumber valueOf(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return CACHE[(int) value - CACHE_LOW];
+        }
+
+        return new ExactNumber(value, null);
+    }
+
+    @NonNull
+    public static ExactNumber valueOf(@NonNull BigInteger value) {
+        if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+            return valueOf(value.longValue());
+        }
+
+        return new ExactNumber(0, value);
+    }
+
+    @NonNull
+    public ExactNumber plus(long toAdd) {
+        if (bigValue == null) {
+            long result = value + toAdd;
+
+            // Il n'y a débordement que si les 2 opérandes ont le même signe, et que le résultat a le signe opposé
+            if (((value ^ result) & (toAdd ^ result)) >= 0) {
+                return valueOf(result);
+            }
+        }
+
+        return valueOf(toBigInteger().add(BigInteger.valueOf(toAdd)));
+    }
+
+    @NonNull
+    public ExactNumber times(long factor) {
+        if (bigValue == null && !multiplyOverflows(value, factor)) {
+            return valueOf(value * factor);
+        }
+
+        return valueOf(toBigInteger().multiply(BigInteger.valueOf(factor)));
+    }
+
+    @NonNull
+    public ExactNumber plus(@NonNull ExactNumber other) {
+        if (other.bigValue == null) {
+            return plus(other.value);
+        }
+
+        return valueOf(toBigInteger().add(other.bigValue));
+    }
+
+    @NonNull
+    public ExactNumber times(@NonNull ExactNumber other) {
+        if (other.bigValue == null) {
+            return times(other.value);
+        }
+
+        return valueOf(toBigInteger().multiply(other.bigValue));
+    }
+
+    // Même vérification que Math.multiplyExact() (Java 8) : si les 2 opérandes tiennent sur 31 bits, le produit tient forcément dans un long
+    // et la division (coûteuse) est évitée
+    static boolean multiplyOverflows(long x, long y) {
+        long result = x * y;
+
+        if (((Math.abs(x) | Math.abs(y)) >>> 31) == 0) {
+            return false;
+        }
+
+        return (y != 0 && result / y != x) || (x == Long.MIN_VALUE && y == -1);
+    }
+
+    // Le bit de poids faible suffit (y compris pour les nombres négatifs, en complément à 2), pas besoin de modulo
+    public boolean isEven() {
+        if (bigValue == null) {
+            return (value & 1) == 0;
+        }
+
+        return !bigValue.testBit(0);
+    }
+
+    public boolean isLong() {
+        return bigValue == null;
+    }
+
+    public boolean isInt() {
+        return bigValue == null && value == (int) value;
+    }
+
+    // Uniquement si "isLong()" est vrai
+    public long longValue() {
+        if (bigValue != null) {
+            throw new ArithmeticException(bigValue + " doesn't fit in a long");
+        }
+
+        return value;
+    }
+
+    // Alloue un BigInteger si la valeur tient dans un long : à éviter sur le chemin "rapide"
+    @NonNull
+    public BigInteger toBigInteger() {
+        return bigValue == null ? BigInteger.valueOf(value) : bigValue;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ExactNumber)) {
+            return false;
+        }
+
+        ExactNumber that = (ExactNumber) o;
+
+        if (bigValue == null) {
+            return that.bigValue == null && value == that.value;
+        }
+
+        return bigValue.equals(that.bigValue);
+    }
+
+    @Override
+    public int hashCode() {
+        // Comme Long.hashCode(), qui n'est disponible qu'à partir de l'API 24
+        return bigValue == null ? (int) (value ^ (value >>> 32)) : bigValue.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return bigValue == null ? Long.toString(value) : bigValue.toString();
+    }
+}
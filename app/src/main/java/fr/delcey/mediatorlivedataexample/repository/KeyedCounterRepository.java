@@ -0,0 +1,141 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+import fr.delcey.mediatorlivedataexample.livedata.IntLiveData;
+import fr.delcey.mediatorlivedataexample.livedata.MutableIntLiveData;
+import fr.delcey.mediatorlivedataexample.repository.random.RandomSource;
+import fr.delcey.mediatorlivedataexample.repository.random.ThreadLocalRandomSource;
+
+/**
+ * L'équivalent de milliers de couples NumberRepository / RandomRepository (un par "clef", par exemple une ligne d'une liste), sans créer
+ * un seul objet par clef : les nombres et les tirages aléatoires sont stockés dans 2 tableaux de "int" parallèles (l'index est la clef).<br/>
+ *
+ * Chaque modification marque sa clef comme "sale" : le consommateur (le KeyedMainViewModel) récupère uniquement les clefs modifiées avec
+ * "drainDirtyKeys()" et n'a donc jamais besoin de parcourir toutes les clefs. Une seule IntLiveData (un compteur de modifications) suffit
+ * à le prévenir, quel que soit le nombre de clefs.<br/>
+ *
+ * Comme le RandomRepository, toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public class KeyedCounterRepository {
+
+    private final int keyCount;
+
+    @NonNull
+    private final int[] numbers;
+    @NonNull
+    private final int[] randomNumbers;
+
+    // File des clefs modifiées depuis le dernier "drainDirtyKeys()", et "bitset" pour ne pas y mettre 2 fois la même clef
+    @NonNull
+    private final int[] dirtyKeys;
+    private int dirtyKeyCount;
+    @NonNull
+    private final long[] dirtyBits;
+
+    @NonNull
+    private final RandomSource randomSource;
+
+    private final MutableIntLiveData changeCountLiveData = new MutableIntLiveData(0);
+
+    public KeyedCounterRepository(int keyCount) {
+        this(keyCount, new ThreadLocalRandomSource());
+    }
+
+    public KeyedCounterRepository(int keyCount, @NonNull RandomSource randomSource) {
+        if (keyCount <= 0) {
+            throw new IllegalArgumentException("keyCount must be positive, got " + keyCount);
+        }
+
+        this.keyCount = keyCount;
+        this.randomSource = randomSource;
+
+        numbers = new int[keyCount];
+        randomNumbers = new int[keyCount];
+        dirtyKeys = new int[keyCount];
+        dirtyBits = new long[(keyCount + Long.SIZE - 1) / Long.SIZE];
+
+        // Même valeur initiale que le RandomRepository
+        Arrays.fill(randomNumbers, 1);
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    public int getNumber(int key) {
+        return numbers[key];
+    }
+
+    public int getRandomNumber(int key) {
+        return randomNumbers[key];
+    }
+
+    // Incrémenté à chaque modification (de n'importe quelle clef) : il suffit d'observer cette LiveData pour savoir quand appeler
+    // "drainDirtyKeys()"
+    @NonNull
+    public IntLiveData getChangeCountLiveData() {
+        return changeCountLiveData;
+    }
+
+    @MainThread
+    public void addToNumber(int key, int toAdd) {
+        numbers[key] += toAdd;
+
+        markDirty(key);
+    }
+
+    @MainThread
+    public void multiplyNumber(int key, int factor) {
+        numbers[key] *= factor;
+
+        markDirty(key);
+    }
+
+    @MainThread
+    public void rollNewRandom(int key) {
+        // 1 - 10 (inclus), les mêmes bornes que le RandomRepository
+        randomNumbers[key] = randomSource.nextInt(RandomRepository.MAX_RANDOM_NUMBER - RandomRepository.MIN_RANDOM_NUMBER + 1)
+            + RandomRepository.MIN_RANDOM_NUMBER;
+
+        markDirty(key);
+    }
+
+    // Donne chaque clef modifiée depuis le dernier appel (une seule fois, même si elle a été modifiée plusieurs fois), puis les "oublie".
+    // Le visiteur ne doit pas modifier le repository.
+    @MainThread
+    public void drainDirtyKeys(@NonNull DirtyKeyVisitor visitor) {
+        for (int i = 0; i < dirtyKeyCount; i++) {
+            int key = dirtyKeys[i];
+
+            dirtyBits[key >>> 6] &= ~(1L << key);
+
+            visitor.onDirtyKey(key);
+        }
+
+        dirtyKeyCount = 0;
+    }
+
+    public int getDirtyKeyCount() {
+        return dirtyKeyCount;
+    }
+
+    private void markDirty(int key) {
+        long bit = 1L << key;
+        int word = key >>> 6;
+
+        if ((dirtyBits[word] & bit) == 0) {
+            dirtyBits[word] |= bit;
+            dirtyKeys[dirtyKeyCount++] = key;
+        }
+
+        changeCountLiveData.setValue(changeCountLiveData.getIntValue() + 1);
+    }
+
+    public interface DirtyKeyVisitor {
+        void onDirtyKey(int key);
+    }
+}
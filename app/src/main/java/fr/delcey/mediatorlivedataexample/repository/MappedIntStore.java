@@ -0,0 +1,143 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persiste un "int" dans un petit fichier "mappé" en mémoire (memory-mapped file) : écrire la valeur revient à écrire dans la mémoire,
+ * c'est le système qui se charge de la recopier sur le disque, même si le processus de l'application est tué.<br/>
+ *
+ * Les écritures sont faites en "write-behind" sur un Executor en arrière plan : le thread principal ne fait que demander une écriture, et
+ * toutes les demandes faites avant que l'écriture ne soit exécutée sont regroupées en une seule (avec la dernière valeur).<br/>
+ *
+ * Pour résister à une écriture interrompue en plein milieu, le fichier contient 2 "slots" écrits en alternance, chacun avec un numéro de
+ * séquence et une somme de contrôle. A la lecture, on garde le slot valide le plus récent : au pire, on perd la dernière écriture, jamais
+ * la valeur précédente.
+ */
+public class MappedIntStore {
+
+    private static final int MAGIC = 0x4E554D31; // "NUM1"
+
+    // Un slot = magic + séquence + valeur + somme de contrôle
+    private static final int SLOT_SIZE = 4 * Integer.BYTES;
+    private static final int SLOT_COUNT = 2;
+    private static final int FILE_SIZE = SLOT_SIZE * SLOT_COUNT;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int SEQUENCE_OFFSET = Integer.BYTES;
+    private static final int VALUE_OFFSET = 2 * Integer.BYTES;
+    private static final int CHECKSUM_OFFSET = 3 * Integer.BYTES;
+
+    @NonNull
+    private final MappedByteBuffer buffer;
+    @NonNull
+    private final Executor writeExecutor;
+
+    private final boolean hasRestoredValue;
+    private final int restoredValue;
+
+    // Séquence du dernier slot écrit (uniquement modifiée sur le "writeExecutor")
+    private int sequence;
+
+    private final AtomicBoolean isWritePending = new AtomicBoolean();
+
+    public MappedIntStore(@NonNull File file, @NonNull Executor writeExecutor) throws IOException {
+        this.writeExecutor = writeExecutor;
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            // Le mapping reste valide après la fermeture du fichier
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        }
+
+        int latestSlot = -1;
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            if (isSlotValid(slot) && (latestSlot == -1 || getSequence(slot) - getSequence(latestSlot) > 0)) {
+                latestSlot = slot;
+            }
+        }
+
+        if (latestSlot == -1) {
+            hasRestoredValue = false;
+            restoredValue = 0;
+            sequence = 0;
+        } else {
+            hasRestoredValue = true;
+            restoredValue = buffer.getInt(latestSlot * SLOT_SIZE + VALUE_OFFSET);
+            sequence = getSequence(latestSlot);
+        }
+    }
+
+    // Vrai si une valeur a été retrouvée dans le fichier à l'ouverture
+    public boolean hasRestoredValue() {
+        return hasRestoredValue;
+    }
+
+    public int getRestoredValue() {
+        return restoredValue;
+    }
+
+    // Demande l'écriture de la valeur renvoyée par "valueSource". Elle n'est lue qu'au moment de l'écriture, sur le "writeExecutor" : si
+    // plusieurs demandes arrivent avant, c'est donc toujours la dernière valeur qui est écrite, et une seule fois.
+    @AnyThread
+    public void scheduleWrite(@NonNull ValueSource valueSource) {
+        if (isWritePending.compareAndSet(false, true)) {
+            writeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // On baisse le flag AVANT de lire la valeur : une demande qui arriverait pendant l'écriture en provoquera une nouvelle
+                    isWritePending.set(false);
+
+                    write(valueSource.getValue());
+                }
+            });
+        }
+    }
+
+    @VisibleForTesting
+    @WorkerThread
+    synchronized void write(int value) {
+        sequence++;
+
+        // On écrit dans le slot qui ne contient PAS la dernière valeur valide : si on est interrompu, l'autre slot est intact
+        int offset = (sequence & 1) * SLOT_SIZE;
+
+        buffer.putInt(offset + MAGIC_OFFSET, MAGIC);
+        buffer.putInt(offset + SEQUENCE_OFFSET, sequence);
+        buffer.putInt(offset + VALUE_OFFSET, value);
+        buffer.putInt(offset + CHECKSUM_OFFSET, checksum(sequence, value));
+    }
+
+    private boolean isSlotValid(int slot) {
+        int offset = slot * SLOT_SIZE;
+
+        return buffer.getInt(offset + MAGIC_OFFSET) == MAGIC
+            && buffer.getInt(offset + CHECKSUM_OFFSET) == checksum(buffer.getInt(offset + SEQUENCE_OFFSET), buffer.getInt(offset + VALUE_OFFSET));
+    }
+
+    private int getSequence(int slot) {
+        return buffer.getInt(slot * SLOT_SIZE + SEQUENCE_OFFSET);
+    }
+
+    // Somme de contrôle "mélangeante" : un slot à moitié écrit n'a quasiment aucune chance d'être considéré comme valide
+    private static int checksum(int sequence, int value) {
+        int hash = MAGIC;
+        hash = (hash ^ sequence) * 0x9E3779B1;
+        hash = (hash ^ value) * 0x85EBCA6B;
+
+        return hash ^ (hash >>> 16);
+    }
+
+    public interface ValueSource {
+        int getValue();
+    }
+}
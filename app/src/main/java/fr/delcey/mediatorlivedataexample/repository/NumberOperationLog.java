@@ -0,0 +1,307 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+/**
+ * Journal des opérations du NumberRepository ("event sourcing") : chaque "+x" et "x y" est ajouté à la fin du journal, et la valeur du
+ * nombre à n'importe quel moment de son histoire peut être recalculée. C'est ce qui permet l'audit (quelles opérations, dans quel ordre) et
+ * l'annulation / le rétablissement ("undo" / "redo").<br/>
+ *
+ * Les opérations sont rangées dans un seul int[] (2 cases par opération : code et opérande), sans aucun objet par opération. Toutes les
+ * "snapshotInterval" opérations (1024 par défaut), la valeur du nombre est gardée ("snapshot") : retrouver la valeur à une position donnée
+ * ne rejoue que les opérations depuis le snapshot précédent, au plus "snapshotInterval - 1", quelle que soit la taille du journal.<br/>
+ *
+ * Un "undo" annule une action complète (une opération, ou toutes celles d'un "batch()"). Une nouvelle action après un "undo" remplace les
+ * actions annulées (elles ne peuvent plus être rétablies), comme dans un éditeur de texte.<br/>
+ *
+ * Toutes les méthodes sont synchronisées sur le journal : il peut être lu (audit) depuis n'importe quel thread pendant que le
+ * NumberRepository le modifie.
+ */
+public class NumberOperationLog {
+
+    public static final int OP_ADD = 0;
+    public static final int OP_MULTIPLY = 1;
+
+    // Ajouté au code de la dernière opération de chaque action
+    private static final int END_OF_ACTION = 1 << 8;
+    private static final int OP_MASK = END_OF_ACTION - 1;
+
+    static final int DEFAULT_SNAPSHOT_INTERVAL = 1024;
+
+    private final boolean isExact;
+    private final int snapshotInterval;
+
+    // [code, opérande] de chaque opération, à la suite
+    @NonNull
+    private int[] operations = new int[64];
+
+    // Nombre d'opérations dans le journal, et nombre d'opérations actuellement appliquées (inférieur après un "undo")
+    private int size;
+    private int position;
+
+    // "snapshots[k]" : la valeur après les k x snapshotInterval premières opérations (le premier est la valeur initiale)
+    @NonNull
+    private int[] intSnapshots = new int[8];
+    @Nullable
+    private ExactNumber[] exactSnapshots;
+
+    // Valeur après les "position" premières opérations
+    private int intValue;
+    @Nullable
+    private ExactNumber exactValue;
+
+    NumberOperationLog(boolean isExact, int initialValue) {
+        this(isExact, initialValue, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    NumberOperationLog(boolean isExact, int initialValue, int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("snapshotInterval must be positive, got " + snapshotInterval);
+        }
+
+        this.isExact = isExact;
+        this.snapshotInterval = snapshotInterval;
+
+        intValue = initialValue;
+        intSnapshots[0] = initialValue;
+
+        if (isExact) {
+            exactValue = ExactNumber.valueOf(initialValue);
+            exactSnapshots = new ExactNumber[8];
+            exactSnapshots[0] = exactValue;
+        }
+    }
+
+    // Nombre d'opérations dans le journal (y compris celles annulées, tant qu'une nouvelle action ne les a pas remplacées)
+    public synchronized int size() {
+        return size;
+    }
+
+    // Nombre d'opérations actuellement appliquées
+    public synchronized int getPosition() {
+        return position;
+    }
+
+    public synchronized int getOpCode(int index) {
+        checkIndex(index);
+
+        return operations[index * 2] & OP_MASK;
+    }
+
+    public synchronized int getOperand(int index) {
+        checkIndex(index);
+
+        return operations[index * 2 + 1];
+    }
+
+    public synchronized boolean canUndo() {
+        return position > 0;
+    }
+
+    public synchronized boolean canRedo() {
+        return position < size;
+    }
+
+    // Remplace la valeur de départ d'un journal encore vide (valeur restaurée après la mort du process, par exemple). Renvoie faux si une
+    // opération a déjà été enregistrée : elle est plus récente.
+    synchronized boolean resetInitialValue(@NonNull ExactNumber initialValue) {
+        if (size != 0) {
+            return false;
+        }
+
+        if (isExact) {
+            exactValue = initialValue;
+            //noinspection ConstantConditions : exactSnapshots n'est jamais null en mode EXACT
+            exactSnapshots[0] = initialValue;
+        } else {
+            intValue = (int) initialValue.longValue();
+            intSnapshots[0] = intValue;
+        }
+
+        return true;
+    }
+
+    synchronized void append(int opCode, int operand, boolean endsAction) {
+        if (opCode != OP_ADD && opCode != OP_MULTIPLY) {
+            throw new IllegalArgumentException("Unknown op code: " + opCode);
+        }
+
+        // Les actions annulées sont remplacées
+        size = position;
+
+        if (operations.length < (size + 1) * 2) {
+            operations = grow(operations, (size + 1) * 2);
+        }
+
+        operations[size * 2] = endsAction ? opCode | END_OF_ACTION : opCode;
+        operations[size * 2 + 1] = operand;
+        size++;
+        position++;
+
+        if (isExact) {
+            //noinspection ConstantConditions : exactValue n'est jamais null en mode EXACT
+            exactValue = apply(opCode, operand, exactValue);
+        } else {
+            intValue = apply(opCode, operand, intValue);
+        }
+
+        if (position % snapshotInterval == 0) {
+            takeSnapshot(position / snapshotInterval);
+        }
+    }
+
+    // Annule la dernière action. Renvoie faux s'il n'y a rien à annuler.
+    synchronized boolean undo() {
+        if (position == 0) {
+            return false;
+        }
+
+        int newPosition = position - 1;
+
+        while (newPosition > 0 && (operations[(newPosition - 1) * 2] & END_OF_ACTION) == 0) {
+            newPosition--;
+        }
+
+        moveTo(newPosition);
+
+        return true;
+    }
+
+    // Rétablit la dernière action annulée. Renvoie faux s'il n'y a rien à rétablir.
+    synchronized boolean redo() {
+        if (position == size) {
+            return false;
+        }
+
+        int newPosition = position + 1;
+
+        while (newPosition < size && (operations[(newPosition - 1) * 2] & END_OF_ACTION) == 0) {
+            newPosition++;
+        }
+
+        moveTo(newPosition);
+
+        return true;
+    }
+
+    synchronized int getIntValue() {
+        return intValue;
+    }
+
+    @NonNull
+    synchronized ExactNumber getExactValue() {
+        if (exactValue == null) {
+            throw new IllegalStateException("This log wasn't created for an EXACT NumberRepository");
+        }
+
+        return exactValue;
+    }
+
+    // Valeur du nombre après les "count" premières opérations : on repart du snapshot précédent
+    public synchronized int getIntValueAt(int count) {
+        checkCount(count);
+
+        int snapshotIndex = count / snapshotInterval;
+
+        return replay(intSnapshots[snapshotIndex], snapshotIndex * snapshotInterval, count);
+    }
+
+    @NonNull
+    public synchronized ExactNumber getExactValueAt(int count) {
+        checkCount(count);
+
+        if (exactSnapshots == null) {
+            throw new IllegalStateException("This log wasn't created for an EXACT NumberRepository");
+        }
+
+        int snapshotIndex = count / snapshotInterval;
+
+        return replay(exactSnapshots[snapshotIndex], snapshotIndex * snapshotInterval, count);
+    }
+
+    // Rejoue les opérations [from ; to[ à partir de "value"
+    private int replay(int value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            value = apply(operations[i * 2] & OP_MASK, operations[i * 2 + 1], value);
+        }
+
+        return value;
+    }
+
+    @NonNull
+    private ExactNumber replay(@NonNull ExactNumber value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            value = apply(operations[i * 2] & OP_MASK, operations[i * 2 + 1], value);
+        }
+
+        return value;
+    }
+
+    private void moveTo(int newPosition) {
+        if (newPosition > position) {
+            // En avant : il suffit d'appliquer les opérations suivantes
+            if (isExact) {
+                //noinspection ConstantConditions
+                exactValue = replay(exactValue, position, newPosition);
+            } else {
+                intValue = replay(intValue, position, newPosition);
+            }
+        } else if (isExact) {
+            exactValue = getExactValueAt(newPosition);
+        } else {
+            intValue = getIntValueAt(newPosition);
+        }
+
+        position = newPosition;
+    }
+
+    private void takeSnapshot(int snapshotIndex) {
+        if (intSnapshots.length <= snapshotIndex) {
+            intSnapshots = grow(intSnapshots, snapshotIndex + 1);
+        }
+
+        intSnapshots[snapshotIndex] = intValue;
+
+        if (exactSnapshots != null) {
+            if (exactSnapshots.length <= snapshotIndex) {
+                ExactNumber[] newExactSnapshots = new ExactNumber[exactSnapshots.length * 2];
+                System.arraycopy(exactSnapshots, 0, newExactSnapshots, 0, exactSnapshots.length);
+                exactSnapshots = newExactSnapshots;
+            }
+
+            exactSnapshots[snapshotIndex] = exactValue;
+        }
+    }
+
+    private static int apply(int opCode, int operand, int value) {
+        return opCode == OP_ADD ? value + operand : value * operand;
+    }
+
+    @NonNull
+    private static ExactNumber apply(int opCode, int operand, @NonNull ExactNumber value) {
+        return opCode == OP_ADD ? value.plus(operand) : value.times(operand);
+    }
+
+    @NonNull
+    private static int[] grow(@NonNull int[] array, int minLength) {
+        int[] newArray = new int[Math.max(minLength, array.length * 2)];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+
+        return newArray;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of [0 ; " + size + "[");
+        }
+    }
+
+    private void checkCount(int count) {
+        if (count < 0 || count > size) {
+            throw new IndexOutOfBoundsException("count " + count + " is out of [0 ; " + size + "]");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+/**
+ * Accumule une suite d'opérations (additions et multiplications) sur le nombre du NumberRepository, sans les appliquer.<br/>
+ *
+ * Toute suite d'additions et de multiplications peut se résumer à une seule fonction "x * multiplier + addend" : deux additions
+ * consécutives s'additionnent, deux multiplications consécutives se multiplient, et une multiplication après une addition multiplie aussi
+ * ce qui a été ajouté. Des centaines d'opérations se résument donc à un seul calcul, appliqué en une seule fois sur le nombre.
+ * L'arithmétique des "int" (y compris le dépassement de capacité) donne le même résultat que d'appliquer les opérations une par une.<br/>
+ *
+ * En mode NumberRepository.Mode.EXACT, la fonction est aussi calculée sans dépassement de capacité (ExactNumber). Et si le NumberRepository
+ * tient un journal des opérations, chaque opération est aussi gardée telle quelle pour y être ajoutée (cf NumberOperationLog).
+ */
+public final class NumberOperations {
+
+    private int multiplier = 1;
+    private int addend = 0;
+
+    // Uniquement en mode EXACT (sinon null)
+    @Nullable
+    private ExactNumber exactMultiplier;
+    @Nullable
+    private ExactNumber exactAddend;
+
+    // Uniquement si le NumberRepository tient un journal (sinon null) : [code, opérande] de chaque opération, à la suite
+    @Nullable
+    private int[] recordedOperations;
+
+    private int operationCount;
+
+    // Seul le NumberRepository crée des NumberOperations (cf "NumberRepository.batch()")
+    NumberOperations(boolean isExact, boolean isRecording) {
+        if (isRecording) {
+            recordedOperations = new int[16];
+        }
+
+        if (isExact) {
+            exactMultiplier = ExactNumber.valueOf(1);
+            exactAddend = ExactNumber.ZERO;
+        }
+    }
+
+    public NumberOperations add(int toAdd) {
+        // (x * m + a) + toAdd
+        addend += toAdd;
+        if (exactAddend != null) {
+            exactAddend = exactAddend.plus(toAdd);
+        }
+        record(NumberOperationLog.OP_ADD, toAdd);
+        operationCount++;
+
+        return this;
+    }
+
+    public NumberOperations multiply(int factor) {
+        // (x * m + a) * factor = x * (m * factor) + (a * factor)
+        multiplier *= factor;
+        addend *= factor;
+        if (exactMultiplier != null && exactAddend != null) {
+            exactMultiplier = exactMultiplier.times(factor);
+            exactAddend = exactAddend.times(factor);
+        }
+        record(NumberOperationLog.OP_MULTIPLY, factor);
+        operationCount++;
+
+        return this;
+    }
+
+    public int getOperationCount() {
+        return operationCount;
+    }
+
+    // Toutes les opérations forment une seule action : un seul "undo" les annulera toutes
+    void appendTo(@NonNull NumberOperationLog operationLog) {
+        if (recordedOperations == null) {
+            throw new IllegalStateException("These operations weren't recorded");
+        }
+
+        for (int i = 0; i < operationCount; i++) {
+            operationLog.append(recordedOperations[i * 2], recordedOperations[i * 2 + 1], i == operationCount - 1);
+        }
+    }
+
+    private void record(int opCode, int operand) {
+        if (recordedOperations == null) {
+            return;
+        }
+
+        if (recordedOperations.length < (operationCount + 1) * 2) {
+            int[] newRecordedOperations = new int[recordedOperations.length * 2];
+            System.arraycopy(recordedOperations, 0, newRecordedOperations, 0, recordedOperations.length);
+            recordedOperations = newRecordedOperations;
+        }
+
+        recordedOperations[operationCount * 2] = opCode;
+        recordedOperations[operationCount * 2 + 1] = operand;
+    }
+
+    int applyTo(int value) {
+        return value * multiplier + addend;
+    }
+
+    @NonNull
+    ExactNumber applyTo(@NonNull ExactNumber value) {
+        if (exactMultiplier == null || exactAddend == null) {
+            throw new IllegalStateException("These operations weren't created for an EXACT NumberRepository");
+        }
+
+        return value.times(exactMultiplier).plus(exactAddend);
+    }
+}
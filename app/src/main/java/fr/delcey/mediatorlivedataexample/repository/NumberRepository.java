@@ -1,50 +1,476 @@
 package fr.delcey.mediatorlivedataexample.repository;
 
+import androidx.annotation.AnyThread;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.arch.core.executor.ArchTaskExecutor;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import fr.delcey.mediatorlivedataexample.livedata.IntLiveData;
+import fr.delcey.mediatorlivedataexample.livedata.MutableIntLiveData;
+import fr.delcey.mediatorlivedataexample.metrics.LatencyHistogram;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+import kotlinx.coroutines.flow.MutableStateFlow;
+import kotlinx.coroutines.flow.StateFlow;
+import kotlinx.coroutines.flow.StateFlowKt;
+
 /**
  * Les repository servent à "stocker" ou "accéder" à la donnée. Ca peut être une donnée sur internet, en local,
  * en base de donnée, liée au téléphone (GPS ou Bluetooth par exemple), etc.
  *
- * Ici on gère juste une donnée "volatile" non persistée (au redémarrage de l'app les données seront perdues).
+ * Par défaut, on gère juste une donnée "volatile" non persistée (au redémarrage de l'app les données seront perdues). Avec un MappedIntStore,
+ * le nombre est sauvegardé en arrière plan à chaque modification et restauré dès la création du repository.<br/>
+ *
+ * Les méthodes de modification peuvent être appelées depuis n'importe quel thread : la "source de vérité" est un AtomicInteger (modifié
+ * sans verrou, par "compare and set"), la LiveData n'en est que le reflet sur le thread principal.<br/>
+ *
+ * En mode INT, le nombre est un int : après une trentaine de "x2", il déborde silencieusement (parité et produit faux). En mode EXACT, le
+ * nombre est un ExactNumber : un long tant qu'il y tient, un BigInteger ensuite. Il est alors exposé par "getExactNumberLiveData()".<br/>
+ *
+ * Avec un journal des opérations (NumberOperationLog), chaque modification y est ajoutée, ce qui permet "undo()" et "redo()". Les
+ * modifications passent alors par le verrou du journal plutôt que par "compare and set" : l'ordre du journal est toujours celui dans
+ * lequel les modifications ont été appliquées.<br/>
+ *
+ * Le nombre est aussi exposé en StateFlow (Kotlin), reflet de la même "source de vérité" que la LiveData. Le StateFlow est mis à jour
+ * directement depuis le thread qui modifie le nombre (sans attendre le thread principal), et il a toujours une valeur : 0 au départ, là où
+ * la LiveData reste vide jusqu'à la première modification.
  */
 public class NumberRepository {
 
-    private final MutableLiveData<Integer> numberLiveData = new MutableLiveData<>();
+    public enum Mode {
+        INT,
+        EXACT
+    }
+
+    @NonNull
+    private final Mode mode;
+
+    // Une IntLiveData plutôt qu'une MutableLiveData<Integer> : aucun Integer n'est alloué à chaque modification du nombre
+    private final MutableIntLiveData numberLiveData;
+
+    private final AtomicInteger number = new AtomicInteger();
+
+    // Uniquement en mode EXACT : la "source de vérité" et son reflet sur le thread principal
+    private final AtomicReference<ExactNumber> exactNumber = new AtomicReference<>(ExactNumber.ZERO);
+    private final MutableLiveData<ExactNumber> exactNumberLiveData;
+
+    // Le reflet de "number" (mode INT) ou de "exactNumber" (mode EXACT) en StateFlow, pour les consommateurs de coroutines
+    private final MutableStateFlow<Integer> numberFlow;
+    private final MutableStateFlow<ExactNumber> exactNumberFlow;
+    private final Object flowLock = new Object();
+
+    // Vrai dès que le nombre a une valeur (restaurée depuis le fichier, ou modifiée), même si elle n'est pas encore publiée dans la LiveData
+    private volatile boolean hasValue;
+
+    // Dernière valeur du nombre qui tenait dans un int : c'est elle qui est sauvegardée en mode EXACT
+    private volatile int lastStorableExactValue;
+
+    @Nullable
+    private final MappedIntStore store;
+
+    private final MappedIntStore.ValueSource storeValueSource = new MappedIntStore.ValueSource() {
+        @Override
+        public int getValue() {
+            if (mode == Mode.EXACT) {
+                return lastStorableExactValue;
+            }
+
+            return number.get();
+        }
+    };
+
+    // Null si le journal des opérations n'est pas activé
+    @Nullable
+    private final NumberOperationLog operationLog;
+
+    // Vrai si une publication de "number" vers la LiveData est déjà prévue sur le thread principal
+    private final AtomicBoolean isPublishPending = new AtomicBoolean();
+
+    // Temps d'attente des publications dans la file du thread principal (null si les mesures sont désactivées)
+    @Nullable
+    private final LatencyHistogram publishDelay;
+    private long publishPostedNanos;
+
+    private final Runnable publishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (Metrics.ENABLED && publishDelay != null) {
+                publishDelay.record(System.nanoTime() - publishPostedNanos);
+            }
+
+            // On baisse le flag AVANT de lire la valeur : une modification qui arriverait juste après provoquera une nouvelle publication,
+            // on ne peut donc jamais "perdre" la dernière valeur
+            isPublishPending.set(false);
+
+            setLiveDataValue();
+        }
+    };
+
+    public NumberRepository() {
+        this(null);
+    }
+
+    public NumberRepository(@Nullable MappedIntStore store) {
+        this(store, Mode.INT);
+    }
+
+    public NumberRepository(@Nullable MappedIntStore store, @NonNull Mode mode) {
+        this(store, mode, false);
+    }
+
+    public NumberRepository(@Nullable MappedIntStore store, @NonNull Mode mode, boolean isOperationLogEnabled) {
+        this.store = store;
+        this.mode = mode;
+
+        if (store != null && store.hasRestoredValue()) {
+            // La valeur est restaurée de manière synchrone : elle sera déjà là quand le MainViewModel commencera à observer la LiveData
+            number.set(store.getRestoredValue());
+            numberLiveData = new MutableIntLiveData(store.getRestoredValue());
+            exactNumber.set(ExactNumber.valueOf(store.getRestoredValue()));
+            lastStorableExactValue = store.getRestoredValue();
+            exactNumberLiveData = new MutableLiveData<>(exactNumber.get());
+            hasValue = true;
+        } else {
+            numberLiveData = new MutableIntLiveData();
+            exactNumberLiveData = new MutableLiveData<>();
+        }
+
+        numberFlow = StateFlowKt.MutableStateFlow(number.get());
+        exactNumberFlow = StateFlowKt.MutableStateFlow(exactNumber.get());
+
+        // Le journal commence à la valeur restaurée : les opérations des sessions précédentes ne peuvent pas être annulées
+        operationLog = isOperationLogEnabled ? new NumberOperationLog(mode == Mode.EXACT, number.get()) : null;
+
+        if (Metrics.ENABLED) {
+            numberLiveData.setEmissionMetrics(Metrics.emission("NumberRepository.number"));
+            publishDelay = Metrics.histogram("NumberRepository.number.publishDelay");
+        } else {
+            publishDelay = null;
+        }
+    }
 
     // On récupère la LiveData qui représente un nombre. Ce nombre n'est pas encore présent  dans la LiveData tant que l'utilisateur n'a pas
     // cliqué sur le bouton "Random". Il va donc falloir "réagir" dans le ViewModel à l'émission de cette nouvelle valeur (via un "addSource).
-    public LiveData<Integer> getNumberLiveData() {
+    // En mode EXACT, c'est le nombre "borné" : Integer.MAX_VALUE (ou MIN_VALUE) s'il ne tient plus dans un int (voir
+    // "getExactNumberLiveData()" pour la valeur exacte).
+    public IntLiveData getNumberLiveData() {
         return numberLiveData;
     }
 
+    // Uniquement en mode EXACT
+    public LiveData<ExactNumber> getExactNumberLiveData() {
+        if (mode != Mode.EXACT) {
+            throw new IllegalStateException("The number of an INT NumberRepository is exposed by getNumberLiveData()");
+        }
+
+        return exactNumberLiveData;
+    }
+
+    // Le même nombre que "getNumberLiveData()" (borné lui aussi en mode EXACT), en StateFlow : jamais vide, et mis à jour depuis n'importe
+    // quel thread
+    @NonNull
+    public StateFlow<Integer> getNumberFlow() {
+        return numberFlow;
+    }
+
+    // Uniquement en mode EXACT
+    @NonNull
+    public StateFlow<ExactNumber> getExactNumberFlow() {
+        if (mode != Mode.EXACT) {
+            throw new IllegalStateException("The number of an INT NumberRepository is exposed by getNumberFlow()");
+        }
+
+        return exactNumberFlow;
+    }
+
+    @NonNull
+    public Mode getMode() {
+        return mode;
+    }
+
+    // Pour l'audit : toutes les opérations appliquées depuis la création du repository (null si le journal n'est pas activé)
+    @Nullable
+    public NumberOperationLog getOperationLog() {
+        return operationLog;
+    }
+
     // On peut avoir plusieurs méthodes publiques dans un Repository qui permettent de modifier la donnée ou d'accéder au(x) LiveData(s)
+    @AnyThread
     public void addToNumber(int toAdd) {
-        Integer previousValue = numberLiveData.getValue();
+        if (operationLog != null) {
+            synchronized (operationLog) {
+                operationLog.append(NumberOperationLog.OP_ADD, toAdd, true);
+                updateFromOperationLog();
+            }
+        } else if (mode == Mode.EXACT) {
+            ExactNumber previousValue;
 
-        if (previousValue == null) {
-            previousValue = 0;
+            do {
+                previousValue = exactNumber.get();
+            } while (!exactNumber.compareAndSet(previousValue, previousValue.plus(toAdd)));
+        } else {
+            number.addAndGet(toAdd);
         }
 
-        Integer newValue = previousValue + toAdd;
-
         // On change la valeur de la LiveData, cela va activer l'Observer qui regarde cette LiveData (comme dans le MainViewModel) et
         // provoquer l'appel de la méthode "combine" du MainViewModel avec les nouvelles valeurs
-        numberLiveData.setValue(newValue);
+        publish();
     }
 
+    @AnyThread
     public void multiplyNumber(int factor) {
-        Integer previousValue = numberLiveData.getValue();
+        if (operationLog != null) {
+            synchronized (operationLog) {
+                operationLog.append(NumberOperationLog.OP_MULTIPLY, factor, true);
+                updateFromOperationLog();
+            }
 
-        if (previousValue == null) {
-            previousValue = 0;
+            publish();
+            return;
         }
 
-        Integer newValue = previousValue * factor;
+        if (mode == Mode.EXACT) {
+            ExactNumber previousExactValue;
 
-        // On change la valeur de la LiveData, cela va activer l'Observer qui regarde cette LiveData (comme dans le MainViewModel) et
-        // provoquer l'appel de la méthode "combine" du MainViewModel avec les nouvelles valeurs
-        numberLiveData.setValue(newValue);
+            do {
+                previousExactValue = exactNumber.get();
+            } while (!exactNumber.compareAndSet(previousExactValue, previousExactValue.times(factor)));
+
+            publish();
+            return;
+        }
+
+        int previousValue;
+        int newValue;
+
+        // Boucle "compare and set" : si un autre thread a modifié le nombre entre notre lecture et notre écriture, on recommence
+        do {
+            previousValue = number.get();
+            newValue = previousValue * factor;
+        } while (!number.compareAndSet(previousValue, newValue));
+
+        publish();
+    }
+
+    // Applique toute une suite d'opérations en une seule fois, avec une seule émission de la LiveData (et donc un seul "combine" dans le
+    // MainViewModel), au lieu d'une émission par opération. Exemple :
+    // numberRepository.batch(operations -> operations.add(1).multiply(2).add(3));
+    @AnyThread
+    public void batch(@NonNull Batch batch) {
+        NumberOperations operations = new NumberOperations(mode == Mode.EXACT, operationLog != null);
+
+        batch.apply(operations);
+
+        if (operations.getOperationCount() == 0) {
+            return;
+        }
+
+        if (operationLog != null) {
+            synchronized (operationLog) {
+                operations.appendTo(operationLog);
+                updateFromOperationLog();
+            }
+
+            publish();
+            return;
+        }
+
+        if (mode == Mode.EXACT) {
+            ExactNumber previousExactValue;
+
+            do {
+                previousExactValue = exactNumber.get();
+            } while (!exactNumber.compareAndSet(previousExactValue, operations.applyTo(previousExactValue)));
+
+            publish();
+            return;
+        }
+
+        int previousValue;
+        int newValue;
+
+        do {
+            previousValue = number.get();
+            newValue = operations.applyTo(previousValue);
+        } while (!number.compareAndSet(previousValue, newValue));
+
+        publish();
+    }
+
+    // Redonne au nombre une valeur sauvegardée (dans le SavedStateHandle d'un ViewModel, après la mort du process), uniquement s'il n'a
+    // encore aucune valeur : une valeur restaurée depuis le fichier, ou déjà modifiée depuis, est plus récente. Renvoie vrai si la valeur a
+    // été prise en compte.
+    // Une modification faite depuis un autre thread n'est peut-être pas encore publiée dans la LiveData : c'est donc le journal (sous son
+    // verrou) ou la valeur atomique ("compare and set" depuis 0) qui décide. Seule une modification qui laisse le nombre à 0 ("+0", "x0")
+    // peut être remplacée, sans rien perdre.
+    @MainThread
+    public boolean restoreIfEmpty(@NonNull ExactNumber value) {
+        if (hasValue || (mode == Mode.INT && !value.isInt())) {
+            return false;
+        }
+
+        if (operationLog != null) {
+            synchronized (operationLog) {
+                if (!operationLog.resetInitialValue(value)) {
+                    return false;
+                }
+
+                updateFromOperationLog();
+            }
+        } else if (mode == Mode.EXACT) {
+            ExactNumber currentValue = exactNumber.get();
+
+            if (!currentValue.equals(ExactNumber.ZERO) || !exactNumber.compareAndSet(currentValue, value)) {
+                return false;
+            }
+        } else if (!number.compareAndSet(0, (int) value.longValue())) {
+            return false;
+        }
+
+        publish();
+
+        return true;
+    }
+
+    // Annule la dernière action (une opération, ou tout un "batch()") : une seule émission de la LiveData. Renvoie faux s'il n'y avait rien
+    // à annuler.
+    @AnyThread
+    public boolean undo() {
+        NumberOperationLog operationLog = requireOperationLog();
+
+        synchronized (operationLog) {
+            if (!operationLog.undo()) {
+                return false;
+            }
+
+            updateFromOperationLog();
+        }
+
+        publish();
+
+        return true;
+    }
+
+    // Rétablit la dernière action annulée : une seule émission de la LiveData. Renvoie faux s'il n'y avait rien à rétablir.
+    @AnyThread
+    public boolean redo() {
+        NumberOperationLog operationLog = requireOperationLog();
+
+        synchronized (operationLog) {
+            if (!operationLog.redo()) {
+                return false;
+            }
+
+            updateFromOperationLog();
+        }
+
+        publish();
+
+        return true;
+    }
+
+    @NonNull
+    private NumberOperationLog requireOperationLog() {
+        if (operationLog == null) {
+            throw new IllegalStateException("The operation log of this NumberRepository isn't enabled");
+        }
+
+        return operationLog;
+    }
+
+    // Appelé sous le verrou du journal : c'est lui qui a calculé la nouvelle valeur
+    private void updateFromOperationLog() {
+        //noinspection ConstantConditions : uniquement appelé quand le journal est activé
+        if (mode == Mode.EXACT) {
+            exactNumber.set(operationLog.getExactValue());
+        } else {
+            number.set(operationLog.getIntValue());
+        }
+    }
+
+    private void publish() {
+        hasValue = true;
+
+        // Le StateFlow n'a pas besoin du thread principal : il est mis à jour tout de suite, depuis ce thread
+        setFlowValue();
+
+        if (store != null) {
+            if (mode == Mode.INT) {
+                store.scheduleWrite(storeValueSource);
+            } else {
+                ExactNumber value = exactNumber.get();
+
+                // Le fichier ne contient qu'un int : en mode EXACT, un nombre trop grand n'est pas sauvegardé (on garde la dernière valeur
+                // qui tenait)
+                if (value.isInt()) {
+                    lastStorableExactValue = (int) value.longValue();
+                    store.scheduleWrite(storeValueSource);
+                }
+            }
+        }
+
+        //noinspection RestrictedApi
+        if (ArchTaskExecutor.getInstance().isMainThread()) {
+            // Depuis le thread principal, la LiveData est mise à jour immédiatement (comme avant)
+            setLiveDataValue();
+        } else if (isPublishPending.compareAndSet(false, true)) {
+            // Depuis un autre thread, on ne "poste" qu'une seule publication à la fois vers le thread principal : toutes les modifications
+            // faites d'ici là seront emportées par celle-ci. Le thread principal n'est donc jamais inondé, quel que soit le nombre de
+            // "producteurs".
+            if (Metrics.ENABLED) {
+                // Ecrit AVANT le "post" : le thread principal le lira forcément après
+                publishPostedNanos = System.nanoTime();
+            }
+
+            //noinspection RestrictedApi
+            ArchTaskExecutor.getInstance().postToMainThread(publishRunnable);
+        }
+    }
+
+    private void setLiveDataValue() {
+        if (mode == Mode.EXACT) {
+            ExactNumber value = exactNumber.get();
+
+            exactNumberLiveData.setValue(value);
+            numberLiveData.setValue(toSaturatedInt(value));
+        } else {
+            numberLiveData.setValue(number.get());
+        }
+    }
+
+    // Plusieurs threads peuvent publier en même temps : une simple écriture pourrait remplacer une valeur récente par une plus ancienne
+    // (lue avant la dernière modification). Un "compare and set" ne suffit pas : il compare les valeurs, et une valeur qui revient
+    // (4 -> 6 -> 4) laisse passer une valeur périmée. Les publications sont donc faites une à une : chacune lit la valeur sous le verrou,
+    // après toutes les modifications déjà publiées, et la dernière publication écrit toujours la dernière valeur.
+    private void setFlowValue() {
+        synchronized (flowLock) {
+            if (mode == Mode.EXACT) {
+                ExactNumber value = exactNumber.get();
+
+                exactNumberFlow.setValue(value);
+                numberFlow.setValue(toSaturatedInt(value));
+            } else {
+                numberFlow.setValue(number.get());
+            }
+        }
+    }
+
+    private static int toSaturatedInt(@NonNull ExactNumber value) {
+        if (value.isInt()) {
+            return (int) value.longValue();
+        }
+
+        return value.toBigInteger().signum() > 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+    }
+
+    public interface Batch {
+        void apply(@NonNull NumberOperations operations);
     }
 }
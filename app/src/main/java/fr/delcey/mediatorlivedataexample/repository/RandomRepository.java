@@ -1,36 +1,131 @@
 package fr.delcey.mediatorlivedataexample.repository;
 
-import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
-import java.util.Random;
+import fr.delcey.mediatorlivedataexample.livedata.IntLiveData;
+import fr.delcey.mediatorlivedataexample.livedata.MutableIntLiveData;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+import fr.delcey.mediatorlivedataexample.repository.random.RandomSource;
+import fr.delcey.mediatorlivedataexample.repository.random.ThreadLocalRandomSource;
+import kotlinx.coroutines.flow.MutableStateFlow;
+import kotlinx.coroutines.flow.StateFlow;
+import kotlinx.coroutines.flow.StateFlowKt;
 
 /**
  * Les repository servent à "stocker" ou "accéder" à la donnée. Ca peut être une donnée sur internet, en local,
  * en base de donnée, liée au téléphone (GPS ou Bluetooth par exemple), etc.
  *
- * Ici on gère juste une donnée "volatile" non persistée (au redémarrage de l'app les données seront perdues).
+ * Par défaut, on gère juste une donnée "volatile" non persistée (au redémarrage de l'app les données seront perdues). Avec un MappedIntStore,
+ * le dernier tirage est sauvegardé en arrière plan et restauré dès la création du repository.<br/>
+ *
+ * Les tirages sont faits par une RandomSource : par défaut ThreadLocalRandom, mais on peut par exemple donner une SeededRandomSource pour
+ * obtenir toujours la même suite de tirages.<br/>
+ *
+ * Le dernier tirage est aussi exposé en StateFlow (Kotlin), mis à jour en même temps que la LiveData.
  */
 public class RandomRepository {
 
-    private final MutableLiveData<Integer> randomNumberLiveData = new MutableLiveData<>();
+    // Bornes (incluses) des tirages
+    public static final int MIN_RANDOM_NUMBER = 1;
+    public static final int MAX_RANDOM_NUMBER = 10;
+
+    private final MutableIntLiveData randomNumberLiveData = new MutableIntLiveData();
+
+    // Toujours la même valeur que la LiveData
+    private final MutableStateFlow<Integer> randomNumberFlow;
+
+    @Nullable
+    private final MappedIntStore store;
+
+    @NonNull
+    private final RandomSource randomSource;
+
+    // Faux tant que le tirage est la valeur initiale (1) : ni restauré depuis le fichier, ni tiré
+    private boolean hasRolled;
+
+    private final MappedIntStore.ValueSource storeValueSource = new MappedIntStore.ValueSource() {
+        @Override
+        public int getValue() {
+            return randomNumberLiveData.getIntValue();
+        }
+    };
 
     public RandomRepository() {
-        // On peut donner une valeur initiale à la LiveData si besoin ou non (commenter la ligne)
-        randomNumberLiveData.setValue(1);
+        this(null);
+    }
+
+    public RandomRepository(@Nullable MappedIntStore store) {
+        this(store, new ThreadLocalRandomSource());
+    }
+
+    public RandomRepository(@Nullable MappedIntStore store, @NonNull RandomSource randomSource) {
+        this.store = store;
+        this.randomSource = randomSource;
+
+        if (Metrics.ENABLED) {
+            randomNumberLiveData.setEmissionMetrics(Metrics.emission("RandomRepository.randomNumber"));
+        }
+
+        if (store != null && store.hasRestoredValue() && isInRange(store.getRestoredValue())) {
+            // On reprend le dernier tirage sauvegardé (un fichier valide peut tout de même contenir une valeur hors des bornes : ignorée)
+            randomNumberLiveData.setValue(store.getRestoredValue());
+            hasRolled = true;
+        } else {
+            // On peut donner une valeur initiale à la LiveData si besoin ou non (commenter la ligne)
+            randomNumberLiveData.setValue(1);
+        }
+
+        randomNumberFlow = StateFlowKt.MutableStateFlow(randomNumberLiveData.getIntValue());
     }
 
     // On récupère la LiveData qui représente un nombre. Contrairement à l'autre repository, cette LiveData va avoir une valeur initiale
     // puisqu'elle est définie dans le constructeur avec "randomNumberLiveData.setValue(1)". Cela va tout de même provoquer la réaction de
     // l'Observer (dans le MainViewModel) dès qu'il va "commencer à la regarder" (lors du "addSource()")
-    public LiveData<Integer> getRandomNumberLiveData() {
+    public IntLiveData getRandomNumberLiveData() {
         return randomNumberLiveData;
     }
 
+    // Le même tirage que "getRandomNumberLiveData()", en StateFlow
+    @NonNull
+    public StateFlow<Integer> getRandomNumberFlow() {
+        return randomNumberFlow;
+    }
+
     // On donne une nouvelle valeur à la LiveData. Cela va activer l'Observer qui regarde cette LiveData (comme dans le MainViewModel) et
     // provoquer l'appel de la méthode "combine" du MainViewModel avec les nouvelles valeurs
     public void rollNewRandom() {
         // 1 - 10 (inclus)
-        randomNumberLiveData.setValue(new Random().nextInt(10)+ 1);
+        randomNumberLiveData.setValue(randomSource.nextInt(MAX_RANDOM_NUMBER - MIN_RANDOM_NUMBER + 1) + MIN_RANDOM_NUMBER);
+        randomNumberFlow.setValue(randomNumberLiveData.getIntValue());
+        hasRolled = true;
+
+        if (store != null) {
+            store.scheduleWrite(storeValueSource);
+        }
+    }
+
+    // Redonne un tirage sauvegardé (dans le SavedStateHandle d'un ViewModel, après la mort du process), uniquement si aucun tirage n'a été
+    // fait ou restauré depuis le fichier. Renvoie vrai si le tirage a été pris en compte.
+    @MainThread
+    public boolean restoreIfEmpty(int randomNumber) {
+        if (hasRolled || !isInRange(randomNumber)) {
+            return false;
+        }
+
+        randomNumberLiveData.setValue(randomNumber);
+        randomNumberFlow.setValue(randomNumber);
+        hasRolled = true;
+
+        if (store != null) {
+            store.scheduleWrite(storeValueSource);
+        }
+
+        return true;
+    }
+
+    private static boolean isInRange(int randomNumber) {
+        return randomNumber >= MIN_RANDOM_NUMBER && randomNumber <= MAX_RANDOM_NUMBER;
     }
 }
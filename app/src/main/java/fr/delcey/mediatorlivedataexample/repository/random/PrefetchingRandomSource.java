@@ -0,0 +1,53 @@
+package fr.delcey.mediatorlivedataexample.repository.random;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Pré-calcule les tirages par lots dans un "ring buffer" : un tirage ne coûte plus qu'une lecture dans un tableau, et le coût de la source
+ * sous-jacente est payé une fois par lot, dans une boucle très simple à optimiser pour le JIT.<br/>
+ *
+ * Les tirages sont pré-calculés pour une borne donnée : si la borne change, le lot en cours est jeté et un nouveau lot est tiré. N'est PAS
+ * thread-safe (comme le RandomRepository, qui ne tire que depuis le thread principal).
+ */
+public class PrefetchingRandomSource implements RandomSource {
+
+    @NonNull
+    private final RandomSource delegate;
+
+    @NonNull
+    private final int[] rolls;
+
+    // Position du prochain tirage à lire dans "rolls"
+    private int position;
+    private int bound;
+
+    public PrefetchingRandomSource(@NonNull RandomSource delegate, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive, got " + batchSize);
+        }
+
+        this.delegate = delegate;
+
+        rolls = new int[batchSize];
+        position = batchSize;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound != this.bound || position == rolls.length) {
+            refill(bound);
+        }
+
+        return rolls[position++];
+    }
+
+    private void refill(int bound) {
+        this.bound = bound;
+
+        for (int i = 0; i < rolls.length; i++) {
+            rolls[i] = delegate.nextInt(bound);
+        }
+
+        position = 0;
+    }
+}
@@ -0,0 +1,12 @@
+package fr.delcey.mediatorlivedataexample.repository.random;
+
+/**
+ * Stratégie de tirage aléatoire utilisée par le RandomRepository. On peut ainsi choisir entre la performance (ThreadLocalRandomSource,
+ * SplittableRandomSource), la reproductibilité (SeededRandomSource, pour rejouer une session ou écrire des tests) ou le pré-calcul
+ * (PrefetchingRandomSource).
+ */
+public interface RandomSource {
+
+    // Renvoie un nombre entre 0 (inclus) et "bound" (exclus)
+    int nextInt(int bound);
+}
@@ -0,0 +1,48 @@
+package fr.delcey.mediatorlivedataexample.repository.random;
+
+/**
+ * Générateur déterministe : avec la même graine, on obtient toujours la même suite de tirages, sur n'importe quel appareil. Pratique pour
+ * rejouer une session ou écrire des tests. N'est PAS thread-safe.<br/>
+ *
+ * L'algorithme est "SplitMix64" (le même que SplittableRandom), écrit ici pour ne pas dépendre de l'API 24 ni de l'implémentation de la JVM.
+ */
+public class SeededRandomSource implements RandomSource {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SeededRandomSource(long seed) {
+        state = seed;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive, got " + bound);
+        }
+
+        // Méthode de Lemire : multiplication 32 x 32 -> 64 bits au lieu d'un modulo, en rejetant les quelques valeurs qui biaiseraient la
+        // distribution
+        long product = (nextInt() & 0xFFFFFFFFL) * bound;
+        long low = product & 0xFFFFFFFFL;
+
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+
+            while (low < threshold) {
+                product = (nextInt() & 0xFFFFFFFFL) * bound;
+                low = product & 0xFFFFFFFFL;
+            }
+        }
+
+        return (int) (product >>> 32);
+    }
+
+    private int nextInt() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 33)) * 0x62A9D9ED799705F5L;
+
+        return (int) (((z ^ (z >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
+    }
+}
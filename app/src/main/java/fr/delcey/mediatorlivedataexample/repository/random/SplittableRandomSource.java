@@ -0,0 +1,36 @@
+package fr.delcey.mediatorlivedataexample.repository.random;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.util.SplittableRandom;
+
+/**
+ * Réutilise une seule instance de SplittableRandom (disponible à partir d'Android 7.0 / API 24). Elle n'est PAS thread-safe : chaque
+ * thread doit avoir sa propre source, obtenue avec "split()".
+ */
+@RequiresApi(24)
+public class SplittableRandomSource implements RandomSource {
+
+    @NonNull
+    private final SplittableRandom splittableRandom;
+
+    public SplittableRandomSource() {
+        this(new SplittableRandom());
+    }
+
+    private SplittableRandomSource(@NonNull SplittableRandom splittableRandom) {
+        this.splittableRandom = splittableRandom;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return splittableRandom.nextInt(bound);
+    }
+
+    // Nouvelle source indépendante, à donner à un autre thread
+    @NonNull
+    public SplittableRandomSource split() {
+        return new SplittableRandomSource(splittableRandom.split());
+    }
+}
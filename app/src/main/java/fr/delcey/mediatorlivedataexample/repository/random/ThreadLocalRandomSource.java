@@ -0,0 +1,18 @@
+package fr.delcey.mediatorlivedataexample.repository.random;
+
+import androidx.annotation.AnyThread;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Utilise le ThreadLocalRandom du thread appelant : aucune allocation et aucun état partagé entre les threads (contrairement à
+ * "new Random()", dont chaque création lit et modifie une graine globale). C'est la stratégie par défaut.
+ */
+public class ThreadLocalRandomSource implements RandomSource {
+
+    @AnyThread
+    @Override
+    public int nextInt(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+}
@@ -0,0 +1,177 @@
+package fr.delcey.mediatorlivedataexample.text;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.concurrent.Executor;
+
+import fr.delcey.mediatorlivedataexample.metrics.LatencyHistogram;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+
+/**
+ * Un "setText()" mesure et découpe le texte en lignes (le "layout") sur le thread principal : pour une phrase de plusieurs lignes, c'est
+ * l'essentiel du coût d'une émission. Sur le modèle du HistoryDiffer, les textes sont soumis depuis le thread principal, "pré-calculés" sur
+ * un Executor en arrière plan (avec PrecomputedTextCompat dans la MainActivity), puis seul le résultat, déjà mesuré, est donné à la View
+ * sur le thread principal.<br/>
+ *
+ * Si un nouveau texte est soumis avant la fin d'un calcul, le résultat de ce calcul est ignoré, et les textes qui attendaient encore leur
+ * tour ne sont même pas calculés : seul le dernier texte est affiché. Un texte identique au dernier texte soumis est ignoré.<br/>
+ *
+ * Quand la View n'affiche encore rien (premier affichage, ViewState restauré après la mort du process), "submitNow()" calcule le texte
+ * immédiatement, sur le thread principal : il est affiché dès la première frame.<br/>
+ *
+ * Une fois la View détruite (rotation, fermeture de l'écran), "release()" : les calculs en cours ne lui sont jamais appliqués.<br/>
+ *
+ * En debug (voir Metrics), "name.precomputeDuration" est le temps de calcul retiré du thread principal à chaque émission, et
+ * "name.applyDuration" le temps qui y reste.
+ */
+public class TextPrecomputer<T> {
+
+    @NonNull
+    private final Precomputation<T> precomputation;
+    @NonNull
+    private final Callback<T> callback;
+    @NonNull
+    private final Executor backgroundExecutor;
+    @NonNull
+    private final Executor mainThreadExecutor;
+
+    @Nullable
+    private final LatencyHistogram precomputeDuration;
+    @Nullable
+    private final LatencyHistogram applyDuration;
+
+    @Nullable
+    private String lastSubmittedText;
+
+    // Numéro du dernier texte soumis : seul le résultat qui lui correspond sera appliqué. Lu en arrière plan pour ne pas calculer un texte
+    // déjà périmé.
+    private volatile int maxScheduledGeneration;
+
+    private boolean isReleased;
+
+    private long precomputeCount;
+    private long applyCount;
+
+    public TextPrecomputer(
+        @NonNull String name,
+        @NonNull Precomputation<T> precomputation,
+        @NonNull Callback<T> callback,
+        @NonNull Executor backgroundExecutor,
+        @NonNull Executor mainThreadExecutor
+    ) {
+        this.precomputation = precomputation;
+        this.callback = callback;
+        this.backgroundExecutor = backgroundExecutor;
+        this.mainThreadExecutor = mainThreadExecutor;
+
+        if (Metrics.ENABLED) {
+            precomputeDuration = Metrics.histogram(name + ".precomputeDuration");
+            applyDuration = Metrics.histogram(name + ".applyDuration");
+        } else {
+            precomputeDuration = null;
+            applyDuration = null;
+        }
+    }
+
+    @MainThread
+    public void submit(@NonNull final String text) {
+        if (isReleased || text.equals(lastSubmittedText)) {
+            return;
+        }
+
+        lastSubmittedText = text;
+
+        final int generation = ++maxScheduledGeneration;
+
+        backgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Un texte plus récent a déjà été soumis : inutile de calculer celui-ci
+                if (generation != maxScheduledGeneration) {
+                    return;
+                }
+
+                long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+
+                final T precomputedText = precomputation.precompute(text);
+
+                if (Metrics.ENABLED && precomputeDuration != null) {
+                    precomputeDuration.record(System.nanoTime() - startNanos);
+                }
+
+                mainThreadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        precomputeCount++;
+
+                        if (generation == maxScheduledGeneration) {
+                            apply(precomputedText);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    // Calcule et applique le texte tout de suite, sur le thread principal : les calculs encore en cours sont ignorés
+    @MainThread
+    public void submitNow(@NonNull String text) {
+        if (isReleased || text.equals(lastSubmittedText)) {
+            return;
+        }
+
+        lastSubmittedText = text;
+        maxScheduledGeneration++;
+
+        T precomputedText = precomputation.precompute(text);
+        precomputeCount++;
+
+        apply(precomputedText);
+    }
+
+    // Les résultats encore en cours de calcul sont ignorés, et les textes soumis ensuite aussi
+    @MainThread
+    public void release() {
+        isReleased = true;
+        lastSubmittedText = null;
+        maxScheduledGeneration++;
+    }
+
+    // Nombre de textes pré-calculés, et nombre de textes réellement donnés à la View
+    @MainThread
+    public long getPrecomputeCount() {
+        return precomputeCount;
+    }
+
+    @MainThread
+    public long getApplyCount() {
+        return applyCount;
+    }
+
+    @MainThread
+    private void apply(@NonNull T precomputedText) {
+        long startNanos = Metrics.ENABLED ? System.nanoTime() : 0;
+
+        callback.onPrecomputed(precomputedText);
+        applyCount++;
+
+        if (Metrics.ENABLED && applyDuration != null) {
+            applyDuration.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public interface Precomputation<T> {
+        // Mesure et découpage en lignes du texte, avec les paramètres (police, taille, largeur, etc...) de la View qui l'affichera
+        @WorkerThread
+        @NonNull
+        T precompute(@NonNull String text);
+    }
+
+    public interface Callback<T> {
+        @MainThread
+        void onPrecomputed(@NonNull T precomputedText);
+    }
+}
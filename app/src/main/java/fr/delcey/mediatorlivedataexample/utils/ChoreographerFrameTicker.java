@@ -0,0 +1,25 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import android.view.Choreographer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+/**
+ * Implémentation Android du FrameTicker : le travail est exécuté juste avant le dessin de la prochaine frame, sur le thread principal.
+ */
+public class ChoreographerFrameTicker implements FrameTicker {
+
+    @MainThread
+    @Override
+    public void scheduleFrame(@NonNull Runnable onFrame) {
+        // Le Choreographer est lié au Looper du thread appelant : on le récupère à chaque fois plutôt que de le garder en propriété, pour
+        // pouvoir créer ce FrameTicker depuis n'importe quel thread (la ViewModelFactory par exemple)
+        Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                onFrame.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,16 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Un "FrameTicker" permet de repousser un travail au prochain "tick" : la prochaine frame sur Android (Choreographer) ou la prochaine
+ * échéance d'une horloge configurable sur la JVM.<br/>
+ *
+ * Le "onFrame" doit être exécuté sur le thread principal (ou ce qui le remplace dans les tests unitaires, cf InstantTaskExecutorRule)
+ * puisqu'il va généralement faire un "setValue()" sur une LiveData.
+ */
+public interface FrameTicker {
+
+    // C'est à l'appelant de ne pas demander plusieurs fois une frame avant qu'elle soit exécutée (grâce à un flag "dirty" par exemple)
+    void scheduleFrame(@NonNull Runnable onFrame);
+}
@@ -0,0 +1,34 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implémentation JVM du FrameTicker (pas de Choreographer en dehors d'Android) : les "frames" tombent à intervalle régulier, tous les
+ * "tickPeriodMillis", sur le ScheduledExecutorService fourni.
+ */
+public class PeriodicFrameTicker implements FrameTicker {
+
+    @NonNull
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final long tickPeriodMillis;
+
+    public PeriodicFrameTicker(@NonNull ScheduledExecutorService scheduledExecutorService, long tickPeriodMillis) {
+        if (tickPeriodMillis <= 0) {
+            throw new IllegalArgumentException("tickPeriodMillis must be positive, was " + tickPeriodMillis);
+        }
+
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.tickPeriodMillis = tickPeriodMillis;
+    }
+
+    @Override
+    public void scheduleFrame(@NonNull Runnable onFrame) {
+        // On s'aligne sur le prochain "tick" de l'horloge (comme une vraie frame), pas "maintenant + période"
+        long delayMillis = tickPeriodMillis - (System.currentTimeMillis() % tickPeriodMillis);
+
+        scheduledExecutorService.schedule(onFrame, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
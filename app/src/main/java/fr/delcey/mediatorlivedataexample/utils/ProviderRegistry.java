@@ -0,0 +1,121 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre de dépendances "paresseuses" : on enregistre pour chaque type une façon de le construire (un Provider), mais rien n'est construit
+ * avant la première demande. Les dépendances dont aucun écran n'a besoin ne sont donc jamais construites, et leur coût n'est plus payé
+ * avant la première frame.<br/>
+ *
+ * Avec "registerSingleton()", l'instance est ensuite réutilisée (les repositories). Avec "registerFactory()", une nouvelle instance est
+ * construite à chaque demande (les ViewModels, dont le cycle de vie est géré par le ViewModelProvider).<br/>
+ *
+ * Thread-safe : deux threads qui demandent le même type en même temps obtiennent la même instance, construite une seule fois. Chaque
+ * construction est chronométrée dans les StartupTimings.
+ */
+public class ProviderRegistry {
+
+    @NonNull
+    private final ConcurrentHashMap<Class<?>, Binding<?>> bindings = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final StartupTimings startupTimings;
+
+    public ProviderRegistry(@NonNull StartupTimings startupTimings) {
+        this.startupTimings = startupTimings;
+    }
+
+    public <T> void registerSingleton(@NonNull Class<T> type, @NonNull Provider<? extends T> provider) {
+        register(type, new Binding<>(type, provider, true));
+    }
+
+    public <T> void registerFactory(@NonNull Class<T> type, @NonNull Provider<? extends T> provider) {
+        register(type, new Binding<>(type, provider, false));
+    }
+
+    public boolean isRegistered(@NonNull Class<?> type) {
+        return bindings.containsKey(type);
+    }
+
+    // Vrai si un singleton a déjà été construit (utile pour vérifier qu'une dépendance n'est pas créée trop tôt)
+    public boolean isCreated(@NonNull Class<?> type) {
+        Binding<?> binding = bindings.get(type);
+
+        return binding != null && binding.instance != null;
+    }
+
+    // Une simple recherche dans une Map : aucune réflexion, aucune chaîne de "isAssignableFrom()"
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public <T> T get(@NonNull Class<T> type) {
+        Binding<?> binding = bindings.get(type);
+
+        if (binding == null) {
+            throw new IllegalArgumentException("No provider registered for " + type.getName());
+        }
+
+        return (T) binding.get();
+    }
+
+    private void register(@NonNull Class<?> type, @NonNull Binding<?> binding) {
+        if (bindings.putIfAbsent(type, binding) != null) {
+            throw new IllegalStateException(type.getSimpleName() + " is already registered");
+        }
+    }
+
+    public interface Provider<T> {
+        @NonNull
+        T get();
+    }
+
+    private class Binding<T> {
+
+        @NonNull
+        private final Class<T> type;
+        @NonNull
+        private final Provider<? extends T> provider;
+        private final boolean isSingleton;
+
+        private volatile T instance;
+
+        Binding(@NonNull Class<T> type, @NonNull Provider<? extends T> provider, boolean isSingleton) {
+            this.type = type;
+            this.provider = provider;
+            this.isSingleton = isSingleton;
+        }
+
+        @NonNull
+        T get() {
+            if (!isSingleton) {
+                return create();
+            }
+
+            // "Double-checked locking" : une fois l'instance créée, plus aucun verrou n'est pris
+            T result = instance;
+
+            if (result == null) {
+                synchronized (this) {
+                    result = instance;
+
+                    if (result == null) {
+                        result = create();
+                        instance = result;
+                    }
+                }
+            }
+
+            return result;
+        }
+
+        @NonNull
+        private T create() {
+            long startNanos = System.nanoTime();
+            T result = provider.get();
+            startupTimings.record(type.getSimpleName(), startNanos, System.nanoTime());
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enregistre le temps de construction de chaque dépendance (repository, ViewModel, etc...) pour connaitre le coût de chacune au démarrage
+ * de l'application. Thread-safe : les dépendances peuvent être construites depuis n'importe quel thread.
+ */
+public class StartupTimings {
+
+    private final long startNanos = System.nanoTime();
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    public synchronized void record(@NonNull String name, long startNanos, long endNanos) {
+        entries.add(new Entry(name, startNanos, endNanos));
+    }
+
+    // Exemple :
+    // NumberRepository : 1.234 ms (à 12.345 ms du démarrage)
+    @NonNull
+    public synchronized String getDebugReport() {
+        StringBuilder report = new StringBuilder("Startup timings (").append(entries.size()).append(" dependencies)");
+
+        for (Entry entry : entries) {
+            report.append('\n')
+                .append(entry.name)
+                .append(" : ")
+                .append(toMillis(entry.endNanos - entry.startNanos))
+                .append(" ms (à ")
+                .append(toMillis(entry.startNanos - startNanos))
+                .append(" ms du démarrage)");
+        }
+
+        return report.toString();
+    }
+
+    @NonNull
+    private static String toMillis(long nanos) {
+        // Millisecondes, puis les microsecondes sur 3 chiffres (1_005_000 ns -> "1.005")
+        long micros = nanos / 1_000 % 1_000;
+
+        return String.valueOf(nanos / 1_000_000) + '.' + (micros / 100) + (micros / 10 % 10) + (micros % 10);
+    }
+
+    private static class Entry {
+
+        @NonNull
+        private final String name;
+        private final long startNanos;
+        private final long endNanos;
+
+        Entry(@NonNull String name, long startNanos, long endNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.repository.KeyedCounterRepository;
+import fr.delcey.mediatorlivedataexample.repository.random.SeededRandomSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class KeyedMainViewModelTest {
+
+    private static final int KEY_COUNT = 10_000;
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    private KeyedCounterRepository keyedCounterRepository;
+    private KeyedMainViewModel keyedMainViewModel;
+
+    @Before
+    public void setUp() {
+        keyedCounterRepository = new KeyedCounterRepository(KEY_COUNT, new SeededRandomSource(0));
+        keyedMainViewModel = new KeyedMainViewModel(keyedCounterRepository);
+    }
+
+    @Test
+    public void nominal_case() {
+        // When
+        List<List<MainViewState>> emittedPages = observeForever(keyedMainViewModel.getPageLiveData(1));
+
+        // Then
+        assertEquals(200, keyedMainViewModel.getPageCount());
+        assertEquals(1, emittedPages.size());
+        assertEquals(KeyedMainViewModel.PAGE_SIZE, emittedPages.get(0).size());
+        assertEquals(new MainViewState("0", "Le nombre 0 est pair, le nombre aléatoire est 1"), emittedPages.get(0).get(0));
+        // Seule la page observée est calculée
+        assertEquals(KeyedMainViewModel.PAGE_SIZE, keyedMainViewModel.getCombineCount());
+    }
+
+    @Test
+    public void when_oneKeyChanges_should_recomputeOnlyThisKey() {
+        // Given
+        List<List<MainViewState>> emittedPages = observeForever(keyedMainViewModel.getPageLiveData(1));
+        long combineCountBefore = keyedMainViewModel.getCombineCount();
+
+        // When
+        keyedMainViewModel.onAddButtonClicked(KeyedMainViewModel.PAGE_SIZE + 3);
+
+        // Then
+        assertEquals(combineCountBefore + 1, keyedMainViewModel.getCombineCount());
+        assertEquals(2, emittedPages.size());
+
+        List<MainViewState> previousPage = emittedPages.get(0);
+        List<MainViewState> newPage = emittedPages.get(1);
+        assertEquals(new MainViewState("1", "Le nombre 1 est impair, le nombre aléatoire est 1"), newPage.get(3));
+        assertNotSame(previousPage.get(3), newPage.get(3));
+        // Les autres lignes gardent la même instance : "==" suffit pour trouver la ligne modifiée
+        for (int i = 0; i < newPage.size(); i++) {
+            if (i != 3) {
+                assertSame(previousPage.get(i), newPage.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void when_unobservedKeysChange_should_notCompute() {
+        // Given
+        List<List<MainViewState>> emittedPages = observeForever(keyedMainViewModel.getPageLiveData(0));
+        long combineCountBefore = keyedMainViewModel.getCombineCount();
+
+        // When
+        for (int key = KeyedMainViewModel.PAGE_SIZE; key < KEY_COUNT; key++) {
+            keyedMainViewModel.onAddButtonClicked(key);
+        }
+
+        // Then
+        assertEquals(combineCountBefore, keyedMainViewModel.getCombineCount());
+        assertEquals(1, emittedPages.size());
+    }
+
+    @Test
+    public void when_pageIsObservedAfterChanges_should_emitUpToDateValues() {
+        // Given
+        keyedMainViewModel.onAddButtonClicked(KEY_COUNT - 1);
+        keyedMainViewModel.onMultiplyButtonClicked(KEY_COUNT - 1);
+
+        // When
+        List<List<MainViewState>> emittedPages = observeForever(keyedMainViewModel.getPageLiveData(keyedMainViewModel.getPageCount() - 1));
+
+        // Then
+        List<MainViewState> page = emittedPages.get(0);
+        assertEquals(new MainViewState("2", "Le nombre 2 est pair, le nombre aléatoire est 1"), page.get(page.size() - 1));
+    }
+
+    @Test
+    public void perKeyLiveData_should_emitOnlyForItsKey() {
+        // Given
+        List<MainViewState> emittedViewStates = observeForever(keyedMainViewModel.getViewStateLiveData(42));
+
+        // When
+        keyedMainViewModel.onAddButtonClicked(41);
+        keyedMainViewModel.onAddButtonClicked(42);
+        keyedMainViewModel.onAddButtonClicked(42);
+
+        // Then
+        assertEquals(3, emittedViewStates.size());
+        assertEquals(new MainViewState("2", "Le nombre 2 est pair, le nombre aléatoire est 1"), emittedViewStates.get(2));
+    }
+
+    @Test
+    public void randomRoll_should_updateOnlyItsKey() {
+        // Given
+        List<List<MainViewState>> emittedPages = observeForever(keyedMainViewModel.getPageLiveData(0));
+        keyedMainViewModel.onAddButtonClicked(7);
+
+        // When
+        keyedMainViewModel.onRandomButtonClicked(7);
+
+        // Then
+        int randomNumber = keyedCounterRepository.getRandomNumber(7);
+        List<MainViewState> lastPage = emittedPages.get(emittedPages.size() - 1);
+        assertEquals(
+            new MainViewState(String.valueOf(randomNumber), "Le nombre " + randomNumber + " est " + (randomNumber % 2 == 0 ? "pair" : "impair") + ", le nombre aléatoire est " + randomNumber),
+            lastPage.get(7)
+        );
+        assertEquals(0, keyedCounterRepository.getDirtyKeyCount());
+    }
+
+    private static <T> List<T> observeForever(LiveData<T> liveData) {
+        List<T> emittedValues = new ArrayList<>();
+
+        liveData.observeForever(emittedValues::add);
+
+        return emittedValues;
+    }
+}
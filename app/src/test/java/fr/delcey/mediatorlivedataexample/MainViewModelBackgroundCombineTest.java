@@ -0,0 +1,117 @@
+package fr.delcey.mediatorlivedataexample;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.utils.MainThreadQueueRule;
+import fr.delcey.mediatorlivedataexample.utils.QueueExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class MainViewModelBackgroundCombineTest {
+
+    // Le thread du test est le thread principal, mais rien n'y est exécuté sans "getMainThreadQueue().runAll()"
+    @Rule
+    public final MainThreadQueueRule rule = new MainThreadQueueRule();
+
+    // Remplace le thread de calcul : c'est le test qui décide quand les "combine()" sont faits
+    private final QueueExecutor combineExecutor = new QueueExecutor();
+
+    private final List<MainViewState> emittedViewStates = new ArrayList<>();
+
+    private NumberRepository numberRepository;
+    private MainViewModel mainViewModel;
+
+    @Before
+    public void setUp() {
+        numberRepository = new NumberRepository();
+        mainViewModel = new MainViewModel(numberRepository, new RandomRepository(), null, combineExecutor, rule.getMainThreadQueue());
+        mainViewModel.getViewStateLiveData().observeForever(emittedViewStates::add);
+    }
+
+    @Test
+    public void combine_should_runOnCombineExecutor_andEmitOnMainThreadOnly() {
+        // When
+        numberRepository.addToNumber(1);
+
+        // Then : rien n'est calculé sur le thread principal
+        assertEquals(0, mainViewModel.getCombineCount());
+        assertEquals(1, combineExecutor.getPendingTaskCount());
+
+        // When
+        combineExecutor.runAll();
+
+        // Then : le ViewState est calculé, mais pas encore émis
+        assertEquals(1, mainViewModel.getCombineCount());
+        assertNull(mainViewModel.getViewStateLiveData().getValue());
+        assertEquals(0, emittedViewStates.size());
+
+        // When
+        rule.getMainThreadQueue().runAll();
+
+        // Then
+        assertEquals(1, emittedViewStates.size());
+        assertEquals(new MainViewState("1", "Le nombre 1 est impair, le nombre aléatoire est 1"), emittedViewStates.get(0));
+    }
+
+    @Test
+    public void burst_should_onlyCombineLatestValues() {
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            numberRepository.addToNumber(1);
+        }
+        combineExecutor.runAll();
+        rule.getMainThreadQueue().runAll();
+
+        // Then : un seul calcul pour 1 001 changements des sources, avec les dernières valeurs
+        assertEquals(1_001, mainViewModel.getSourceChangeCount());
+        assertEquals(1, mainViewModel.getCombineCount());
+        assertEquals(1, emittedViewStates.size());
+        assertEquals(new MainViewState("1000", "Le nombre 1000 est pair, le nombre aléatoire est 1"), emittedViewStates.get(0));
+    }
+
+    @Test
+    public void staleResult_should_neverBeEmitted() {
+        // Given : un premier calcul est terminé mais pas encore livré au thread principal
+        numberRepository.addToNumber(1);
+        combineExecutor.runAll();
+
+        // When : le nombre change, et le 2ème calcul se termine avant que le thread principal ne reçoive le 1er résultat
+        numberRepository.addToNumber(1);
+        combineExecutor.runAll();
+        rule.getMainThreadQueue().runAll();
+
+        // Then : le 1er ViewState, déjà périmé, n'est jamais affiché
+        assertEquals(2, mainViewModel.getCombineCount());
+        assertEquals(1, emittedViewStates.size());
+        assertEquals(new MainViewState("2", "Le nombre 2 est pair, le nombre aléatoire est 1"), emittedViewStates.get(0));
+    }
+
+    @Test
+    public void history_should_onlyContainEmittedViewStates() {
+        // Given
+        numberRepository.addToNumber(1);
+        combineExecutor.runAll();
+        rule.getMainThreadQueue().runAll();
+
+        // When
+        numberRepository.addToNumber(1);
+        numberRepository.addToNumber(1);
+        combineExecutor.runAll();
+        rule.getMainThreadQueue().runAll();
+
+        // Then : le ViewState intermédiaire ("2") n'a jamais été calculé, il n'est donc pas dans l'historique
+        assertNotNull(mainViewModel.getHistoryLiveData().getValue());
+        assertEquals(2, mainViewModel.getHistoryLiveData().getValue().size());
+        assertEquals("1", mainViewModel.getHistoryLiveData().getValue().get(0).getNumberToDisplay());
+        assertEquals("3", mainViewModel.getHistoryLiveData().getValue().get(1).getNumberToDisplay());
+    }
+}
@@ -0,0 +1,158 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Observer;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.utils.FrameTicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// "Harnais" de test du mode "coalescing" du MainViewModel : on compte les appels à combine() et les ViewStates économisés lors d'une rafale
+public class MainViewModelCoalescingTest {
+
+    private static final int BURST_SIZE = 10_000;
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    @Test
+    public void when_burstOfAddsDuringOneFrame_should_combineOnce() {
+        // Given
+        ManualFrameTicker frameTicker = new ManualFrameTicker();
+        NumberRepository numberRepository = new NumberRepository();
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, new RandomRepository(), frameTicker);
+        List<MainViewState> emittedViewStates = observeForever(mainViewModel);
+
+        // When
+        for (int i = 0; i < BURST_SIZE; i++) {
+            numberRepository.addToNumber(1);
+        }
+        frameTicker.tick();
+
+        // Then
+        assertEquals(1, mainViewModel.getCombineCount());
+        assertEquals(1, emittedViewStates.size());
+        assertEquals(String.valueOf(BURST_SIZE), emittedViewStates.get(0).getNumberToDisplay());
+        // Le "+1" correspond à l'émission de la valeur initiale du RandomRepository lors du "addSource()"
+        assertEquals(BURST_SIZE + 1, mainViewModel.getSourceChangeCount());
+    }
+
+    @Test
+    public void when_sourcesChangeOnSeveralFrames_should_combineOncePerFrame() {
+        // Given
+        ManualFrameTicker frameTicker = new ManualFrameTicker();
+        NumberRepository numberRepository = new NumberRepository();
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, new RandomRepository(), frameTicker);
+        List<MainViewState> emittedViewStates = observeForever(mainViewModel);
+
+        // When
+        numberRepository.addToNumber(1);
+        numberRepository.addToNumber(1);
+        frameTicker.tick();
+        frameTicker.tick(); // Aucune source n'a changé : rien à recalculer
+        numberRepository.multiplyNumber(2);
+        frameTicker.tick();
+
+        // Then
+        assertEquals(2, mainViewModel.getCombineCount());
+        assertEquals(2, emittedViewStates.size());
+        assertEquals("2", emittedViewStates.get(0).getNumberToDisplay());
+        assertEquals("4", emittedViewStates.get(1).getNumberToDisplay());
+    }
+
+    @Test
+    public void coalescing_should_saveCombinesAndAllocations() {
+        // Given
+        NumberRepository immediateNumberRepository = new NumberRepository();
+        MainViewModel immediateViewModel = new MainViewModel(immediateNumberRepository, new RandomRepository());
+        observeForever(immediateViewModel);
+
+        ManualFrameTicker frameTicker = new ManualFrameTicker();
+        NumberRepository coalescingNumberRepository = new NumberRepository();
+        MainViewModel coalescingViewModel = new MainViewModel(coalescingNumberRepository, new RandomRepository(), frameTicker);
+        observeForever(coalescingViewModel);
+
+        // When
+        long immediateAllocatedBytes = getAllocatedBytes();
+        for (int i = 0; i < BURST_SIZE; i++) {
+            immediateNumberRepository.addToNumber(1);
+        }
+        immediateAllocatedBytes = getAllocatedBytes() - immediateAllocatedBytes;
+
+        long coalescingAllocatedBytes = getAllocatedBytes();
+        for (int i = 0; i < BURST_SIZE; i++) {
+            coalescingNumberRepository.addToNumber(1);
+        }
+        frameTicker.tick();
+        coalescingAllocatedBytes = getAllocatedBytes() - coalescingAllocatedBytes;
+
+        // Then
+        long savedCombines = immediateViewModel.getCombineCount() - coalescingViewModel.getCombineCount();
+        System.out.println(
+            "Coalescing: " + savedCombines + " combine() (et donc MainViewState) économisés sur " + BURST_SIZE + " changements, "
+                + immediateAllocatedBytes + " octets alloués en mode immédiat contre " + coalescingAllocatedBytes + " en mode coalescing"
+        );
+
+        assertEquals(BURST_SIZE, immediateViewModel.getCombineCount());
+        assertEquals(1, coalescingViewModel.getCombineCount());
+        // Mesure non disponible sur toutes les JVM (dans ce cas, "getAllocatedBytes()" renvoie toujours -1)
+        if (immediateAllocatedBytes > 0) {
+            assertTrue(coalescingAllocatedBytes < immediateAllocatedBytes);
+        }
+    }
+
+    @NonNull
+    private static List<MainViewState> observeForever(@NonNull MainViewModel mainViewModel) {
+        List<MainViewState> emittedViewStates = new ArrayList<>();
+
+        mainViewModel.getViewStateLiveData().observeForever(new Observer<MainViewState>() {
+            @Override
+            public void onChanged(MainViewState mainViewState) {
+                emittedViewStates.add(mainViewState);
+            }
+        });
+
+        return emittedViewStates;
+    }
+
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    // FrameTicker "manuel" : la frame n'est exécutée que lorsque le test appelle "tick()"
+    private static class ManualFrameTicker implements FrameTicker {
+
+        private final List<Runnable> pendingFrames = new ArrayList<>();
+
+        @Override
+        public void scheduleFrame(@NonNull Runnable onFrame) {
+            pendingFrames.add(onFrame);
+        }
+
+        void tick() {
+            List<Runnable> frames = new ArrayList<>(pendingFrames);
+            pendingFrames.clear();
+
+            for (Runnable frame : frames) {
+                frame.run();
+            }
+        }
+    }
+}
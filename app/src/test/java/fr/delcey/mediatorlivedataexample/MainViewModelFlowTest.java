@@ -0,0 +1,184 @@
+package fr.delcey.mediatorlivedataexample;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.flow.Conflation;
+import fr.delcey.mediatorlivedataexample.flow.ViewStateFlows;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.repository.random.SeededRandomSource;
+import fr.delcey.mediatorlivedataexample.utils.MainThreadQueueRule;
+import kotlinx.coroutines.CoroutineScopeKt;
+import kotlinx.coroutines.Job;
+import kotlinx.coroutines.test.TestCoroutineDispatchersKt;
+import kotlinx.coroutines.test.TestCoroutineScheduler;
+import kotlinx.coroutines.test.TestDispatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MainViewModelFlowTest {
+
+    // Le thread du test est le thread principal : les LiveDatas des repositories restent utilisables
+    @Rule
+    public final MainThreadQueueRule rule = new MainThreadQueueRule();
+
+    // Rien n'est exécuté par les coroutines tant que le test n'appelle pas "scheduler.advanceUntilIdle()"
+    private final TestCoroutineScheduler scheduler = new TestCoroutineScheduler();
+    private final TestDispatcher dispatcher = TestCoroutineDispatchersKt.StandardTestDispatcher(scheduler, "combine");
+
+    private final List<MainViewState> collectedViewStates = new ArrayList<>();
+
+    private Job collectJob;
+
+    @After
+    public void tearDown() {
+        if (collectJob != null) {
+            collectJob.cancel(null);
+        }
+    }
+
+    @Test
+    public void collect_should_emitInitialViewState() {
+        // Given
+        MainViewModel mainViewModel = new MainViewModel(new NumberRepository(), new RandomRepository());
+
+        // When
+        collect(mainViewModel, Conflation.BUFFER);
+
+        // Then
+        // Contrairement à la LiveData, les StateFlows ont toujours une valeur : le ViewState est là avant le premier clic
+        assertEquals(1, collectedViewStates.size());
+        assertEquals(
+            new MainViewState(
+                "0",
+                "Le nombre 0 est pair, le nombre aléatoire est 1"
+            ),
+            collectedViewStates.get(0)
+        );
+    }
+
+    @Test
+    public void when_addButtonClickedTwice_should_emitEachViewState() {
+        // Given
+        MainViewModel mainViewModel = new MainViewModel(new NumberRepository(), new RandomRepository());
+        collect(mainViewModel, Conflation.BUFFER);
+
+        // When
+        mainViewModel.onAddButtonClicked();
+        scheduler.advanceUntilIdle();
+        mainViewModel.onAddButtonClicked();
+        scheduler.advanceUntilIdle();
+
+        // Then
+        assertEquals(3, collectedViewStates.size());
+        assertEquals(
+            new MainViewState(
+                "1",
+                "Le nombre 1 est impair, le nombre aléatoire est 1"
+            ),
+            collectedViewStates.get(1)
+        );
+        assertEquals(
+            new MainViewState(
+                "2",
+                "Le nombre 2 est pair, le nombre aléatoire est 1"
+            ),
+            collectedViewStates.get(2)
+        );
+    }
+
+    @Test
+    public void when_burstOfClicks_should_combineOnlyLatestValue() {
+        // Given
+        MainViewModel mainViewModel = new MainViewModel(new NumberRepository(), new RandomRepository());
+        collect(mainViewModel, Conflation.BUFFER);
+
+        // When
+        // Même sans perte entre "combine" et le collecteur (BUFFER), le StateFlow source ne garde que sa dernière valeur
+        for (int i = 0; i < 1_000; i++) {
+            mainViewModel.onAddButtonClicked();
+        }
+        scheduler.advanceUntilIdle();
+
+        // Then
+        assertEquals(2, collectedViewStates.size());
+        assertEquals("1000", collectedViewStates.get(1).getNumberToDisplay());
+    }
+
+    @Test
+    public void when_randomButtonClicked_should_emitSameViewStateAsLiveData() {
+        // Given
+        RandomRepository randomRepository = new RandomRepository(null, new SeededRandomSource(42));
+        MainViewModel mainViewModel = new MainViewModel(new NumberRepository(), randomRepository);
+        List<MainViewState> liveDataViewStates = new ArrayList<>();
+        mainViewModel.getViewStateLiveData().observeForever(liveDataViewStates::add);
+        collect(mainViewModel, Conflation.CONFLATE);
+
+        // When
+        mainViewModel.onAddButtonClicked();
+        mainViewModel.onAddButtonClicked();
+        mainViewModel.onAddButtonClicked();
+        mainViewModel.onRandomButtonClicked();
+        scheduler.advanceUntilIdle();
+
+        // Then
+        assertEquals(liveDataViewStates.get(liveDataViewStates.size() - 1), collectedViewStates.get(collectedViewStates.size() - 1));
+    }
+
+    @Test
+    public void when_exactNumberOverflowsLong_should_emitExactViewState() {
+        // Given
+        NumberRepository numberRepository = new NumberRepository(null, NumberRepository.Mode.EXACT);
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, new RandomRepository());
+        collect(mainViewModel, Conflation.RENDEZVOUS);
+
+        // When
+        // 2^70
+        mainViewModel.onAddButtonClicked();
+        for (int i = 0; i < 70; i++) {
+            mainViewModel.onMultiplyButtonClicked();
+        }
+        scheduler.advanceUntilIdle();
+
+        // Then
+        assertEquals(
+            new MainViewState(
+                "1180591620717411303424",
+                "Le nombre 1180591620717411303424 est pair, le nombre aléatoire est 1"
+            ),
+            collectedViewStates.get(collectedViewStates.size() - 1)
+        );
+    }
+
+    @Test
+    public void cancelledCollect_should_notReceiveViewStates() {
+        // Given
+        MainViewModel mainViewModel = new MainViewModel(new NumberRepository(), new RandomRepository());
+        collect(mainViewModel, Conflation.CONFLATE);
+
+        // When
+        collectJob.cancel(null);
+        mainViewModel.onAddButtonClicked();
+        scheduler.advanceUntilIdle();
+
+        // Then
+        assertTrue(collectJob.isCancelled());
+        assertEquals(1, collectedViewStates.size());
+    }
+
+    private void collect(MainViewModel mainViewModel, Conflation conflation) {
+        collectJob = ViewStateFlows.collectIn(
+            mainViewModel.getViewStateFlow(conflation, dispatcher),
+            CoroutineScopeKt.CoroutineScope(dispatcher),
+            collectedViewStates::add
+        );
+
+        scheduler.advanceUntilIdle();
+    }
+}
@@ -0,0 +1,141 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import fr.delcey.mediatorlivedataexample.history.HistoryDiffer;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class MainViewModelHistoryTest {
+
+    private static final int MEASURED_EMISSION_COUNT = 2_000;
+
+    // Budget très large (une frame à 60 Hz dure 16 ms) : on vérifie surtout que le coût ne dépend pas de la taille de l'historique
+    private static final long MAX_AVERAGE_MAIN_THREAD_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
+    private final LinkedBlockingQueue<Runnable> mainThreadQueue = new LinkedBlockingQueue<>();
+
+    private int insertedCount;
+    private int removedCount;
+
+    @After
+    public void tearDown() {
+        backgroundExecutor.shutdownNow();
+    }
+
+    @Test
+    public void history_should_keepEveryDistinctViewState() {
+        // Given
+        NumberRepository numberRepository = new NumberRepository();
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, new RandomRepository());
+        mainViewModel.getViewStateLiveData().observeForever(mainViewState -> {
+        });
+
+        // When
+        numberRepository.addToNumber(1);
+        numberRepository.addToNumber(0);
+        numberRepository.addToNumber(1);
+
+        // Then
+        assertNotNull(mainViewModel.getHistoryLiveData().getValue());
+        // Le "+0" ne produit pas de nouveau ViewState
+        assertEquals(2, mainViewModel.getHistoryLiveData().getValue().size());
+        assertEquals(
+            new MainViewState("1", "Le nombre 1 est impair, le nombre aléatoire est 1"),
+            mainViewModel.getHistoryLiveData().getValue().get(0)
+        );
+        assertEquals(
+            new MainViewState("2", "Le nombre 2 est pair, le nombre aléatoire est 1"),
+            mainViewModel.getHistoryLiveData().getValue().get(1)
+        );
+    }
+
+    @Test
+    public void emission_should_costConstantMainThreadTime_withFullHistory() throws InterruptedException {
+        // Given
+        NumberRepository numberRepository = new NumberRepository();
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, new RandomRepository());
+        HistoryDiffer historyDiffer = new HistoryDiffer(
+            new HistoryDiffer.Callback() {
+                @Override
+                public void onInserted(int position, int count) {
+                    insertedCount += count;
+                }
+
+                @Override
+                public void onRemoved(int position, int count) {
+                    removedCount += count;
+                }
+            },
+            backgroundExecutor,
+            mainThreadQueue::add
+        );
+        mainViewModel.getViewStateLiveData().observeForever(mainViewState -> {
+        });
+        mainViewModel.getHistoryLiveData().observeForever(historyDiffer::submit);
+
+        // On remplit l'historique : ensuite, chaque nouvelle émission provoque une suppression au début et un ajout à la fin. Le premier
+        // Snapshot est appliqué immédiatement, les suivants passent par l'arrière plan.
+        numberRepository.addToNumber(1);
+        for (int i = 1; i < MainViewModel.HISTORY_MAX_SIZE; i++) {
+            numberRepository.addToNumber(1);
+            awaitAndRunMainThreadTask();
+        }
+        assertEquals(MainViewModel.HISTORY_MAX_SIZE, historyDiffer.getItemCount());
+        insertedCount = 0;
+        removedCount = 0;
+
+        // When
+        long mainThreadNanos = 0;
+
+        for (int i = 0; i < MEASURED_EMISSION_COUNT; i++) {
+            // Temps sur le "thread principal" : combine() + ajout à l'historique + soumission au HistoryDiffer...
+            long start = System.nanoTime();
+            numberRepository.addToNumber(1);
+            mainThreadNanos += System.nanoTime() - start;
+
+            // ... puis application du résultat calculé en arrière plan (l'attente du calcul n'est pas comptée)
+            Runnable applyDiff = mainThreadQueue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(applyDiff);
+
+            start = System.nanoTime();
+            applyDiff.run();
+            mainThreadNanos += System.nanoTime() - start;
+        }
+
+        // Then
+        long averageNanos = mainThreadNanos / MEASURED_EMISSION_COUNT;
+        System.out.println("Temps moyen sur le thread principal par émission (historique de "
+            + MainViewModel.HISTORY_MAX_SIZE + " entrées) : " + averageNanos + " ns");
+
+        assertEquals(MainViewModel.HISTORY_MAX_SIZE, historyDiffer.getItemCount());
+        // Une émission = exactement une insertion et une suppression, jamais un "rechargement" de toute la liste
+        assertEquals(MEASURED_EMISSION_COUNT, insertedCount);
+        assertEquals(MEASURED_EMISSION_COUNT, removedCount);
+        assertTrue("Average main thread time per emission is " + averageNanos + " ns", averageNanos < MAX_AVERAGE_MAIN_THREAD_NANOS);
+    }
+
+    private void awaitAndRunMainThreadTask() throws InterruptedException {
+        Runnable runnable = mainThreadQueue.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(runnable);
+        runnable.run();
+    }
+}
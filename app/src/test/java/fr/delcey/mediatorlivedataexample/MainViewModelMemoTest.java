@@ -0,0 +1,115 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Observer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.livedata.MutableIntLiveData;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.utils.QueueExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MainViewModelMemoTest {
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    // Le RandomRepository tire le même nombre 2 fois de suite (1 chance sur 10) : aucun nouveau ViewState ne doit être émis
+    @Test
+    public void when_sameRandomNumberIsRolledTwice_should_emitOnce() {
+        // Given
+        MutableIntLiveData randomNumberMutableLiveData = new MutableIntLiveData(3);
+        RandomRepository randomRepository = Mockito.mock(RandomRepository.class);
+        Mockito.doReturn(randomNumberMutableLiveData).when(randomRepository).getRandomNumberLiveData();
+
+        NumberRepository numberRepository = new NumberRepository();
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, randomRepository);
+        List<MainViewState> emittedViewStates = observeForever(mainViewModel);
+        numberRepository.addToNumber(2);
+
+        // When
+        randomNumberMutableLiveData.setValue(3);
+
+        // Then
+        assertEquals(1, emittedViewStates.size());
+        assertEquals(1, mainViewModel.getCombineCount());
+        assertEquals(1, mainViewModel.getSuppressedEmissionCount());
+    }
+
+    // On revient sur un couple (nombre, nombre aléatoire) déjà vu : le ViewState est réutilisé, pas recalculé
+    @Test
+    public void when_inputsComeBack_should_reuseMemoizedViewState() {
+        // Given
+        MutableIntLiveData randomNumberMutableLiveData = new MutableIntLiveData(3);
+        RandomRepository randomRepository = Mockito.mock(RandomRepository.class);
+        Mockito.doReturn(randomNumberMutableLiveData).when(randomRepository).getRandomNumberLiveData();
+
+        NumberRepository numberRepository = new NumberRepository();
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, randomRepository);
+        List<MainViewState> emittedViewStates = observeForever(mainViewModel);
+        numberRepository.addToNumber(2);
+
+        // When
+        randomNumberMutableLiveData.setValue(5);
+        randomNumberMutableLiveData.setValue(3);
+
+        // Then
+        assertEquals(3, emittedViewStates.size());
+        assertEquals(1, mainViewModel.getMemoHitCount());
+        // C'est bien la même instance qui est ré-émise
+        assertSame(emittedViewStates.get(0), emittedViewStates.get(2));
+    }
+
+    // Avec la table pré-calculée, les clics "+1" sont servis par une simple lecture (une fois la première fenêtre construite)
+    @Test
+    public void when_lookupTableIsReady_should_serveViewStatesFromTable() {
+        // Given
+        QueueExecutor refillExecutor = new QueueExecutor();
+        NumberRepository numberRepository = new NumberRepository();
+        MainViewModel mainViewModel = new MainViewModel(
+            numberRepository,
+            new RandomRepository(),
+            null,
+            null,
+            null,
+            new MainViewStateLookupTable(refillExecutor)
+        );
+        List<MainViewState> emittedViewStates = observeForever(mainViewModel);
+        numberRepository.addToNumber(1);
+        refillExecutor.runAll();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            numberRepository.addToNumber(1);
+            refillExecutor.runAll();
+        }
+
+        // Then
+        assertEquals(101, emittedViewStates.size());
+        assertEquals(new MainViewState("101", "Le nombre 101 est impair, le nombre aléatoire est 1"), emittedViewStates.get(100));
+        assertEquals(100, mainViewModel.getLookupTableHitCount());
+        assertEquals(1, mainViewModel.getLookupTableMissCount());
+    }
+
+    private static List<MainViewState> observeForever(MainViewModel mainViewModel) {
+        List<MainViewState> emittedViewStates = new ArrayList<>();
+
+        mainViewModel.getViewStateLiveData().observeForever(new Observer<MainViewState>() {
+            @Override
+            public void onChanged(MainViewState mainViewState) {
+                emittedViewStates.add(mainViewState);
+            }
+        });
+
+        return emittedViewStates;
+    }
+}
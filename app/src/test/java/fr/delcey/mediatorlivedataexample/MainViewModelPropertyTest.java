@@ -0,0 +1,358 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import fr.delcey.mediatorlivedataexample.metrics.LatencyHistogram;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.repository.random.SeededRandomSource;
+import fr.delcey.mediatorlivedataexample.utils.LiveDataRecorder;
+import fr.delcey.mediatorlivedataexample.utils.QueueExecutor;
+import fr.delcey.mediatorlivedataexample.utils.VirtualTimeRule;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests "par propriétés" : des milliers de suites aléatoires de clics ("+1", "x2", "Random") et de multiplications du NumberRepository
+ * sont jouées sur un vrai MainViewModel. Après chaque opération, les ViewStates émis sont comparés à ceux d'un modèle de référence écrit le
+ * plus simplement possible (un int ou un BigInteger, des concaténations de String) : exactement un ViewState si l'affichage doit changer,
+ * aucun sinon, et toujours le bon.<br/>
+ *
+ * Quand une suite échoue, elle est réduite (on retire des opérations tant qu'elle échoue toujours) avant d'être affichée, avec la graine
+ * pour la rejouer. Par défaut la graine est fixe : chaque build joue les mêmes suites.<br/>
+ *
+ * La durée de chaque opération (jusqu'à l'émission du ViewState) est mesurée et affichée. Elle n'est vérifiée qu'en test de charge, quand
+ * un budget est donné : le test échoue alors si le 99e percentile le dépasse (une machine chargée ne fait donc pas échouer la CI).<br/>
+ *
+ * Tout est configurable, par exemple pour un test de charge de plusieurs millions de suites, sur une graine au hasard :
+ * ./gradlew testDebugUnitTest --tests '*MainViewModelPropertyTest' -DpropertyTest.sequenceCount=1000000 -DpropertyTest.seed=random
+ *     -DpropertyTest.p99BudgetMicros=250
+ */
+public class MainViewModelPropertyTest {
+
+    private static final int SEQUENCE_COUNT = Integer.getInteger("propertyTest.sequenceCount", 5_000);
+    private static final int MAX_SEQUENCE_LENGTH = Integer.getInteger("propertyTest.maxSequenceLength", 64);
+    private static final String SEED = System.getProperty("propertyTest.seed", "20210601");
+    // Null par défaut : pas de budget hors test de charge
+    @Nullable
+    private static final Long P99_BUDGET_MICROS = Long.getLong("propertyTest.p99BudgetMicros");
+
+    // Les premières suites servent à "chauffer" la JVM (JIT) : leurs durées ne sont pas comptées
+    private static final int WARM_UP_SEQUENCE_COUNT = Math.min(SEQUENCE_COUNT / 10, 1_000);
+
+    // Les opérations sont des int : le code dans les 2 bits de poids faible, l'opérande (facteur de "MULTIPLY") au dessus
+    private static final int OP_ADD = 0;
+    private static final int OP_MULTIPLY_BY_2 = 1;
+    private static final int OP_RANDOM = 2;
+    private static final int OP_MULTIPLY = 3;
+
+    private static final int OP_CODE_BITS = 2;
+    private static final int OP_CODE_MASK = (1 << OP_CODE_BITS) - 1;
+
+    @Rule
+    public final VirtualTimeRule rule = new VirtualTimeRule();
+
+    @Test
+    public void randomOperations_should_matchReferenceModel_inIntMode() {
+        check(NumberRepository.Mode.INT, false);
+    }
+
+    @Test
+    public void randomOperations_should_matchReferenceModel_withLookupTable() {
+        check(NumberRepository.Mode.INT, true);
+    }
+
+    @Test
+    public void randomOperations_should_matchReferenceModel_inExactMode() {
+        check(NumberRepository.Mode.EXACT, false);
+    }
+
+    private void check(@NonNull NumberRepository.Mode mode, boolean isLookupTableEnabled) {
+        long seed = SEED.equals("random") ? System.nanoTime() : Long.parseLong(SEED);
+        SplittableRandom random = new SplittableRandom(seed);
+        LatencyHistogram latency = Metrics.histogram("MainViewModelPropertyTest." + mode + (isLookupTableEnabled ? ".lookupTable" : ""));
+        long operationCount = 0;
+
+        for (int i = 0; i < SEQUENCE_COUNT; i++) {
+            int[] operations = generateOperations(random);
+            long sequenceSeed = random.nextLong();
+
+            String error = run(operations, sequenceSeed, mode, isLookupTableEnabled, i < WARM_UP_SEQUENCE_COUNT ? null : latency);
+
+            if (error != null) {
+                int[] shrunkOperations = shrink(operations, sequenceSeed, mode, isLookupTableEnabled);
+
+                fail(
+                    "Sequence #" + i + " failed (seed " + seed + "): " + error + "\n"
+                        + "Shrunk sequence (random seed " + sequenceSeed + "): " + describe(shrunkOperations) + "\n"
+                        + "-> " + run(shrunkOperations, sequenceSeed, mode, isLookupTableEnabled, null)
+                );
+            }
+
+            operationCount += operations.length;
+        }
+
+        long p99Nanos = latency.getValueAtPercentile(99);
+
+        System.out.println(
+            "MainViewModelPropertyTest " + mode + (isLookupTableEnabled ? " + lookup table" : "") + " (seed " + seed + "): "
+                + SEQUENCE_COUNT + " sequences, " + operationCount + " operations, "
+                + "p50=" + latency.getValueAtPercentile(50) + "ns p99=" + p99Nanos + "ns p99.9=" + latency.getValueAtPercentile(99.9)
+                + "ns max=" + latency.getMaxNanos() + "ns"
+        );
+
+        if (P99_BUDGET_MICROS == null) {
+            return;
+        }
+
+        assertTrue(
+            "p99 of " + p99Nanos / 1_000 + "µs is over the budget of " + P99_BUDGET_MICROS + "µs",
+            p99Nanos <= P99_BUDGET_MICROS * 1_000
+        );
+    }
+
+    @NonNull
+    private static int[] generateOperations(@NonNull SplittableRandom random) {
+        int[] operations = new int[1 + random.nextInt(MAX_SEQUENCE_LENGTH)];
+
+        for (int i = 0; i < operations.length; i++) {
+            int percent = random.nextInt(100);
+
+            if (percent < 40) {
+                operations[i] = OP_ADD;
+            } else if (percent < 60) {
+                operations[i] = OP_MULTIPLY_BY_2;
+            } else if (percent < 85) {
+                operations[i] = OP_RANDOM;
+            } else {
+                // Facteur de -3 à 3 : 0 et les négatifs aussi
+                operations[i] = (random.nextInt(7) - 3) << OP_CODE_BITS | OP_MULTIPLY;
+            }
+        }
+
+        return operations;
+    }
+
+    // Joue la suite sur un MainViewModel tout neuf et sur le modèle de référence. Renvoie null si tout correspond, la première différence
+    // sinon.
+    @Nullable
+    private String run(
+        @NonNull int[] operations,
+        long sequenceSeed,
+        @NonNull NumberRepository.Mode mode,
+        boolean isLookupTableEnabled,
+        @Nullable LatencyHistogram latency
+    ) {
+        NumberRepository numberRepository = new NumberRepository(null, mode);
+        // Les remplissages de la table sont faits entre 2 opérations (hors mesure), comme sur un thread d'arrière plan
+        QueueExecutor refillExecutor = new QueueExecutor();
+        MainViewModel mainViewModel = new MainViewModel(
+            numberRepository,
+            new RandomRepository(null, new SeededRandomSource(sequenceSeed)),
+            null,
+            null,
+            null,
+            isLookupTableEnabled ? new MainViewStateLookupTable(refillExecutor) : null
+        );
+        LiveDataRecorder<MainViewState> recorder = rule.record(mainViewModel.getViewStateLiveData());
+
+        ReferenceModel model = new ReferenceModel(mode == NumberRepository.Mode.EXACT, sequenceSeed);
+        MainViewState expectedViewState = null;
+
+        try {
+            for (int i = 0; i < operations.length; i++) {
+                int opCode = operations[i] & OP_CODE_MASK;
+                int operand = operations[i] >> OP_CODE_BITS;
+                int previousValueCount = recorder.getValueCount();
+
+                long startNanos = System.nanoTime();
+
+                switch (opCode) {
+                    case OP_ADD:
+                        mainViewModel.onAddButtonClicked();
+                        break;
+                    case OP_MULTIPLY_BY_2:
+                        mainViewModel.onMultiplyButtonClicked();
+                        break;
+                    case OP_RANDOM:
+                        mainViewModel.onRandomButtonClicked();
+                        break;
+                    default:
+                        numberRepository.multiplyNumber(operand);
+                        break;
+                }
+
+                if (latency != null) {
+                    latency.record(System.nanoTime() - startNanos);
+                }
+
+                refillExecutor.runAll();
+
+                model.apply(opCode, operand);
+
+                // La LiveData n'émet rien tant que le nombre n'a pas de valeur, ni quand le ViewState ne change pas
+                MainViewState newExpectedViewState = model.getViewState();
+                int expectedValueCount = newExpectedViewState == null || newExpectedViewState.equals(expectedViewState) ? 0 : 1;
+                expectedViewState = newExpectedViewState;
+
+                List<MainViewState> values = recorder.getValues();
+                int valueCount = values.size() - previousValueCount;
+
+                if (valueCount != expectedValueCount) {
+                    return "after operation #" + i + " (" + describe(operations[i]) + "), " + valueCount + " ViewState(s) emitted, "
+                        + expectedValueCount + " expected: " + values.subList(previousValueCount, values.size());
+                }
+
+                if (valueCount == 1 && !values.get(values.size() - 1).equals(expectedViewState)) {
+                    return "after operation #" + i + " (" + describe(operations[i]) + "), " + values.get(values.size() - 1)
+                        + " emitted, " + expectedViewState + " expected";
+                }
+            }
+        } catch (RuntimeException e) {
+            return "exception " + e;
+        } finally {
+            recorder.stop();
+        }
+
+        return null;
+    }
+
+    // Retire des morceaux de la suite (de plus en plus petits, jusqu'à une seule opération) tant qu'elle échoue encore
+    @NonNull
+    private int[] shrink(@NonNull int[] operations, long sequenceSeed, @NonNull NumberRepository.Mode mode, boolean isLookupTableEnabled) {
+        int chunkSize = operations.length / 2;
+
+        while (chunkSize > 0) {
+            boolean hasShrunk = false;
+
+            for (int start = 0; start + chunkSize <= operations.length; ) {
+                int[] candidate = new int[operations.length - chunkSize];
+                System.arraycopy(operations, 0, candidate, 0, start);
+                System.arraycopy(operations, start + chunkSize, candidate, start, operations.length - start - chunkSize);
+
+                if (run(candidate, sequenceSeed, mode, isLookupTableEnabled, null) != null) {
+                    operations = candidate;
+                    hasShrunk = true;
+                } else {
+                    start += chunkSize;
+                }
+            }
+
+            if (!hasShrunk) {
+                chunkSize /= 2;
+            }
+        }
+
+        return operations;
+    }
+
+    @NonNull
+    private static String describe(@NonNull int[] operations) {
+        String[] descriptions = new String[operations.length];
+
+        for (int i = 0; i < operations.length; i++) {
+            descriptions[i] = describe(operations[i]);
+        }
+
+        return Arrays.toString(descriptions);
+    }
+
+    @NonNull
+    private static String describe(int operation) {
+        switch (operation & OP_CODE_MASK) {
+            case OP_ADD:
+                return "+1";
+            case OP_MULTIPLY_BY_2:
+                return "x2";
+            case OP_RANDOM:
+                return "Random";
+            default:
+                return "x" + (operation >> OP_CODE_BITS);
+        }
+    }
+
+    // Le comportement attendu, écrit sans aucune optimisation : ni cache, ni formatter, ni table
+    private static class ReferenceModel {
+
+        private final boolean isExact;
+
+        // Même graine que le RandomRepository : mêmes tirages, dans le même ordre
+        @NonNull
+        private final SeededRandomSource randomSource;
+
+        private boolean hasNumber;
+        private int intNumber;
+        @NonNull
+        private BigInteger exactNumber = BigInteger.ZERO;
+        private int randomNumber = 1;
+
+        ReferenceModel(boolean isExact, long sequenceSeed) {
+            this.isExact = isExact;
+
+            randomSource = new SeededRandomSource(sequenceSeed);
+        }
+
+        void apply(int opCode, int operand) {
+            switch (opCode) {
+                case OP_ADD:
+                    intNumber += 1;
+                    exactNumber = exactNumber.add(BigInteger.ONE);
+                    hasNumber = true;
+                    break;
+                case OP_MULTIPLY_BY_2:
+                    operand = 2;
+                    // fall through
+                case OP_MULTIPLY:
+                    intNumber *= operand;
+                    exactNumber = exactNumber.multiply(BigInteger.valueOf(operand));
+                    hasNumber = true;
+                    break;
+                case OP_RANDOM:
+                    randomNumber = RandomRepository.MIN_RANDOM_NUMBER
+                        + randomSource.nextInt(RandomRepository.MAX_RANDOM_NUMBER - RandomRepository.MIN_RANDOM_NUMBER + 1);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown op code: " + opCode);
+            }
+        }
+
+        @Nullable
+        MainViewState getViewState() {
+            if (!hasNumber) {
+                return null;
+            }
+
+            String result;
+            boolean isEven;
+
+            if (isExact) {
+                BigInteger product = exactNumber.multiply(BigInteger.valueOf(randomNumber));
+
+                result = product.toString();
+                isEven = !product.testBit(0);
+            } else {
+                // Le débordement de l'int fait partie du comportement attendu en mode INT
+                int product = intNumber * randomNumber;
+
+                result = String.valueOf(product);
+                isEven = product % 2 == 0;
+            }
+
+            return new MainViewState(
+                result,
+                "Le nombre " + result + " est " + (isEven ? "pair" : "impair") + ", le nombre aléatoire est " + randomNumber
+            );
+        }
+    }
+}
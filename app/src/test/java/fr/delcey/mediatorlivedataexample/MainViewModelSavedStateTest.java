@@ -0,0 +1,242 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.repository.random.SeededRandomSource;
+import fr.delcey.mediatorlivedataexample.utils.LiveDataRecorder;
+import fr.delcey.mediatorlivedataexample.utils.VirtualTimeRule;
+import fr.delcey.mediatorlivedataexample.utils.VirtualTimeScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+// La mort du process est simulée en recréant les repositories, le flux partagé et le ViewModel, avec uniquement le contenu du
+// SavedStateHandle de "l'ancien process"
+public class MainViewModelSavedStateTest {
+
+    private static final long FRAME_PERIOD_MILLIS = 16;
+
+    @Rule
+    public final VirtualTimeRule rule = new VirtualTimeRule();
+
+    @Test
+    public void afterProcessDeath_should_emitRestoredViewState_beforeFirstFrame() {
+        // Given
+        InMemorySnapshotStore savedState = afterProcessDeath(runFirstProcess(new NumberRepository(), 5));
+        VirtualTimeScheduler scheduler = rule.getScheduler();
+        NumberRepository numberRepository = new NumberRepository();
+        RandomRepository randomRepository = new RandomRepository();
+
+        // When
+        long start = System.nanoTime();
+        MainViewModel mainViewModel = createViewModel(numberRepository, randomRepository, scheduler, savedState);
+        long restoreNanos = System.nanoTime() - start;
+        LiveDataRecorder<MainViewState> recorder = rule.record(mainViewModel.getViewStateLiveData());
+
+        // Then
+        System.out.println("Restauration du MainViewModel (jusqu'au premier ViewState) : " + restoreNanos + " ns");
+
+        // Aucune frame n'est encore tombée
+        int randomNumber = randomRepository.getRandomNumberLiveData().getIntValue();
+        MainViewState expected = new MainViewState(
+            String.valueOf(5 * randomNumber),
+            "Le nombre " + 5 * randomNumber + (5 * randomNumber % 2 == 0 ? " est pair" : " est impair") + ", le nombre aléatoire est "
+                + randomNumber
+        );
+        assertEquals(1, recorder.getValueCount());
+        assertEquals(expected, recorder.getLastValue());
+
+        // When
+        scheduler.advanceTimeBy(FRAME_PERIOD_MILLIS);
+
+        // Then
+        // La frame calcule le même ViewState : pas de deuxième émission
+        assertEquals(1, recorder.getValueCount());
+    }
+
+    @Test
+    public void afterProcessDeath_should_continueFromRestoredValues() {
+        // Given
+        InMemorySnapshotStore savedState = afterProcessDeath(runFirstProcess(new NumberRepository(), 5));
+        VirtualTimeScheduler scheduler = rule.getScheduler();
+        NumberRepository numberRepository = new NumberRepository();
+        RandomRepository randomRepository = new RandomRepository();
+        MainViewModel mainViewModel = createViewModel(numberRepository, randomRepository, scheduler, savedState);
+        LiveDataRecorder<MainViewState> recorder = rule.record(mainViewModel.getViewStateLiveData());
+        int randomNumber = randomRepository.getRandomNumberLiveData().getIntValue();
+
+        // When
+        mainViewModel.onAddButtonClicked();
+        scheduler.advanceTimeBy(FRAME_PERIOD_MILLIS);
+
+        // Then
+        assertEquals(6, numberRepository.getNumberLiveData().getIntValue());
+        assertEquals(String.valueOf(6 * randomNumber), recorder.getLastValue().getNumberToDisplay());
+        // Le SavedStateHandle suit chaque ViewState émis
+        assertEquals(
+            ExactNumber.valueOf(6),
+            MainViewModelSnapshot.fromByteArray(savedState.read()).number
+        );
+    }
+
+    // Entre deux frames, les repositories sont en avance sur l'écran : c'est le ViewState affiché qui est sauvegardé, pas les repositories
+    @Test
+    public void snapshot_should_matchEmittedViewState_betweenFrames() {
+        // Given
+        VirtualTimeScheduler scheduler = rule.getScheduler();
+        NumberRepository numberRepository = new NumberRepository();
+        RandomRepository randomRepository = new RandomRepository();
+        InMemorySnapshotStore savedState = new InMemorySnapshotStore();
+        SharedMainViewStateStream sharedMainViewStateStream = new SharedMainViewStateStream(
+            numberRepository,
+            randomRepository,
+            scheduler.asFrameTicker(FRAME_PERIOD_MILLIS),
+            null
+        );
+        rule.record(new MainViewModel(numberRepository, randomRepository, sharedMainViewStateStream, null).getViewStateLiveData());
+        numberRepository.addToNumber(5);
+        scheduler.advanceTimeBy(FRAME_PERIOD_MILLIS);
+        int randomNumber = randomRepository.getRandomNumberLiveData().getIntValue();
+
+        // When
+        numberRepository.addToNumber(3);
+        // Un deuxième écran s'abonne avant la frame suivante : il reçoit le dernier ViewState du flux partagé (5)
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, randomRepository, sharedMainViewStateStream, savedState);
+        LiveDataRecorder<MainViewState> recorder = rule.record(mainViewModel.getViewStateLiveData());
+
+        // Then
+        assertEquals(8, numberRepository.getNumberLiveData().getIntValue());
+        assertEquals(String.valueOf(5 * randomNumber), recorder.getLastValue().getNumberToDisplay());
+        assertEquals(ExactNumber.valueOf(5), MainViewModelSnapshot.fromByteArray(savedState.read()).number);
+        assertEquals(randomNumber, MainViewModelSnapshot.fromByteArray(savedState.read()).randomNumber);
+
+        // When
+        scheduler.advanceTimeBy(FRAME_PERIOD_MILLIS);
+
+        // Then
+        assertEquals(String.valueOf(8 * randomNumber), recorder.getLastValue().getNumberToDisplay());
+        assertEquals(ExactNumber.valueOf(8), MainViewModelSnapshot.fromByteArray(savedState.read()).number);
+    }
+
+    @Test
+    public void exactNumber_should_surviveProcessDeath() {
+        // Given
+        NumberRepository firstNumberRepository = new NumberRepository(null, NumberRepository.Mode.EXACT, true);
+        InMemorySnapshotStore firstSavedState = runFirstProcess(firstNumberRepository, 1);
+        for (int i = 0; i < 100; i++) {
+            firstNumberRepository.multiplyNumber(2);
+        }
+        InMemorySnapshotStore savedState = afterProcessDeath(firstSavedState);
+        NumberRepository numberRepository = new NumberRepository(null, NumberRepository.Mode.EXACT, true);
+
+        // When
+        createViewModel(numberRepository, new RandomRepository(), rule.getScheduler(), savedState);
+
+        // Then
+        assertEquals(BigInteger.ONE.shiftLeft(100), numberRepository.getExactNumberLiveData().getValue().toBigInteger());
+
+        // When
+        numberRepository.undo();
+
+        // Then
+        // La valeur restaurée est la valeur de départ du journal des opérations : rien à annuler avant elle
+        assertEquals(BigInteger.ONE.shiftLeft(100), numberRepository.getExactNumberLiveData().getValue().toBigInteger());
+    }
+
+    @Test
+    public void repositoryValue_should_winOverSnapshot() {
+        // Given
+        InMemorySnapshotStore savedState = afterProcessDeath(runFirstProcess(new NumberRepository(), 5));
+        NumberRepository numberRepository = new NumberRepository();
+        // Déjà une valeur (restaurée depuis le fichier, ou modifiée par un autre écran)
+        numberRepository.addToNumber(7);
+
+        // When
+        createViewModel(numberRepository, new RandomRepository(), rule.getScheduler(), savedState);
+
+        // Then
+        assertEquals(7, numberRepository.getNumberLiveData().getIntValue());
+    }
+
+    @Test
+    public void corruptSnapshot_should_beIgnored() {
+        // Given
+        InMemorySnapshotStore savedState = new InMemorySnapshotStore();
+        savedState.write(new byte[]{42, 0, 1});
+        NumberRepository numberRepository = new NumberRepository();
+
+        // When
+        MainViewModel mainViewModel = createViewModel(numberRepository, new RandomRepository(), rule.getScheduler(), savedState);
+        LiveDataRecorder<MainViewState> recorder = rule.record(mainViewModel.getViewStateLiveData());
+
+        // Then
+        assertEquals(0, recorder.getValueCount());
+        assertNull(numberRepository.getNumberLiveData().getValue());
+    }
+
+    // "L'ancien process" : le nombre atteint "clickCount", avec un tirage aléatoire
+    private InMemorySnapshotStore runFirstProcess(NumberRepository numberRepository, int clickCount) {
+        RandomRepository randomRepository = new RandomRepository(null, new SeededRandomSource(2021));
+        InMemorySnapshotStore savedState = new InMemorySnapshotStore();
+        MainViewModel mainViewModel = new MainViewModel(
+            numberRepository,
+            randomRepository,
+            new SharedMainViewStateStream(numberRepository, randomRepository),
+            savedState
+        );
+        rule.record(mainViewModel.getViewStateLiveData());
+
+        mainViewModel.onRandomButtonClicked();
+        for (int i = 0; i < clickCount; i++) {
+            mainViewModel.onAddButtonClicked();
+        }
+
+        return savedState;
+    }
+
+    // Seul le contenu du SavedStateHandle survit à la mort du process
+    private InMemorySnapshotStore afterProcessDeath(InMemorySnapshotStore savedState) {
+        InMemorySnapshotStore restoredState = new InMemorySnapshotStore();
+        restoredState.write(savedState.read().clone());
+
+        return restoredState;
+    }
+
+    private MainViewModel createViewModel(
+        NumberRepository numberRepository,
+        RandomRepository randomRepository,
+        VirtualTimeScheduler scheduler,
+        InMemorySnapshotStore savedState
+    ) {
+        return new MainViewModel(
+            numberRepository,
+            randomRepository,
+            new SharedMainViewStateStream(numberRepository, randomRepository, scheduler.asFrameTicker(FRAME_PERIOD_MILLIS), null),
+            savedState
+        );
+    }
+
+    // Remplace le SavedStateHandle de l'application
+    private static class InMemorySnapshotStore implements MainViewModel.SnapshotStore {
+
+        private byte[] snapshot;
+
+        @Override
+        public byte[] read() {
+            return snapshot;
+        }
+
+        @Override
+        public void write(@NonNull byte[] snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+}
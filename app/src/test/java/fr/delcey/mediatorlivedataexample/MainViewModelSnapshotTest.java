@@ -0,0 +1,121 @@
+package fr.delcey.mediatorlivedataexample;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MainViewModelSnapshotTest {
+
+    private static final int MEASURED_ITERATIONS = 100_000;
+
+    @Test
+    public void typicalSnapshot_should_roundTrip_inFewBytes() {
+        // Given
+        MainViewModelSnapshot snapshot = new MainViewModelSnapshot(ExactNumber.valueOf(42), 7, true, 42);
+
+        // When
+        byte[] bytes = snapshot.toByteArray();
+        MainViewModelSnapshot restored = MainViewModelSnapshot.fromByteArray(bytes);
+
+        // Then
+        // Version + flags + 1 octet par nombre
+        assertEquals(5, bytes.length);
+        assertEquals(ExactNumber.valueOf(42), restored.number);
+        assertEquals(7, restored.randomNumber);
+        assertTrue(restored.hasCacheSeed);
+        assertEquals(42, restored.cacheSeed);
+    }
+
+    @Test
+    public void negativeLongAndBigNumbers_should_roundTrip() {
+        ExactNumber[] numbers = new ExactNumber[]{
+            ExactNumber.valueOf(-1),
+            ExactNumber.valueOf(Integer.MIN_VALUE),
+            ExactNumber.valueOf(Long.MAX_VALUE),
+            ExactNumber.valueOf(Long.MIN_VALUE),
+            ExactNumber.valueOf(BigInteger.ONE.shiftLeft(100)),
+            ExactNumber.valueOf(BigInteger.ONE.shiftLeft(100).negate()),
+        };
+
+        for (ExactNumber number : numbers) {
+            // When
+            MainViewModelSnapshot restored = MainViewModelSnapshot.fromByteArray(
+                new MainViewModelSnapshot(number, 10, false, 0).toByteArray()
+            );
+
+            // Then
+            assertEquals(number, restored.number);
+            assertEquals(10, restored.randomNumber);
+            assertFalse(restored.hasCacheSeed);
+        }
+    }
+
+    @Test
+    public void snapshotWithoutNumber_should_roundTrip() {
+        // When
+        MainViewModelSnapshot restored = MainViewModelSnapshot.fromByteArray(new MainViewModelSnapshot(null, 1, false, 0).toByteArray());
+
+        // Then
+        assertNull(restored.number);
+        assertEquals(1, restored.randomNumber);
+    }
+
+    @Test
+    public void unknownOrCorruptSnapshot_should_beIgnored() {
+        byte[] valid = new MainViewModelSnapshot(ExactNumber.valueOf(BigInteger.ONE.shiftLeft(100)), 3, true, 0).toByteArray();
+        byte[] truncated = new byte[valid.length - 3];
+        System.arraycopy(valid, 0, truncated, 0, truncated.length);
+        byte[] newerVersion = valid.clone();
+        newerVersion[0] = (byte) (MainViewModelSnapshot.VERSION + 1);
+
+        assertNull(MainViewModelSnapshot.fromByteArray(null));
+        assertNull(MainViewModelSnapshot.fromByteArray(new byte[0]));
+        assertNull(MainViewModelSnapshot.fromByteArray(truncated));
+        assertNull(MainViewModelSnapshot.fromByteArray(newerVersion));
+        // Un varint qui ne se termine jamais
+        assertNull(MainViewModelSnapshot.fromByteArray(new byte[]{MainViewModelSnapshot.VERSION, 1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1}));
+    }
+
+    @Test
+    public void saveAndRestore_should_beFast() {
+        // Given
+        MainViewModelSnapshot snapshot = new MainViewModelSnapshot(ExactNumber.valueOf(123_456), 9, true, 123_456);
+        int checksum = 0;
+
+        // Préchauffage du JIT
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksum += MainViewModelSnapshot.fromByteArray(snapshot.toByteArray()).randomNumber;
+        }
+
+        // When
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksum += snapshot.toByteArray().length;
+        }
+        long saveNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        byte[] bytes = snapshot.toByteArray();
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksum += MainViewModelSnapshot.fromByteArray(bytes).randomNumber;
+        }
+        long restoreNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        // Then
+        System.out.println(
+            "Snapshot : " + bytes.length + " octets, sauvegarde " + saveNanos + " ns, restauration " + restoreNanos + " ns (" + checksum + ")"
+        );
+
+        assertEquals(9, bytes.length);
+        // Très large, pour ne pas dépendre de la machine : l'ordre de grandeur attendu est la centaine de nanosecondes
+        assertTrue(saveNanos < 100_000);
+        assertTrue(restoreNanos < 100_000);
+    }
+}
@@ -1,31 +1,30 @@
 package fr.delcey.mediatorlivedataexample;
 
-import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
-import androidx.lifecycle.MutableLiveData;
-
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import fr.delcey.mediatorlivedataexample.livedata.MutableIntLiveData;
 import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
 import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.utils.VirtualTimeRule;
 
-import static fr.delcey.mediatorlivedataexample.UnitTestUtils.getOrAwaitValue;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.eq;
 
 @RunWith(MockitoJUnitRunner.class)
 public class MainViewModelTest {
 
+    // Le thread du test est le thread principal : les émissions sont enregistrées au fil de l'eau, sans attente
     @Rule
-    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+    public final VirtualTimeRule rule = new VirtualTimeRule();
 
     // Un simple test unitaire sans injection de mock. On utilise juste les classes "tel quelles".
     // On simule l'appui sur le bouton en appelant la méthode "onAddButtonClicked()"
     @Test
-    public void when_addButtonClicked_should_display1() throws InterruptedException {
+    public void when_addButtonClicked_should_display1() {
         // Given
         // On crée le MainViewModel avec les dépendances "classiques"
         MainViewModel mainViewModel = new MainViewModel(new NumberRepository(), new RandomRepository());
@@ -33,7 +32,7 @@ public class MainViewModelTest {
         // When
         // On "utilise" le ViewModel et on récupère le ViewState produit suite à cette "utilisation"
         mainViewModel.onAddButtonClicked();
-        MainViewState result = getOrAwaitValue(mainViewModel.getViewStateLiveData());
+        MainViewState result = rule.record(mainViewModel.getViewStateLiveData()).getLastValue();
 
         // Then
         // On regarde que le ViewState correspond bien à ce qu'on s'attend à avoir
@@ -48,14 +47,14 @@ public class MainViewModelTest {
 
     // Un autre simple test unitaire sans injection de mock. On est obligé d'appeler 2 fois la méthode
     @Test
-    public void when_addButtonClickedTwice_should_display2() throws InterruptedException {
+    public void when_addButtonClickedTwice_should_display2() {
         // Given
         MainViewModel mainViewModel = new MainViewModel(new NumberRepository(), new RandomRepository());
 
         // When
         mainViewModel.onAddButtonClicked();
         mainViewModel.onAddButtonClicked();
-        MainViewState result = getOrAwaitValue(mainViewModel.getViewStateLiveData());
+        MainViewState result = rule.record(mainViewModel.getViewStateLiveData()).getLastValue();
 
         // Then
         assertEquals(
@@ -69,7 +68,7 @@ public class MainViewModelTest {
 
     // Un dernier simple test unitaire sans injection de mock. Je pense que tu as compris le fonctionnement...
     @Test
-    public void when_addButtonClickedTwiceAndThenMultiply_should_display4() throws InterruptedException {
+    public void when_addButtonClickedTwiceAndThenMultiply_should_display4() {
         // Given
         MainViewModel mainViewModel = new MainViewModel(new NumberRepository(), new RandomRepository());
 
@@ -77,7 +76,7 @@ public class MainViewModelTest {
         mainViewModel.onAddButtonClicked();
         mainViewModel.onAddButtonClicked();
         mainViewModel.onMultiplyButtonClicked();
-        MainViewState result = getOrAwaitValue(mainViewModel.getViewStateLiveData());
+        MainViewState result = rule.record(mainViewModel.getViewStateLiveData()).getLastValue();
 
         // Then
         assertEquals(
@@ -92,10 +91,10 @@ public class MainViewModelTest {
     // On va aller un peu plus loin dans les Tests Unitaires avec Mockito parce qu'il a tout de même un soucis,
     // impossible de savoir quel nombre aléatoire va être tiré par le "RandomRepository"... comment tester le comportement ?
     @Test
-    public void when_randomNumberIs5_should_display5() throws InterruptedException {
+    public void when_randomNumberIs5_should_display5() {
         // Given
-        // On crée notre propre MutableLiveData pendant le test pour la manipuler comme on souhaite
-        MutableLiveData<Integer> randomNumberMutableLiveData = new MutableLiveData<>();
+        // On crée notre propre MutableIntLiveData pendant le test pour la manipuler comme on souhaite
+        MutableIntLiveData randomNumberMutableLiveData = new MutableIntLiveData();
 
         // On veut que la LiveData renvoie 5 comme "nombre aléatoire"
         randomNumberMutableLiveData.setValue(5);
@@ -118,7 +117,7 @@ public class MainViewModelTest {
         // When
         mainViewModel.onAddButtonClicked();
         mainViewModel.onRandomButtonClicked();
-        MainViewState result = getOrAwaitValue(mainViewModel.getViewStateLiveData());
+        MainViewState result = rule.record(mainViewModel.getViewStateLiveData()).getLastValue();
 
         // Then
         assertEquals(
@@ -140,16 +139,17 @@ public class MainViewModelTest {
 
     // Allons encore plus loin avec 2 mocks (pour éviter d'appeler 42 fois la méthode "onAddButtonClicked")
     @Test
-    public void when_onAddButtonClicked42TimesAndRandomNumberIs7_should_display294() throws InterruptedException {
+    public void when_onAddButtonClicked42TimesAndRandomNumberIs7_should_display294() {
         // Given
         // On mock le NumberRepository aussi cette fois
-        MutableLiveData<Integer> numberMutableLiveData = new MutableLiveData<>();
+        MutableIntLiveData numberMutableLiveData = new MutableIntLiveData();
         numberMutableLiveData.setValue(42); // C'est comme si on avait cliqué 42 fois sur le bouton
         NumberRepository numberRepository = Mockito.mock(NumberRepository.class);
         Mockito.doReturn(numberMutableLiveData).when(numberRepository).getNumberLiveData();
+        Mockito.doReturn(NumberRepository.Mode.INT).when(numberRepository).getMode();
 
         // On mock comme plus haut le nombre random, cette fois il renvoit 7 par exemple
-        MutableLiveData<Integer> randomNumberMutableLiveData = new MutableLiveData<>();
+        MutableIntLiveData randomNumberMutableLiveData = new MutableIntLiveData();
         randomNumberMutableLiveData.setValue(7);
         RandomRepository randomRepository = Mockito.mock(RandomRepository.class);
         Mockito.doReturn(randomNumberMutableLiveData).when(randomRepository).getRandomNumberLiveData();
@@ -158,7 +158,7 @@ public class MainViewModelTest {
         MainViewModel mainViewModel = new MainViewModel(numberRepository, randomRepository);
 
         // When
-        MainViewState result = getOrAwaitValue(mainViewModel.getViewStateLiveData());
+        MainViewState result = rule.record(mainViewModel.getViewStateLiveData()).getLastValue();
 
         // Then
         assertEquals(
@@ -170,6 +170,34 @@ public class MainViewModelTest {
         );
     }
 
+    // En mode EXACT, ni le nombre ni le produit ne débordent : après 40 "x2", la parité et le produit sont toujours justes
+    @Test
+    public void when_numberOverflowsInt_should_displayExactProductAndParity() {
+        // Given
+        MutableIntLiveData randomNumberMutableLiveData = new MutableIntLiveData(3);
+        RandomRepository randomRepository = Mockito.mock(RandomRepository.class);
+        Mockito.doReturn(randomNumberMutableLiveData).when(randomRepository).getRandomNumberLiveData();
+        NumberRepository numberRepository = new NumberRepository(null, NumberRepository.Mode.EXACT);
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, randomRepository);
+
+        // When
+        mainViewModel.onAddButtonClicked();
+        for (int i = 0; i < 40; i++) {
+            mainViewModel.onMultiplyButtonClicked();
+        }
+        mainViewModel.onAddButtonClicked();
+        MainViewState result = rule.record(mainViewModel.getViewStateLiveData()).getLastValue();
+
+        // Then : (2^40 + 1) x 3
+        assertEquals(
+            new MainViewState(
+                "3298534883331",
+                "Le nombre 3298534883331 est impair, le nombre aléatoire est 3"
+            ),
+            result
+        );
+    }
+
     // Lorsqu'une fonction en appelle juste une autre (comme dans MainViewModel.onAddButtonClicked()), on peut faire un petit test unitaire
     // pour vérifier ce comportement avec 'spy' plutôt que 'mock' : ça permet de "contrôler" le comportement d'un vrai objet
     @Test
@@ -185,7 +213,8 @@ public class MainViewModelTest {
         mainViewModel.onAddButtonClicked();
 
         // Then
-        // On vérifie que le MainViewModel lui a bien demandé sa LiveData
+        // On vérifie que le MainViewModel lui a bien demandé son mode (INT ou EXACT), puis la LiveData correspondante
+        Mockito.verify(numberRepository, Mockito.times(1)).getMode();
         Mockito.verify(numberRepository, Mockito.times(1)).getNumberLiveData();
         // On vérifie que le MainViewModel lui a bien demandé d'ajouter "1" au nombre (suite à l'appel de la méthode "onAddButtonClicked()")
         Mockito.verify(numberRepository, Mockito.times(1)).addToNumber(eq(1));
@@ -0,0 +1,119 @@
+package fr.delcey.mediatorlivedataexample;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.utils.LiveDataRecorder;
+import fr.delcey.mediatorlivedataexample.utils.VirtualTimeRule;
+import fr.delcey.mediatorlivedataexample.utils.VirtualTimeScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Les comportements qui dépendent du temps (frames, calculs en arrière plan qui durent) testés en temps virtuel : rien n'attend vraiment
+public class MainViewModelVirtualTimeTest {
+
+    private static final long FRAME_PERIOD_MILLIS = 16;
+
+    @Rule
+    public final VirtualTimeRule rule = new VirtualTimeRule();
+
+    @Test
+    public void when_clicksDuringOneFrame_should_emitOnceAtNextFrame() {
+        // Given
+        VirtualTimeScheduler scheduler = rule.getScheduler();
+        MainViewModel mainViewModel = new MainViewModel(
+            new NumberRepository(),
+            new RandomRepository(),
+            scheduler.asFrameTicker(FRAME_PERIOD_MILLIS)
+        );
+        LiveDataRecorder<MainViewState> recorder = rule.record(mainViewModel.getViewStateLiveData());
+
+        // When
+        mainViewModel.onAddButtonClicked();
+        scheduler.advanceTimeBy(5);
+        mainViewModel.onAddButtonClicked();
+        scheduler.advanceTimeBy(5);
+        mainViewModel.onAddButtonClicked();
+        scheduler.advanceTimeBy(5);
+
+        // Then
+        // t = 15 ms : la frame n'est pas encore tombée
+        assertEquals(0, recorder.getValueCount());
+
+        // When
+        scheduler.advanceTimeBy(1);
+
+        // Then
+        // t = 16 ms : un seul ViewState pour les 3 clics
+        assertEquals(1, recorder.getValueCount());
+        assertEquals("3", recorder.getLastValue().getNumberToDisplay());
+
+        // When
+        scheduler.advanceTimeBy(4);
+        mainViewModel.onMultiplyButtonClicked();
+        scheduler.advanceTimeBy(11);
+
+        // Then
+        // t = 31 ms : le clic de t = 20 ms attend la frame de t = 32 ms
+        assertEquals(1, recorder.getValueCount());
+
+        // When
+        scheduler.advanceTimeBy(1);
+
+        // Then
+        assertEquals(2, recorder.getValueCount());
+        assertEquals("6", recorder.getLastValue().getNumberToDisplay());
+        assertEquals(2, mainViewModel.getCombineCount());
+    }
+
+    @Test
+    public void when_clicksFasterThanBackgroundCombine_should_emitOnlyLatestViewStates() {
+        // Given
+        // Chaque "combine()" en arrière plan dure 10 ms (virtuelles), un clic toutes les 2 ms pendant 40 ms
+        VirtualTimeScheduler scheduler = rule.getScheduler();
+        MainViewModel mainViewModel = new MainViewModel(
+            new NumberRepository(),
+            new RandomRepository(),
+            null,
+            scheduler.asExecutor(10),
+            scheduler.asExecutor()
+        );
+        LiveDataRecorder<MainViewState> recorder = rule.record(mainViewModel.getViewStateLiveData());
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            mainViewModel.onAddButtonClicked();
+            scheduler.advanceTimeBy(2);
+        }
+        scheduler.advanceUntilIdle();
+
+        // Then
+        assertTrue("Too many ViewStates: " + recorder.getValueCount(), recorder.getValueCount() < 20);
+        assertEquals("20", recorder.getLastValue().getNumberToDisplay());
+    }
+
+    @Test
+    public void when_nothingClicked_should_failImmediately() {
+        // Given
+        MainViewModel mainViewModel = new MainViewModel(new NumberRepository(), new RandomRepository());
+        LiveDataRecorder<MainViewState> recorder = rule.record(mainViewModel.getViewStateLiveData());
+        long startNanos = System.nanoTime();
+
+        // When
+        // Le NumberRepository n'a pas encore de valeur : aucun ViewState
+        AssertionError error = null;
+        try {
+            recorder.getLastValue();
+        } catch (AssertionError e) {
+            error = e;
+        }
+
+        // Then
+        // Pas de "timeout" de 2 secondes comme avec un CountDownLatch
+        assertTrue(error != null);
+        assertTrue(System.nanoTime() - startNanos < 100_000_000);
+    }
+}
@@ -0,0 +1,59 @@
+package fr.delcey.mediatorlivedataexample;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MainViewStateFormatterTest {
+
+    @Test
+    public void format_should_buildSameViewStateAsConcatenation() {
+        // Given
+        MainViewStateFormatter formatter = new MainViewStateFormatter();
+
+        // When
+        MainViewState result = formatter.format(42, 7);
+
+        // Then
+        assertEquals(
+            new MainViewState(
+                "294",
+                "Le nombre 294 est pair, le nombre aléatoire est 7"
+            ),
+            result
+        );
+    }
+
+    // Le buffer est réutilisé : on vérifie qu'une phrase plus courte n'hérite pas de la fin de la précédente
+    @Test
+    public void format_should_notLeakPreviousSentence() {
+        // Given
+        MainViewStateFormatter formatter = new MainViewStateFormatter();
+        formatter.format(100_000, 10);
+
+        // When
+        MainViewState result = formatter.format(1, 5);
+
+        // Then
+        assertEquals(new MainViewState("5", "Le nombre 5 est impair, le nombre aléatoire est 5"), result);
+    }
+
+    @Test
+    public void formatNumber_should_handleEdgeValues() {
+        MainViewStateFormatter formatter = new MainViewStateFormatter();
+
+        assertEquals("0", formatter.formatNumber(0));
+        assertEquals("1023", formatter.formatNumber(1023));
+        assertEquals("1024", formatter.formatNumber(1024));
+        assertEquals("-7", formatter.formatNumber(-7));
+        assertEquals(String.valueOf(Integer.MAX_VALUE), formatter.formatNumber(Integer.MAX_VALUE));
+        assertEquals(String.valueOf(Integer.MIN_VALUE), formatter.formatNumber(Integer.MIN_VALUE));
+        assertEquals("Le nombre -3 est impair, le nombre aléatoire est 1", formatter.formatSentence(-3, 1));
+    }
+
+    @Test
+    public void formatNumber_should_reuseCachedSmallNumbers() {
+        assertSame(new MainViewStateFormatter().formatNumber(42), new MainViewStateFormatter().formatNumber(42));
+    }
+}
@@ -0,0 +1,146 @@
+package fr.delcey.mediatorlivedataexample;
+
+import org.junit.Test;
+
+import fr.delcey.mediatorlivedataexample.utils.QueueExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MainViewStateLookupTableTest {
+
+    private final QueueExecutor refillExecutor = new QueueExecutor();
+
+    private final MainViewStateLookupTable lookupTable = new MainViewStateLookupTable(refillExecutor);
+
+    @Test
+    public void get_should_returnNull_untilWindowIsBuilt() {
+        // When
+        lookupTable.prefetchAround(42);
+
+        // Then
+        assertNull(lookupTable.get(42, 3));
+        assertEquals(1, refillExecutor.getPendingTaskCount());
+
+        // When
+        refillExecutor.runAll();
+
+        // Then
+        assertEquals(new MainViewState("126", "Le nombre 126 est pair, le nombre aléatoire est 3"), lookupTable.get(42, 3));
+        assertEquals(1, lookupTable.getHitCount());
+        assertEquals(1, lookupTable.getMissCount());
+    }
+
+    @Test
+    public void window_should_containEveryRandomNumber() {
+        // Given
+        lookupTable.prefetchAround(7);
+        refillExecutor.runAll();
+
+        // Then
+        for (int randomNumber = 1; randomNumber <= 10; randomNumber++) {
+            MainViewState viewState = lookupTable.get(7, randomNumber);
+
+            assertNotNull(viewState);
+            assertEquals(new MainViewStateFormatter().format(7, randomNumber), viewState);
+        }
+        assertNull(lookupTable.get(7, 0));
+        assertNull(lookupTable.get(7, 11));
+    }
+
+    @Test
+    public void prefetch_should_notScheduleRefill_whenNumberStaysInWindow() {
+        // Given
+        lookupTable.prefetchAround(0);
+        refillExecutor.runAll();
+
+        // When
+        lookupTable.prefetchAround(1);
+        lookupTable.prefetchAround(2);
+
+        // Then
+        assertEquals(0, refillExecutor.getPendingTaskCount());
+        assertEquals(1, lookupTable.getRefillCount());
+    }
+
+    @Test
+    public void window_should_followIncrements() {
+        // Given
+        lookupTable.prefetchAround(0);
+        refillExecutor.runAll();
+        MainViewState firstViewState = lookupTable.get(20, 5);
+
+        // When : 1 000 clics "+1", la fenêtre est reconstruite en arrière plan entre 2 clics
+        for (int number = 1; number <= 1_000; number++) {
+            lookupTable.prefetchAround(number);
+            refillExecutor.runAll();
+
+            // Then
+            assertNotNull(lookupTable.get(number, 5));
+        }
+
+        // Then : la fenêtre n'est pas reconstruite à chaque clic, et aucun clic ne tombe en dehors
+        assertTrue(lookupTable.getRefillCount() < 1_000 / 16);
+        assertEquals(0, lookupTable.getMissCount());
+
+        // When : retour en arrière
+        lookupTable.prefetchAround(20);
+        refillExecutor.runAll();
+        assertNotNull(firstViewState);
+        assertEquals(firstViewState, lookupTable.get(20, 5));
+    }
+
+    @Test
+    public void slidingWindow_should_reuseOverlappingViewStates() {
+        // Given
+        lookupTable.prefetchAround(0);
+        refillExecutor.runAll();
+        MainViewState viewState = lookupTable.get(30, 2);
+
+        // When
+        lookupTable.prefetchAround(MainViewStateLookupTable.WINDOW_SIZE / 2 + 10);
+        refillExecutor.runAll();
+
+        // Then
+        assertEquals(2, lookupTable.getRefillCount());
+        assertSame(viewState, lookupTable.get(30, 2));
+    }
+
+    @Test
+    public void window_should_beDropped_afterBigJump() {
+        // Given
+        lookupTable.prefetchAround(10);
+        refillExecutor.runAll();
+
+        // When
+        lookupTable.prefetchAround(10_000);
+
+        // Then : tant que la nouvelle fenêtre n'est pas construite, on retombe sur le calcul classique
+        assertNull(lookupTable.get(10_000, 1));
+
+        refillExecutor.runAll();
+
+        assertNotNull(lookupTable.get(10_000, 1));
+        assertNull(lookupTable.get(10, 1));
+    }
+
+    @Test
+    public void window_should_notOverflow_nearIntegerBounds() {
+        // When
+        lookupTable.prefetchAround(Integer.MAX_VALUE);
+        refillExecutor.runAll();
+
+        // Then
+        assertEquals(new MainViewStateFormatter().format(Integer.MAX_VALUE, 2), lookupTable.get(Integer.MAX_VALUE, 2));
+
+        // When
+        lookupTable.prefetchAround(Integer.MIN_VALUE);
+        refillExecutor.runAll();
+
+        // Then
+        assertEquals(new MainViewStateFormatter().format(Integer.MIN_VALUE, 1), lookupTable.get(Integer.MIN_VALUE, 1));
+    }
+}
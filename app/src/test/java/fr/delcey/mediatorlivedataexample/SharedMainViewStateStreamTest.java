@@ -0,0 +1,152 @@
+package fr.delcey.mediatorlivedataexample;
+
+import androidx.lifecycle.Observer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.history.MainViewStateHistory;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.utils.LiveDataRecorder;
+import fr.delcey.mediatorlivedataexample.utils.VirtualTimeRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SharedMainViewStateStreamTest {
+
+    @Rule
+    public final VirtualTimeRule rule = new VirtualTimeRule();
+
+    private NumberRepository numberRepository;
+    private RandomRepository randomRepository;
+    private SharedMainViewStateStream stream;
+
+    @Before
+    public void setUp() {
+        numberRepository = new NumberRepository();
+        randomRepository = new RandomRepository();
+        stream = new SharedMainViewStateStream(numberRepository, randomRepository);
+    }
+
+    @Test
+    public void when_manyViewModelsObserved_should_combineOncePerChange() {
+        // Given
+        List<LiveDataRecorder<MainViewState>> recorders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            MainViewModel mainViewModel = new MainViewModel(numberRepository, randomRepository, stream);
+            recorders.add(rule.record(mainViewModel.getViewStateLiveData()));
+        }
+
+        // When
+        numberRepository.addToNumber(1);
+        numberRepository.addToNumber(1);
+
+        // Then
+        assertEquals(2, stream.getCombineCount());
+        for (LiveDataRecorder<MainViewState> recorder : recorders) {
+            assertEquals(new MainViewState("2", "Le nombre 2 est pair, le nombre aléatoire est 1"), recorder.getLastValue());
+        }
+    }
+
+    @Test
+    public void repositories_should_beObserved_onlyWhileThereAreSubscribers() {
+        // Given
+        MainViewModel first = new MainViewModel(numberRepository, randomRepository, stream);
+        MainViewModel second = new MainViewModel(numberRepository, randomRepository, stream);
+
+        // Then
+        assertFalse(numberRepository.getNumberLiveData().hasIntObservers());
+
+        // When
+        LiveDataRecorder<MainViewState> firstRecorder = rule.record(first.getViewStateLiveData());
+        LiveDataRecorder<MainViewState> secondRecorder = rule.record(second.getViewStateLiveData());
+
+        // Then
+        assertEquals(2, stream.getSubscriberCount());
+        assertTrue(numberRepository.getNumberLiveData().hasIntObservers());
+
+        // When
+        firstRecorder.stop();
+
+        // Then
+        assertEquals(1, stream.getSubscriberCount());
+        assertTrue(numberRepository.getNumberLiveData().hasIntObservers());
+
+        // When
+        secondRecorder.stop();
+        numberRepository.addToNumber(1);
+
+        // Then
+        // Plus personne n'écoute : plus aucun calcul
+        assertEquals(0, stream.getSubscriberCount());
+        assertFalse(numberRepository.getNumberLiveData().hasIntObservers());
+        assertEquals(0, stream.getCombineCount());
+    }
+
+    @Test
+    public void when_viewModelResubscribes_should_notDuplicateHistory() {
+        // Given
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, randomRepository, stream);
+        // Un autre écran garde le flux actif : il a toujours un ViewState à redonner
+        rule.record(new MainViewModel(numberRepository, randomRepository, stream).getViewStateLiveData());
+        LiveDataRecorder<MainViewState> recorder = rule.record(mainViewModel.getViewStateLiveData());
+        LiveDataRecorder<MainViewStateHistory.Snapshot> historyRecorder = rule.record(mainViewModel.getHistoryLiveData());
+        numberRepository.addToNumber(1);
+        numberRepository.addToNumber(1);
+
+        // When
+        // onStop() / onStart(), ou une rotation : la View arrête puis recommence à observer le ViewModel
+        recorder.stop();
+        recorder = rule.record(mainViewModel.getViewStateLiveData());
+
+        // Then
+        assertEquals(2, historyRecorder.getLastValue().size());
+        assertEquals(new MainViewState("2", "Le nombre 2 est pair, le nombre aléatoire est 1"), recorder.getLastValue());
+    }
+
+    @Test
+    public void lateSubscriber_should_receiveCurrentViewStateImmediately() {
+        // Given
+        stream.subscribe(viewState -> {
+        });
+        numberRepository.addToNumber(1);
+        List<MainViewState> received = new ArrayList<>();
+
+        // When
+        stream.subscribe(received::add);
+
+        // Then
+        assertEquals(Arrays.asList(new MainViewState("1", "Le nombre 1 est impair, le nombre aléatoire est 1")), received);
+        assertEquals(1, stream.getCombineCount());
+    }
+
+    @Test
+    public void when_subscriberLeavesDuringEmission_should_stillNotifyOthers() {
+        // Given
+        List<String> events = new ArrayList<>();
+        stream.subscribe(new Observer<MainViewState>() {
+            @Override
+            public void onChanged(MainViewState viewState) {
+                events.add("first " + viewState.getNumberToDisplay());
+                stream.unsubscribe(this);
+            }
+        });
+        stream.subscribe(viewState -> events.add("second " + viewState.getNumberToDisplay()));
+
+        // When
+        numberRepository.addToNumber(1);
+        numberRepository.addToNumber(1);
+
+        // Then
+        assertEquals(Arrays.asList("first 1", "second 1", "second 2"), events);
+        assertEquals(1, stream.getSubscriberCount());
+    }
+}
@@ -0,0 +1,171 @@
+package fr.delcey.mediatorlivedataexample.history;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import fr.delcey.mediatorlivedataexample.MainViewState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class HistoryDifferTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    // Les 2 Executors mettent leurs tâches en file d'attente : le test décide quand le "background" et le "thread principal" les exécutent
+    private final Queue<Runnable> backgroundQueue = new ArrayDeque<>();
+    private final Queue<Runnable> mainThreadQueue = new ArrayDeque<>();
+
+    private final HistoryDiffer historyDiffer = new HistoryDiffer(
+        new HistoryDiffer.Callback() {
+            @Override
+            public void onInserted(int position, int count) {
+                events.add("inserted " + position + " " + count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                events.add("removed " + position + " " + count);
+            }
+        },
+        queueExecutor(backgroundQueue),
+        queueExecutor(mainThreadQueue)
+    );
+
+    private final MainViewStateHistory history = new MainViewStateHistory(5);
+
+    @Test
+    public void firstSnapshot_should_beAppliedImmediately() {
+        // Given
+        append(3);
+
+        // When
+        historyDiffer.submit(history.snapshot());
+
+        // Then
+        assertEquals(3, historyDiffer.getItemCount());
+        assertEquals(Arrays.asList("inserted 0 3"), events);
+        assertEquals(0, backgroundQueue.size());
+    }
+
+    @Test
+    public void append_should_beInsertedAtEnd_afterBackgroundDiff() {
+        // Given
+        append(3);
+        historyDiffer.submit(history.snapshot());
+        events.clear();
+        append(1);
+
+        // When
+        historyDiffer.submit(history.snapshot());
+
+        // Then : rien n'est appliqué tant que le calcul en arrière plan n'est pas terminé
+        assertEquals(3, historyDiffer.getItemCount());
+        assertEquals(Collections.emptyList(), events);
+
+        drain(backgroundQueue);
+        drain(mainThreadQueue);
+
+        assertEquals(4, historyDiffer.getItemCount());
+        assertEquals(Arrays.asList("inserted 3 1"), events);
+    }
+
+    @Test
+    public void eviction_should_beRemovedAtStart() {
+        // Given
+        append(5);
+        historyDiffer.submit(history.snapshot());
+        events.clear();
+        append(2);
+
+        // When
+        historyDiffer.submit(history.snapshot());
+        drain(backgroundQueue);
+        drain(mainThreadQueue);
+
+        // Then
+        assertEquals(5, historyDiffer.getItemCount());
+        assertEquals(Arrays.asList("removed 0 2", "inserted 3 2"), events);
+    }
+
+    @Test
+    public void nothingInCommon_should_replaceEverything() {
+        // Given
+        append(5);
+        historyDiffer.submit(history.snapshot());
+        events.clear();
+        append(10);
+
+        // When
+        historyDiffer.submit(history.snapshot());
+        drain(backgroundQueue);
+        drain(mainThreadQueue);
+
+        // Then
+        assertEquals(Arrays.asList("removed 0 5", "inserted 0 5"), events);
+    }
+
+    // Comme AsyncListDiffer : seul le dernier Snapshot soumis est appliqué
+    @Test
+    public void outdatedDiff_should_beIgnored() {
+        // Given
+        append(1);
+        historyDiffer.submit(history.snapshot());
+        events.clear();
+
+        append(1);
+        historyDiffer.submit(history.snapshot());
+        append(1);
+        MainViewStateHistory.Snapshot lastSnapshot = history.snapshot();
+        historyDiffer.submit(lastSnapshot);
+
+        // When
+        drain(backgroundQueue);
+        drain(mainThreadQueue);
+
+        // Then
+        assertSame(lastSnapshot, historyDiffer.getCurrentSnapshot());
+        assertEquals(Arrays.asList("inserted 1 2"), events);
+    }
+
+    @Test
+    public void nullSnapshot_should_clearList() {
+        // Given
+        append(2);
+        historyDiffer.submit(history.snapshot());
+        events.clear();
+
+        // When
+        historyDiffer.submit(null);
+
+        // Then
+        assertNull(historyDiffer.getCurrentSnapshot());
+        assertEquals(Arrays.asList("removed 0 2"), events);
+    }
+
+    private void append(int count) {
+        for (int i = 0; i < count; i++) {
+            history.append(new MainViewState(String.valueOf(i), "Le nombre " + i));
+        }
+    }
+
+    private static Executor queueExecutor(Queue<Runnable> queue) {
+        return queue::add;
+    }
+
+    private static void drain(Queue<Runnable> queue) {
+        Runnable runnable;
+
+        while ((runnable = queue.poll()) != null) {
+            runnable.run();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package fr.delcey.mediatorlivedataexample.history;
+
+import org.junit.Test;
+
+import fr.delcey.mediatorlivedataexample.MainViewState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MainViewStateHistoryTest {
+
+    @Test
+    public void nominal_case() {
+        // Given
+        MainViewStateHistory history = new MainViewStateHistory(10);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            history.append(viewState(i));
+        }
+        MainViewStateHistory.Snapshot snapshot = history.snapshot();
+
+        // Then
+        assertEquals(3, snapshot.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(viewState(i), snapshot.get(i));
+            assertEquals(i, snapshot.getId(i));
+        }
+    }
+
+    @Test
+    public void when_full_should_evictOldestEntries_andKeepIds() {
+        // Given
+        MainViewStateHistory history = new MainViewStateHistory(1_000);
+
+        // When
+        for (int i = 0; i < 5_000; i++) {
+            history.append(viewState(i));
+        }
+        MainViewStateHistory.Snapshot snapshot = history.snapshot();
+
+        // Then
+        assertEquals(1_000, snapshot.size());
+        assertEquals(4_000, snapshot.getFirstId());
+        assertEquals(5_000, snapshot.getEndId());
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertEquals(4_000 + i, snapshot.getId(i));
+            assertEquals(viewState(4_000 + i), snapshot.get(i));
+        }
+    }
+
+    // Un Snapshot ne doit jamais changer, même si l'historique continue d'évoluer (et de supprimer ses plus anciennes entrées)
+    @Test
+    public void snapshot_should_beImmutable() {
+        // Given
+        MainViewStateHistory history = new MainViewStateHistory(300);
+        for (int i = 0; i < 300; i++) {
+            history.append(viewState(i));
+        }
+        MainViewStateHistory.Snapshot snapshot = history.snapshot();
+        MainViewState firstViewState = snapshot.get(0);
+
+        // When
+        for (int i = 300; i < 3_000; i++) {
+            history.append(viewState(i));
+        }
+
+        // Then
+        assertEquals(300, snapshot.size());
+        assertSame(firstViewState, snapshot.get(0));
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertEquals(viewState(i), snapshot.get(i));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBoundsPosition_should_throw() {
+        MainViewStateHistory history = new MainViewStateHistory(10);
+        history.append(viewState(0));
+
+        history.snapshot().get(1);
+    }
+
+    private static MainViewState viewState(int number) {
+        return new MainViewState(String.valueOf(number), "Le nombre " + number);
+    }
+}
@@ -0,0 +1,97 @@
+package fr.delcey.mediatorlivedataexample.livedata;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CombineLatestLiveDataTest {
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    private final MutableIntLiveData firstLiveData = new MutableIntLiveData();
+    private final MutableIntLiveData secondLiveData = new MutableIntLiveData();
+    private final MutableLiveData<String> thirdLiveData = new MutableLiveData<>();
+
+    private final CombineLatestLiveData<String> combineLatestLiveData = new CombineLatestLiveData<>(
+        new CombineLatestLiveData.Combiner<String>() {
+            @Override
+            public String combine(@NonNull CombineLatestLiveData.Values values) {
+                return values.getInt(0) + "-" + values.getInt(1) + "-" + values.get(2);
+            }
+        },
+        firstLiveData,
+        secondLiveData,
+        thirdLiveData
+    );
+
+    @Test
+    public void should_emitOnlyWhenAllSourcesHaveAValue() {
+        // Given
+        List<String> emittedValues = observe();
+
+        // When
+        firstLiveData.setValue(1);
+        secondLiveData.setValue(2);
+        thirdLiveData.setValue("a");
+        firstLiveData.setValue(3);
+
+        // Then
+        assertEquals(Arrays.asList("1-2-a", "3-2-a"), emittedValues);
+    }
+
+    @Test
+    public void should_notRecombine_when_sourceReEmitsSameValue() {
+        // Given
+        List<String> emittedValues = observe();
+        firstLiveData.setValue(1);
+        secondLiveData.setValue(2);
+        thirdLiveData.setValue("a");
+
+        // When
+        firstLiveData.setValue(1);
+        thirdLiveData.setValue("a");
+
+        // Then
+        assertEquals(Arrays.asList("1-2-a"), emittedValues);
+        assertEquals(1, combineLatestLiveData.getCombineCount());
+        assertEquals(2, combineLatestLiveData.getUnchangedSourceCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_refuseSingleSource() {
+        new CombineLatestLiveData<>(
+            new CombineLatestLiveData.Combiner<Integer>() {
+                @Override
+                public Integer combine(@NonNull CombineLatestLiveData.Values values) {
+                    return values.getInt(0);
+                }
+            },
+            firstLiveData
+        );
+    }
+
+    @NonNull
+    private List<String> observe() {
+        List<String> emittedValues = new ArrayList<>();
+
+        combineLatestLiveData.observeForever(new Observer<String>() {
+            @Override
+            public void onChanged(String value) {
+                emittedValues.add(value);
+            }
+        });
+
+        return emittedValues;
+    }
+}
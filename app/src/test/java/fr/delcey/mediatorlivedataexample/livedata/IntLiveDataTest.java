@@ -0,0 +1,185 @@
+package fr.delcey.mediatorlivedataexample.livedata;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IntLiveDataTest {
+
+    private static final int UPDATE_COUNT = 100_000;
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    @Test
+    public void observeIntForever_should_receiveCurrentThenNewValues() {
+        // Given
+        MutableIntLiveData intLiveData = new MutableIntLiveData(42);
+        List<Integer> receivedValues = new ArrayList<>();
+
+        // When
+        intLiveData.observeIntForever(new IntObserver() {
+            @Override
+            public void onChanged(int value) {
+                receivedValues.add(value);
+            }
+        });
+        intLiveData.setValue(1_000);
+
+        // Then
+        assertEquals(Arrays.asList(42, 1_000), receivedValues);
+    }
+
+    @Test
+    public void emptyIntLiveData_should_notNotify() {
+        // Given
+        MutableIntLiveData intLiveData = new MutableIntLiveData();
+        List<Integer> receivedValues = new ArrayList<>();
+
+        // When
+        intLiveData.observeIntForever(new IntObserver() {
+            @Override
+            public void onChanged(int value) {
+                receivedValues.add(value);
+            }
+        });
+
+        // Then
+        assertTrue(receivedValues.isEmpty());
+        assertFalse(intLiveData.hasValue());
+        assertNull(intLiveData.getValue());
+    }
+
+    @Test
+    public void observeInt_should_followLifecycle() {
+        // Given
+        TestLifecycleOwner lifecycleOwner = new TestLifecycleOwner();
+        MutableIntLiveData intLiveData = new MutableIntLiveData(1);
+        List<Integer> receivedValues = new ArrayList<>();
+        intLiveData.observeInt(lifecycleOwner, new IntObserver() {
+            @Override
+            public void onChanged(int value) {
+                receivedValues.add(value);
+            }
+        });
+
+        // When
+        intLiveData.setValue(2); // Pas encore "STARTED" : pas de notification
+        lifecycleOwner.lifecycleRegistry.setCurrentState(Lifecycle.State.STARTED); // Reçoit la dernière valeur
+        intLiveData.setValue(3);
+        lifecycleOwner.lifecycleRegistry.setCurrentState(Lifecycle.State.CREATED);
+        intLiveData.setValue(4); // Plus "STARTED" : pas de notification
+        lifecycleOwner.lifecycleRegistry.setCurrentState(Lifecycle.State.DESTROYED); // L'observer est retiré
+
+        // Then
+        assertEquals(Arrays.asList(2, 3), receivedValues);
+        assertFalse(intLiveData.hasIntObservers());
+    }
+
+    // Une IntLiveData reste une LiveData<Integer> : elle fonctionne avec un Observer "classique", même si sa valeur a changé avant
+    @Test
+    public void boxedObserver_should_receiveLatestValue() {
+        // Given
+        MutableIntLiveData intLiveData = new MutableIntLiveData();
+        intLiveData.setValue(500);
+        List<Integer> receivedValues = new ArrayList<>();
+
+        // When
+        intLiveData.observeForever(new Observer<Integer>() {
+            @Override
+            public void onChanged(Integer value) {
+                receivedValues.add(value);
+            }
+        });
+        intLiveData.setValue(501);
+
+        // Then
+        assertEquals(Arrays.asList(500, 501), receivedValues);
+    }
+
+    @Test
+    public void intObserver_should_allocateLessThanBoxedObserver() {
+        // Given
+        MutableLiveData<Integer> boxedLiveData = new MutableLiveData<>(0);
+        boxedLiveData.observeForever(new Observer<Integer>() {
+            @Override
+            public void onChanged(Integer value) {
+            }
+        });
+
+        MutableIntLiveData intLiveData = new MutableIntLiveData(0);
+        intLiveData.observeIntForever(new IntObserver() {
+            @Override
+            public void onChanged(int value) {
+            }
+        });
+
+        // When
+        // On reproduit le "read / modify / write" des repositories, au delà du cache des Integer (> 127)
+        long boxedAllocatedBytes = getAllocatedBytes();
+        for (int i = 0; i < UPDATE_COUNT; i++) {
+            //noinspection ConstantConditions
+            boxedLiveData.setValue(boxedLiveData.getValue() + 1_000);
+        }
+        boxedAllocatedBytes = getAllocatedBytes() - boxedAllocatedBytes;
+
+        long intAllocatedBytes = getAllocatedBytes();
+        for (int i = 0; i < UPDATE_COUNT; i++) {
+            intLiveData.setValue(intLiveData.getIntValue() + 1_000);
+        }
+        intAllocatedBytes = getAllocatedBytes() - intAllocatedBytes;
+
+        // Then
+        System.out.println(
+            "Octets alloués par mise à jour : " + ((double) boxedAllocatedBytes / UPDATE_COUNT) + " (LiveData<Integer>) contre "
+                + ((double) intAllocatedBytes / UPDATE_COUNT) + " (IntLiveData)"
+        );
+
+        // Mesure non disponible sur toutes les JVM (dans ce cas, "getAllocatedBytes()" renvoie toujours -1)
+        if (boxedAllocatedBytes > 0) {
+            assertTrue(intAllocatedBytes < boxedAllocatedBytes);
+        }
+    }
+
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    private static class TestLifecycleOwner implements LifecycleOwner {
+
+        private final LifecycleRegistry lifecycleRegistry = LifecycleRegistry.createUnsafe(this);
+
+        TestLifecycleOwner() {
+            lifecycleRegistry.setCurrentState(Lifecycle.State.CREATED);
+        }
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycleRegistry;
+        }
+    }
+}
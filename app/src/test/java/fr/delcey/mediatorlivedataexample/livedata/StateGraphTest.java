@@ -0,0 +1,177 @@
+package fr.delcey.mediatorlivedataexample.livedata;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StateGraphTest {
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    private final StateGraph graph = new StateGraph();
+
+    @Test
+    public void diamond_should_computeSinkOnce_withoutGlitch() {
+        // Given
+        // a -> b = a + 1, a -> c = a x 2, (b, c) -> d
+        StateGraph.Node<Integer> a = graph.source(1);
+        StateGraph.Node<Integer> b = graph.derive(inputs -> inputs.get(a) + 1, a);
+        StateGraph.Node<Integer> c = graph.derive(inputs -> inputs.get(a) * 2, a);
+        StateGraph.Node<String> d = graph.derive(inputs -> inputs.get(b) + "/" + inputs.get(c), b, c);
+        List<String> emittedValues = observe(d);
+        long computeCount = graph.getComputeCount();
+
+        // When
+        a.setValue(10);
+
+        // Then
+        // Jamais "11/2" (b à jour, c périmé) : un seul calcul de chaque noeud
+        assertEquals(Arrays.asList("2/2", "11/20"), emittedValues);
+        assertEquals(3, graph.getComputeCount() - computeCount);
+    }
+
+    @Test
+    public void unchangedIntermediateValue_should_cutOffPropagation() {
+        // Given
+        // nombre -> parité -> phrase
+        StateGraph.Node<Integer> number = graph.source(2);
+        StateGraph.Node<Boolean> isEven = graph.derive(inputs -> inputs.get(number) % 2 == 0, number);
+        StateGraph.Node<String> sentence = graph.derive(inputs -> inputs.get(isEven) ? "pair" : "impair", isEven);
+        List<String> emittedValues = observe(sentence);
+        long computeCount = graph.getComputeCount();
+
+        // When
+        number.setValue(4);
+
+        // Then
+        // La parité est recalculée, mais pas la phrase
+        assertEquals(Arrays.asList("pair"), emittedValues);
+        assertEquals(1, graph.getComputeCount() - computeCount);
+        assertEquals(1, graph.getCutoffCount());
+    }
+
+    @Test
+    public void derivedNode_should_haveNoValue_untilAllDependenciesHaveOne() {
+        // Given
+        StateGraph.Node<Integer> first = graph.source();
+        StateGraph.Node<Integer> second = graph.source();
+        StateGraph.Node<Integer> sum = graph.derive(inputs -> inputs.get(first) + inputs.get(second), first, second);
+        List<Integer> emittedValues = observe(sum);
+
+        // When
+        first.setValue(1);
+
+        // Then
+        assertFalse(sum.hasValue());
+        assertNull(sum.asLiveData().getValue());
+        assertEquals(0, graph.getComputeCount());
+
+        // When
+        second.setValue(2);
+
+        // Then
+        assertEquals(Arrays.asList(3), emittedValues);
+    }
+
+    @Test
+    public void batch_should_propagateOnce() {
+        // Given
+        StateGraph.Node<Integer> first = graph.source(1);
+        StateGraph.Node<Integer> second = graph.source(1);
+        StateGraph.Node<Integer> product = graph.derive(inputs -> inputs.get(first) * inputs.get(second), first, second);
+        List<Integer> emittedValues = observe(product);
+        long propagationCount = graph.getPropagationCount();
+
+        // When
+        graph.batch(() -> {
+            first.setValue(6);
+            second.setValue(7);
+        });
+
+        // Then
+        assertEquals(Arrays.asList(1, 42), emittedValues);
+        assertEquals(1, graph.getPropagationCount() - propagationCount);
+    }
+
+    @Test
+    public void liveDataSources_should_beObserved_onlyWhileAnOutputIsActive() {
+        // Given
+        MutableLiveData<Integer> numberLiveData = new MutableLiveData<>(5);
+        StateGraph.Node<Integer> number = graph.source(numberLiveData);
+        StateGraph.Node<Integer> square = graph.derive(inputs -> inputs.get(number) * inputs.get(number), number);
+
+        // Then
+        assertFalse(numberLiveData.hasObservers());
+
+        // When
+        Observer<Integer> observer = value -> {
+        };
+        square.asLiveData().observeForever(observer);
+
+        // Then
+        assertTrue(numberLiveData.hasObservers());
+        assertEquals(Integer.valueOf(25), square.asLiveData().getValue());
+
+        // When
+        square.asLiveData().removeObserver(observer);
+        numberLiveData.setValue(6);
+
+        // Then
+        assertFalse(numberLiveData.hasObservers());
+        assertEquals(Integer.valueOf(25), square.getValue());
+    }
+
+    @Test
+    public void outputObservers_should_seeWholeGraphUpToDate() {
+        // Given
+        StateGraph.Node<Integer> a = graph.source(1);
+        StateGraph.Node<Integer> b = graph.derive(inputs -> inputs.get(a) * 10, a);
+        StateGraph.Node<Integer> c = graph.derive(inputs -> inputs.get(b) * 10, b);
+        List<String> seenStates = new ArrayList<>();
+        // L'Observer d'un noeud relit un autre noeud, calculé après lui : il doit déjà être à jour
+        b.asLiveData().observeForever(value -> seenStates.add(value + "/" + c.getValue()));
+
+        // When
+        a.setValue(2);
+
+        // Then
+        assertEquals(Arrays.asList("10/100", "20/200"), seenStates);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readingUndeclaredDependency_should_throw() {
+        StateGraph.Node<Integer> a = graph.source(1);
+        StateGraph.Node<Integer> b = graph.source(2);
+
+        graph.derive(inputs -> inputs.get(a) + inputs.get(b), a);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void settingDerivedNode_should_throw() {
+        StateGraph.Node<Integer> a = graph.source(1);
+        StateGraph.Node<Integer> b = graph.derive(inputs -> inputs.get(a) + 1, a);
+
+        b.setValue(3);
+    }
+
+    private <T> List<T> observe(StateGraph.Node<T> node) {
+        List<T> emittedValues = new ArrayList<>();
+
+        node.asLiveData().observeForever(emittedValues::add);
+
+        return emittedValues;
+    }
+}
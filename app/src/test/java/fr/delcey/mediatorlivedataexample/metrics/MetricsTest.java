@@ -0,0 +1,131 @@
+package fr.delcey.mediatorlivedataexample.metrics;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import fr.delcey.mediatorlivedataexample.MainViewModel;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class MetricsTest {
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    @Before
+    public void setUp() {
+        // Les mesures n'existent pas en release ("testReleaseUnitTest") : rien à tester dans ce cas
+        assumeTrue(Metrics.ENABLED);
+
+        Metrics.reset();
+    }
+
+    @Test
+    public void histogram_percentiles_should_beWithinPrecision() {
+        // Given
+        LatencyHistogram histogram = Metrics.histogram("test.percentiles");
+
+        // When : 1 à 100 000 ns
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        // Then
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxNanos());
+        assertEquals(50_000, histogram.getMeanNanos());
+        assertWithinPrecision(50_000, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(99_000, histogram.getValueAtPercentile(99));
+        assertEquals(100_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucketIndex_should_beMonotonic_andCoverEveryLong() {
+        int previousIndex = -1;
+
+        for (long value = 0; value < 1_000_000; value++) {
+            int index = LatencyHistogram.getBucketIndex(value);
+
+            assertTrue(index == previousIndex || index == previousIndex + 1);
+            assertTrue(LatencyHistogram.getBucketHighestValue(index) >= value);
+            previousIndex = index;
+        }
+
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.getBucketHighestValue(LatencyHistogram.getBucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void concurrentRecording_should_notLoseAnyValue() throws InterruptedException {
+        // Given
+        LatencyHistogram histogram = Metrics.histogram("test.concurrent");
+        Counter counter = Metrics.counter("test.concurrent");
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                for (int j = 0; j < 100_000; j++) {
+                    histogram.record(j);
+                    counter.increment();
+                }
+            });
+            threads[i].start();
+        }
+
+        // When
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertEquals(800_000, histogram.getCount());
+        assertEquals(800_000, counter.get());
+        assertEquals(99_999, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void mainViewModel_should_recordEmissionsAndCombines() {
+        // Given
+        NumberRepository numberRepository = new NumberRepository();
+        RandomRepository randomRepository = new RandomRepository();
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, randomRepository);
+        mainViewModel.getViewStateLiveData().observeForever(mainViewState -> {
+        });
+
+        // When
+        numberRepository.addToNumber(1);
+        numberRepository.addToNumber(1);
+        randomRepository.rollNewRandom();
+
+        // Then
+        assertEquals(2, Metrics.counter("NumberRepository.number.setValue").get());
+        assertEquals(2, Metrics.histogram("NumberRepository.number.deliveryLatency").getCount());
+        assertEquals(mainViewModel.getCombineCount(), Metrics.counter("MainViewModel.combine").get());
+        assertEquals(mainViewModel.getCombineCount(), Metrics.histogram("MainViewModel.combineDuration").getCount());
+
+        String report = Metrics.getTextReport();
+        assertTrue(report, report.contains("\nMainViewModel.combine = " + mainViewModel.getCombineCount()));
+        assertTrue(report, report.contains("\nMainViewModel.combineDuration : count=" + mainViewModel.getCombineCount() + " mean="));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("Expected ~" + expected + " but was " + actual, actual >= expected && actual <= expected * 1.04);
+    }
+}
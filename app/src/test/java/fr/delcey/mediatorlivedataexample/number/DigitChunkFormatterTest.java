@@ -0,0 +1,55 @@
+package fr.delcey.mediatorlivedataexample.number;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DigitChunkFormatterTest {
+
+    private final DigitChunkFormatter formatter = new DigitChunkFormatter();
+
+    @Test
+    public void format_should_matchLongToString() {
+        long[] values = {0, 1, 9, 10, 99, 100, 999, 1_000, 1_001, -1, -1_000, Long.MAX_VALUE, Long.MIN_VALUE, 999_999_999_999_999_999L};
+
+        for (long value : values) {
+            assertEquals(Long.toString(value), formatter.format(value));
+            assertEquals(Long.toString(value), formatter.format(ExactNumber.valueOf(value)));
+        }
+    }
+
+    @Test
+    public void format_should_keepZerosInsideChunks() {
+        // 10^18, 10^36 + 1, 10^72 : des morceaux de 18 chiffres qui ne sont que des 0 (ou presque)
+        BigInteger[] values = {
+            BigInteger.TEN.pow(18),
+            BigInteger.TEN.pow(36).add(BigInteger.ONE),
+            BigInteger.TEN.pow(72),
+            BigInteger.TEN.pow(72).subtract(BigInteger.ONE),
+            BigInteger.TEN.pow(100).negate().add(BigInteger.valueOf(7))
+        };
+
+        for (BigInteger value : values) {
+            assertEquals(value.toString(), formatter.format(value));
+        }
+    }
+
+    @Test
+    public void format_should_matchBigIntegerToString_forRandomValues() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2_000; i++) {
+            BigInteger value = new BigInteger(1 + random.nextInt(2_000), random);
+
+            if (random.nextBoolean()) {
+                value = value.negate();
+            }
+
+            assertEquals(value.toString(), formatter.format(value));
+            assertEquals(value.toString(), formatter.format(ExactNumber.valueOf(value)));
+        }
+    }
+}
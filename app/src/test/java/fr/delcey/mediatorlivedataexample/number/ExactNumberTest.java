@@ -0,0 +1,102 @@
+package fr.delcey.mediatorlivedataexample.number;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ExactNumberTest {
+
+    @Test
+    public void plus_should_promoteToBigInteger_onlyOnOverflow() {
+        // Given
+        ExactNumber max = ExactNumber.valueOf(Long.MAX_VALUE);
+
+        // When
+        ExactNumber result = max.plus(1);
+
+        // Then
+        assertTrue(max.isLong());
+        assertFalse(result.isLong());
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), result.toBigInteger());
+        assertTrue(ExactNumber.valueOf(Long.MIN_VALUE).plus(-1).toBigInteger().signum() < 0);
+    }
+
+    @Test
+    public void bigValue_should_comeBackToLong_whenItFitsAgain() {
+        // Given
+        ExactNumber big = ExactNumber.valueOf(Long.MAX_VALUE).plus(10);
+
+        // When
+        ExactNumber result = big.plus(-20);
+
+        // Then
+        assertTrue(result.isLong());
+        assertEquals(Long.MAX_VALUE - 10, result.longValue());
+        assertEquals(ExactNumber.valueOf(Long.MAX_VALUE - 10), result);
+    }
+
+    @Test
+    public void times_should_detectEveryOverflow() {
+        long[] operands = {
+            0, 1, -1, 2, -2, 3, 10, Integer.MAX_VALUE, Integer.MIN_VALUE, 3_037_000_499L, 3_037_000_500L, Long.MAX_VALUE / 2,
+            Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE / 2
+        };
+
+        for (long x : operands) {
+            for (long y : operands) {
+                BigInteger expected = BigInteger.valueOf(x).multiply(BigInteger.valueOf(y));
+                boolean expectedOverflow = expected.bitLength() > 63;
+
+                assertEquals(x + " x " + y, expectedOverflow, ExactNumber.multiplyOverflows(x, y));
+                assertEquals(x + " x " + y, expected, ExactNumber.valueOf(x).times(y).toBigInteger());
+            }
+        }
+    }
+
+    @Test
+    public void doublings_should_neverLoseValue() {
+        // Given
+        ExactNumber number = ExactNumber.valueOf(1);
+        BigInteger expected = BigInteger.ONE;
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            number = number.times(2).plus(i % 3);
+            expected = expected.shiftLeft(1).add(BigInteger.valueOf(i % 3));
+
+            // Then
+            assertEquals(expected, number.toBigInteger());
+            assertEquals(!expected.testBit(0), number.isEven());
+        }
+    }
+
+    @Test
+    public void isEven_should_useLowBit_forNegativeAndBigValues() {
+        assertTrue(ExactNumber.valueOf(-4).isEven());
+        assertFalse(ExactNumber.valueOf(-3).isEven());
+        assertTrue(ExactNumber.valueOf(Long.MIN_VALUE).times(3).isEven());
+        assertFalse(ExactNumber.valueOf(Long.MIN_VALUE).times(3).plus(-1).isEven());
+    }
+
+    @Test
+    public void equalValues_should_beEqual_whateverTheirHistory() {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 1_000; i++) {
+            long value = random.nextLong();
+            ExactNumber viaBig = ExactNumber.valueOf(value).times(Long.MAX_VALUE).plus(1).plus(-1);
+            ExactNumber viaBigInteger = ExactNumber.valueOf(BigInteger.valueOf(value).multiply(BigInteger.valueOf(Long.MAX_VALUE)));
+
+            assertEquals(viaBigInteger, viaBig);
+            assertEquals(viaBigInteger.hashCode(), viaBig.hashCode());
+        }
+
+        assertSame(ExactNumber.valueOf(42), ExactNumber.valueOf(BigInteger.valueOf(42)));
+    }
+}
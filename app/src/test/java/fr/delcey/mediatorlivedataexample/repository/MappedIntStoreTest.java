@@ -0,0 +1,144 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappedIntStoreTest {
+
+    // Les écritures sont faites immédiatement, sur le thread du test
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void newFile_should_haveNoValue() throws IOException {
+        MappedIntStore store = new MappedIntStore(temporaryFolder.newFile(), DIRECT_EXECUTOR);
+
+        assertFalse(store.hasRestoredValue());
+    }
+
+    @Test
+    public void numberRepository_should_restoreValueAfterRestart() throws IOException {
+        // Given
+        File file = temporaryFolder.newFile();
+        NumberRepository numberRepository = new NumberRepository(new MappedIntStore(file, DIRECT_EXECUTOR));
+        numberRepository.addToNumber(20);
+        numberRepository.multiplyNumber(2);
+        numberRepository.addToNumber(2);
+
+        // When
+        // "Redémarrage" de l'application : nouveau store et nouveau repository sur le même fichier
+        NumberRepository restartedNumberRepository = new NumberRepository(new MappedIntStore(file, DIRECT_EXECUTOR));
+
+        // Then
+        assertTrue(restartedNumberRepository.getNumberLiveData().hasValue());
+        assertEquals(42, restartedNumberRepository.getNumberLiveData().getIntValue());
+    }
+
+    // Les demandes d'écriture faites avant que l'Executor ne s'exécute sont regroupées en une seule, avec la dernière valeur
+    @Test
+    public void scheduleWrite_should_coalescePendingWrites() throws IOException {
+        // Given
+        File file = temporaryFolder.newFile();
+        List<Runnable> pendingWrites = new ArrayList<>();
+        NumberRepository numberRepository = new NumberRepository(new MappedIntStore(file, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                pendingWrites.add(command);
+            }
+        }));
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            numberRepository.addToNumber(1);
+        }
+
+        // Then
+        assertEquals(1, pendingWrites.size());
+        pendingWrites.get(0).run();
+        assertEquals(1_000, new MappedIntStore(file, DIRECT_EXECUTOR).getRestoredValue());
+    }
+
+    // Simule un crash en plein milieu d'une écriture : le slot en cours d'écriture est incohérent, la valeur précédente doit être restaurée
+    @Test
+    public void tornWrite_should_restorePreviousValue() throws IOException {
+        // Given
+        File file = temporaryFolder.newFile();
+        MappedIntStore store = new MappedIntStore(file, DIRECT_EXECUTOR);
+        store.write(1); // Séquence 1, slot 1
+        store.write(2); // Séquence 2, slot 0
+        store.write(3); // Séquence 3, slot 1
+
+        // When
+        // L'écriture de la séquence 3 n'a pas été jusqu'au bout : la valeur a changé mais pas la somme de contrôle
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(16 + 8);
+            randomAccessFile.writeInt(12345);
+        }
+        MappedIntStore restartedStore = new MappedIntStore(file, DIRECT_EXECUTOR);
+
+        // Then
+        assertTrue(restartedStore.hasRestoredValue());
+        assertEquals(2, restartedStore.getRestoredValue());
+
+        // Et on peut continuer à écrire normalement après la restauration
+        restartedStore.write(4);
+        assertEquals(4, new MappedIntStore(file, DIRECT_EXECUTOR).getRestoredValue());
+    }
+
+    @Test
+    public void randomRepository_should_ignoreOutOfRangeValue() throws IOException {
+        // Given
+        // Un fichier valide (bonne somme de contrôle), mais un tirage impossible
+        File file = temporaryFolder.newFile();
+        new MappedIntStore(file, DIRECT_EXECUTOR).write(42);
+
+        // When
+        RandomRepository randomRepository = new RandomRepository(new MappedIntStore(file, DIRECT_EXECUTOR));
+
+        // Then
+        assertEquals(1, randomRepository.getRandomNumberLiveData().getIntValue());
+        // Rien n'a été restauré : un tirage sauvegardé ailleurs peut encore être repris
+        assertTrue(randomRepository.restoreIfEmpty(7));
+    }
+
+    @Test
+    public void garbageFile_should_haveNoValue() throws IOException {
+        // Given
+        File file = temporaryFolder.newFile();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            for (int i = 0; i < 8; i++) {
+                randomAccessFile.writeInt(0xDEADBEEF);
+            }
+        }
+
+        // When
+        MappedIntStore store = new MappedIntStore(file, DIRECT_EXECUTOR);
+
+        // Then
+        assertFalse(store.hasRestoredValue());
+    }
+}
@@ -0,0 +1,165 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NumberOperationLogTest {
+
+    private static final int REPLAYED_OPERATION_COUNT = 1_000_000;
+
+    // Très large (quelques millisecondes suffisent en pratique) : on vérifie surtout qu'aucun objet n'est créé par opération
+    private static final long MAX_REPLAY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    public void valueAt_should_matchSequentialValues_atEveryPosition() {
+        // Given : petit intervalle de snapshots pour tester tous les cas (avant, pile sur, et après un snapshot)
+        NumberOperationLog operationLog = new NumberOperationLog(false, 3, 7);
+        Random random = new Random(42);
+        int[] expectedValues = new int[501];
+        expectedValues[0] = 3;
+
+        // When
+        for (int i = 1; i <= 500; i++) {
+            if (random.nextBoolean()) {
+                int toAdd = random.nextInt(100) - 50;
+                operationLog.append(NumberOperationLog.OP_ADD, toAdd, true);
+                expectedValues[i] = expectedValues[i - 1] + toAdd;
+            } else {
+                int factor = random.nextInt(5) - 2;
+                operationLog.append(NumberOperationLog.OP_MULTIPLY, factor, true);
+                expectedValues[i] = expectedValues[i - 1] * factor;
+            }
+        }
+
+        // Then
+        for (int i = 0; i <= 500; i++) {
+            assertEquals(expectedValues[i], operationLog.getIntValueAt(i));
+        }
+        assertEquals(expectedValues[500], operationLog.getIntValue());
+    }
+
+    @Test
+    public void undo_should_revertWholeAction() {
+        // Given : "+1", puis un batch "x3 +2" (une seule action), puis "x10"
+        NumberOperationLog operationLog = new NumberOperationLog(false, 0, 2);
+        operationLog.append(NumberOperationLog.OP_ADD, 1, true);
+        operationLog.append(NumberOperationLog.OP_MULTIPLY, 3, false);
+        operationLog.append(NumberOperationLog.OP_ADD, 2, true);
+        operationLog.append(NumberOperationLog.OP_MULTIPLY, 10, true);
+
+        // When / Then
+        assertEquals(50, operationLog.getIntValue());
+        assertTrue(operationLog.undo());
+        assertEquals(5, operationLog.getIntValue());
+        assertTrue(operationLog.undo());
+        assertEquals(1, operationLog.getIntValue());
+        assertTrue(operationLog.undo());
+        assertEquals(0, operationLog.getIntValue());
+        assertFalse(operationLog.undo());
+
+        assertTrue(operationLog.redo());
+        assertEquals(1, operationLog.getIntValue());
+        assertTrue(operationLog.redo());
+        assertEquals(5, operationLog.getIntValue());
+        assertEquals(3, operationLog.getPosition());
+        assertEquals(4, operationLog.size());
+    }
+
+    @Test
+    public void newAction_should_replaceUndoneActions() {
+        // Given
+        NumberOperationLog operationLog = new NumberOperationLog(false, 0, 2);
+        for (int i = 0; i < 5; i++) {
+            operationLog.append(NumberOperationLog.OP_ADD, 1, true);
+        }
+        operationLog.undo();
+        operationLog.undo();
+        operationLog.undo();
+
+        // When
+        operationLog.append(NumberOperationLog.OP_MULTIPLY, 100, true);
+
+        // Then : les snapshots écrits avant l'undo ont bien été remplacés
+        assertFalse(operationLog.canRedo());
+        assertEquals(3, operationLog.size());
+        assertEquals(200, operationLog.getIntValue());
+        assertEquals(200, operationLog.getIntValueAt(3));
+        assertEquals(2, operationLog.getIntValueAt(2));
+        assertEquals(NumberOperationLog.OP_MULTIPLY, operationLog.getOpCode(2));
+        assertEquals(100, operationLog.getOperand(2));
+    }
+
+    @Test
+    public void exactLog_should_undoBeyondLongRange() {
+        // Given
+        NumberOperationLog operationLog = new NumberOperationLog(true, 1, 16);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            operationLog.append(NumberOperationLog.OP_MULTIPLY, 2, true);
+        }
+        for (int i = 0; i < 30; i++) {
+            operationLog.undo();
+        }
+
+        // Then
+        assertEquals(ExactNumber.valueOf(BigInteger.ONE.shiftLeft(70)), operationLog.getExactValue());
+        assertEquals(ExactNumber.valueOf(BigInteger.ONE.shiftLeft(100)), operationLog.getExactValueAt(100));
+    }
+
+    @Test
+    public void replay_should_processOneMillionOperations_withinBudget() {
+        // Given : aucun snapshot intermédiaire, la valeur finale oblige à rejouer tout le journal
+        NumberOperationLog operationLog = new NumberOperationLog(false, 0, Integer.MAX_VALUE);
+        Random random = new Random(42);
+        int expectedValue = 0;
+
+        for (int i = 0; i < REPLAYED_OPERATION_COUNT; i++) {
+            if (random.nextInt(8) == 0) {
+                operationLog.append(NumberOperationLog.OP_MULTIPLY, 3, true);
+                expectedValue *= 3;
+            } else {
+                operationLog.append(NumberOperationLog.OP_ADD, 1, true);
+                expectedValue += 1;
+            }
+        }
+
+        // When
+        long startNanos = System.nanoTime();
+        int replayedValue = operationLog.getIntValueAt(REPLAYED_OPERATION_COUNT);
+        long replayNanos = System.nanoTime() - startNanos;
+
+        // Then
+        assertEquals(expectedValue, replayedValue);
+        assertTrue("Replay took " + TimeUnit.NANOSECONDS.toMillis(replayNanos) + " ms", replayNanos < MAX_REPLAY_NANOS);
+    }
+
+    @Test
+    public void undo_should_onlyReplayFromLastSnapshot() {
+        // Given : un million d'opérations avec les snapshots par défaut
+        NumberOperationLog operationLog = new NumberOperationLog(false, 0);
+        for (int i = 0; i < REPLAYED_OPERATION_COUNT; i++) {
+            operationLog.append(NumberOperationLog.OP_ADD, 1, true);
+        }
+
+        // When : 10 000 "undo", chacun rejoue au plus 1023 opérations
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            operationLog.undo();
+        }
+        long undoNanos = System.nanoTime() - startNanos;
+
+        // Then
+        assertEquals(REPLAYED_OPERATION_COUNT - 10_000, operationLog.getIntValue());
+        assertTrue("10 000 undo took " + TimeUnit.NANOSECONDS.toMillis(undoNanos) + " ms", undoNanos < MAX_REPLAY_NANOS);
+    }
+}
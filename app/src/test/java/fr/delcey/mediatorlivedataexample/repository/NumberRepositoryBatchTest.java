@@ -0,0 +1,82 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Random;
+
+import fr.delcey.mediatorlivedataexample.livedata.IntObserver;
+
+import static org.junit.Assert.assertEquals;
+
+public class NumberRepositoryBatchTest {
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    @Test
+    public void batch_should_emitOnceWithFoldedResult() {
+        // Given
+        NumberRepository numberRepository = new NumberRepository();
+        numberRepository.addToNumber(5);
+        int[] emissionCount = new int[1];
+        numberRepository.getNumberLiveData().observeIntForever(new IntObserver() {
+            @Override
+            public void onChanged(int value) {
+                emissionCount[0]++;
+            }
+        });
+
+        // When
+        numberRepository.batch(new NumberRepository.Batch() {
+            @Override
+            public void apply(@NonNull NumberOperations operations) {
+                operations.add(1).multiply(2).add(3).add(4).multiply(3).multiply(2);
+            }
+        });
+
+        // Then
+        // ((((5 + 1) * 2) + 3 + 4) * 3) * 2 = 114
+        assertEquals(114, numberRepository.getNumberLiveData().getIntValue());
+        // 1 émission pour la valeur courante lors de l'observation, puis 1 seule pour tout le batch
+        assertEquals(2, emissionCount[0]);
+    }
+
+    @Test
+    public void batch_should_matchSequentialOperations_evenWhenOverflowing() {
+        // Given
+        Random random = new Random(42);
+        int[] toAdd = new int[500];
+        int[] factors = new int[500];
+        for (int i = 0; i < toAdd.length; i++) {
+            toAdd[i] = random.nextInt(1_000);
+            factors[i] = random.nextInt(5) + 1;
+        }
+
+        NumberRepository sequentialRepository = new NumberRepository();
+        NumberRepository batchRepository = new NumberRepository();
+
+        // When
+        for (int i = 0; i < toAdd.length; i++) {
+            sequentialRepository.addToNumber(toAdd[i]);
+            sequentialRepository.multiplyNumber(factors[i]);
+        }
+        batchRepository.batch(new NumberRepository.Batch() {
+            @Override
+            public void apply(@NonNull NumberOperations operations) {
+                for (int i = 0; i < toAdd.length; i++) {
+                    operations.add(toAdd[i]).multiply(factors[i]);
+                }
+            }
+        });
+
+        // Then
+        assertEquals(
+            sequentialRepository.getNumberLiveData().getIntValue(),
+            batchRepository.getNumberLiveData().getIntValue()
+        );
+    }
+}
@@ -0,0 +1,245 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Test de "stress" : plusieurs threads "producteurs" modifient le NumberRepository en même temps pendant que le "thread principal" (le
+// thread du test) traite les publications vers la LiveData
+public class NumberRepositoryConcurrencyTest {
+
+    private static final int WRITER_COUNT = 8;
+    private static final int INCREMENTS_PER_WRITER = 50_000;
+
+    private final Queue<Runnable> mainThreadQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger postCount = new AtomicInteger();
+    private final AtomicInteger maxPendingPosts = new AtomicInteger();
+
+    private Thread mainThread;
+
+    @Before
+    public void setUp() {
+        mainThread = Thread.currentThread();
+
+        // Remplace le Looper du thread principal : les "posts" sont mis en file d'attente et exécutés par le thread du test
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void postToMainThread(Runnable runnable) {
+                postCount.incrementAndGet();
+                mainThreadQueue.add(runnable);
+                maxPendingPosts.accumulateAndGet(mainThreadQueue.size(), Math::max);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == mainThread;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        ArchTaskExecutor.getInstance().setDelegate(null);
+    }
+
+    @Test
+    public void restoreIfEmpty_should_notOverwrite_unpublishedValue() throws InterruptedException {
+        NumberRepository[] numberRepositories = new NumberRepository[]{
+            new NumberRepository(null, NumberRepository.Mode.INT),
+            new NumberRepository(null, NumberRepository.Mode.INT, true),
+            new NumberRepository(null, NumberRepository.Mode.EXACT),
+            new NumberRepository(null, NumberRepository.Mode.EXACT, true),
+        };
+
+        for (NumberRepository numberRepository : numberRepositories) {
+            // Given
+            // Modifié depuis un autre thread : la publication attend encore le thread principal
+            Thread writer = new Thread(() -> numberRepository.addToNumber(3));
+            writer.start();
+            writer.join();
+            assertEquals(1, mainThreadQueue.size());
+
+            // When
+            boolean isRestored = numberRepository.restoreIfEmpty(ExactNumber.valueOf(42));
+            drainMainThreadQueue();
+
+            // Then
+            assertFalse(isRestored);
+            assertEquals(ExactNumber.valueOf(3), getValue(numberRepository));
+        }
+    }
+
+    @Test
+    public void concurrentWriters_should_notLoseAnyIncrement() throws InterruptedException {
+        // Given
+        NumberRepository numberRepository = new NumberRepository();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] writers = new Thread[WRITER_COUNT];
+
+        for (int i = 0; i < WRITER_COUNT; i++) {
+            writers[i] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                for (int j = 0; j < INCREMENTS_PER_WRITER; j++) {
+                    numberRepository.addToNumber(1);
+                }
+            });
+            writers[i].start();
+        }
+
+        // When
+        startLatch.countDown();
+
+        // Le "thread principal" traite les publications pendant que les producteurs travaillent
+        while (isAnyAlive(writers)) {
+            drainMainThreadQueue();
+        }
+        drainMainThreadQueue();
+
+        // Then
+        assertEquals(WRITER_COUNT * INCREMENTS_PER_WRITER, numberRepository.getNumberLiveData().getIntValue());
+        // Jamais plus d'une publication en attente sur le thread principal, quel que soit le nombre de producteurs
+        assertEquals(1, maxPendingPosts.get());
+        assertTrue(
+            "Too many posts to the main thread: " + postCount.get(),
+            postCount.get() < WRITER_COUNT * INCREMENTS_PER_WRITER
+        );
+    }
+
+    @Test
+    public void concurrentAddsAndMultiplies_should_beAtomic() throws InterruptedException {
+        // Given
+        NumberRepository numberRepository = new NumberRepository();
+        Thread[] writers = new Thread[WRITER_COUNT];
+
+        // When
+        // Multiplier par 1 ne change rien : seul un "read / modify / write" non atomique pourrait faire perdre des incréments
+        for (int i = 0; i < WRITER_COUNT; i++) {
+            final boolean isMultiplier = i % 2 == 0;
+
+            writers[i] = new Thread(() -> {
+                for (int j = 0; j < INCREMENTS_PER_WRITER; j++) {
+                    if (isMultiplier) {
+                        numberRepository.multiplyNumber(1);
+                    } else {
+                        numberRepository.addToNumber(1);
+                    }
+                }
+            });
+            writers[i].start();
+        }
+
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        drainMainThreadQueue();
+
+        // Then
+        assertEquals(WRITER_COUNT / 2 * INCREMENTS_PER_WRITER, numberRepository.getNumberLiveData().getIntValue());
+        assertEquals(1, maxPendingPosts.get());
+    }
+
+    @Test
+    public void concurrentWriters_should_updateStateFlowWithoutMainThread() throws InterruptedException {
+        // Given
+        NumberRepository numberRepository = new NumberRepository();
+        Thread[] writers = new Thread[WRITER_COUNT];
+
+        // When
+        for (int i = 0; i < WRITER_COUNT; i++) {
+            writers[i] = new Thread(() -> {
+                for (int j = 0; j < INCREMENTS_PER_WRITER; j++) {
+                    numberRepository.addToNumber(1);
+                }
+            });
+            writers[i].start();
+        }
+
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Then
+        // Le thread principal n'a encore rien traité : le StateFlow a pourtant déjà la dernière valeur (aucune publication concurrente n'a
+        // pu la remplacer par une plus ancienne)
+        assertEquals(WRITER_COUNT * INCREMENTS_PER_WRITER, (int) numberRepository.getNumberFlow().getValue());
+        assertEquals(1, mainThreadQueue.size());
+    }
+
+    @Test
+    public void concurrentWriters_should_notLeaveStaleStateFlow_whenValuesComeBack() throws InterruptedException {
+        // Given
+        // La moitié des threads ajoute 1, l'autre moitié retire 1 : le nombre repasse sans cesse par les mêmes valeurs (4 -> 5 -> 4...)
+        NumberRepository numberRepository = new NumberRepository();
+        Thread[] writers = new Thread[WRITER_COUNT];
+
+        // When
+        for (int i = 0; i < WRITER_COUNT; i++) {
+            final int toAdd = i % 2 == 0 ? 1 : -1;
+
+            writers[i] = new Thread(() -> {
+                for (int j = 0; j < INCREMENTS_PER_WRITER; j++) {
+                    numberRepository.addToNumber(toAdd);
+                }
+            });
+            writers[i].start();
+        }
+
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Then
+        assertEquals(0, (int) numberRepository.getNumberFlow().getValue());
+    }
+
+    private void drainMainThreadQueue() {
+        Runnable runnable;
+
+        while ((runnable = mainThreadQueue.poll()) != null) {
+            runnable.run();
+        }
+    }
+
+    private static ExactNumber getValue(NumberRepository numberRepository) {
+        if (numberRepository.getMode() == NumberRepository.Mode.EXACT) {
+            return numberRepository.getExactNumberLiveData().getValue();
+        }
+
+        return ExactNumber.valueOf(numberRepository.getNumberLiveData().getIntValue());
+    }
+
+    private static boolean isAnyAlive(Thread[] threads) {
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
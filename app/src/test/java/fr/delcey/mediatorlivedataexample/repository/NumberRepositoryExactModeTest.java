@@ -0,0 +1,90 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+import static org.junit.Assert.assertEquals;
+
+public class NumberRepositoryExactModeTest {
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    @Test
+    public void multiplyNumber_should_notOverflow() {
+        // Given
+        NumberRepository numberRepository = new NumberRepository(null, NumberRepository.Mode.EXACT);
+        numberRepository.addToNumber(1);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            numberRepository.multiplyNumber(2);
+        }
+
+        // Then
+        assertEquals(BigInteger.ONE.shiftLeft(100), numberRepository.getExactNumberLiveData().getValue().toBigInteger());
+    }
+
+    @Test
+    public void batch_should_matchSequentialOperations() {
+        // Given
+        NumberRepository sequentialRepository = new NumberRepository(null, NumberRepository.Mode.EXACT);
+        NumberRepository batchRepository = new NumberRepository(null, NumberRepository.Mode.EXACT);
+        sequentialRepository.addToNumber(3);
+        batchRepository.addToNumber(3);
+
+        // When
+        for (int i = 0; i < 80; i++) {
+            sequentialRepository.multiplyNumber(3);
+            sequentialRepository.addToNumber(-i);
+        }
+        batchRepository.batch(new NumberRepository.Batch() {
+            @Override
+            public void apply(@NonNull NumberOperations operations) {
+                for (int i = 0; i < 80; i++) {
+                    operations.multiply(3).add(-i);
+                }
+            }
+        });
+
+        // Then
+        ExactNumber expected = sequentialRepository.getExactNumberLiveData().getValue();
+        assertEquals(false, expected.isLong());
+        assertEquals(expected, batchRepository.getExactNumberLiveData().getValue());
+    }
+
+    @Test
+    public void getNumberLiveData_should_saturate_inExactMode() {
+        // Given
+        NumberRepository numberRepository = new NumberRepository(null, NumberRepository.Mode.EXACT);
+        numberRepository.addToNumber(-3);
+
+        // Then
+        assertEquals(-3, numberRepository.getNumberLiveData().getIntValue());
+        assertEquals(-3, (int) numberRepository.getNumberFlow().getValue());
+
+        // When
+        for (int i = 0; i < 40; i++) {
+            numberRepository.multiplyNumber(2);
+        }
+
+        // Then
+        // -3 x 2^40 ne tient plus dans un int : le nombre "borné", et toujours le nombre exact à côté
+        assertEquals(Integer.MIN_VALUE, numberRepository.getNumberLiveData().getIntValue());
+        assertEquals(Integer.MIN_VALUE, (int) numberRepository.getNumberFlow().getValue());
+        assertEquals(BigInteger.valueOf(-3).shiftLeft(40), numberRepository.getExactNumberLiveData().getValue().toBigInteger());
+
+        // When
+        numberRepository.multiplyNumber(-1);
+
+        // Then
+        assertEquals(Integer.MAX_VALUE, numberRepository.getNumberLiveData().getIntValue());
+    }
+}
@@ -0,0 +1,100 @@
+package fr.delcey.mediatorlivedataexample.repository;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.livedata.IntObserver;
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class NumberRepositoryUndoTest {
+
+    @Rule
+    public final InstantTaskExecutorRule rule = new InstantTaskExecutorRule();
+
+    @Test
+    public void undoAndRedo_should_emitOnceEach() {
+        // Given
+        NumberRepository numberRepository = new NumberRepository(null, NumberRepository.Mode.INT, true);
+        List<Integer> emittedValues = observe(numberRepository);
+        numberRepository.addToNumber(5);
+        numberRepository.batch(new NumberRepository.Batch() {
+            @Override
+            public void apply(@NonNull NumberOperations operations) {
+                operations.multiply(2).add(1).multiply(3);
+            }
+        });
+
+        // When
+        numberRepository.undo();
+        numberRepository.redo();
+
+        // Then : 5, 33, retour à 5, puis 33
+        assertEquals(4, emittedValues.size());
+        assertEquals(Integer.valueOf(5), emittedValues.get(2));
+        assertEquals(Integer.valueOf(33), emittedValues.get(3));
+        assertEquals(4, numberRepository.getOperationLog().size());
+    }
+
+    @Test
+    public void undo_should_returnFalse_whenNothingToUndo() {
+        // Given
+        NumberRepository numberRepository = new NumberRepository(null, NumberRepository.Mode.INT, true);
+        List<Integer> emittedValues = observe(numberRepository);
+
+        // When
+        boolean undone = numberRepository.undo();
+
+        // Then
+        assertFalse(undone);
+        assertEquals(0, emittedValues.size());
+    }
+
+    @Test
+    public void undo_should_work_inExactMode() {
+        // Given
+        NumberRepository numberRepository = new NumberRepository(null, NumberRepository.Mode.EXACT, true);
+        numberRepository.addToNumber(1);
+        for (int i = 0; i < 70; i++) {
+            numberRepository.multiplyNumber(2);
+        }
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            numberRepository.undo();
+        }
+
+        // Then
+        assertEquals(ExactNumber.valueOf(1L << 60), numberRepository.getExactNumberLiveData().getValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void undo_should_throw_withoutOperationLog() {
+        NumberRepository numberRepository = new NumberRepository();
+
+        assertNull(numberRepository.getOperationLog());
+        numberRepository.undo();
+    }
+
+    private static List<Integer> observe(@NonNull NumberRepository numberRepository) {
+        List<Integer> emittedValues = new ArrayList<>();
+
+        numberRepository.getNumberLiveData().observeIntForever(new IntObserver() {
+            @Override
+            public void onChanged(int value) {
+                emittedValues.add(value);
+            }
+        });
+
+        return emittedValues;
+    }
+}
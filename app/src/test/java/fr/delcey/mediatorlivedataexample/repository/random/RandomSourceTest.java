@@ -0,0 +1,120 @@
+package fr.delcey.mediatorlivedataexample.repository.random;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RandomSourceTest {
+
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    @Test
+    public void seededSource_should_beDeterministic() {
+        // Given
+        SeededRandomSource first = new SeededRandomSource(42);
+        SeededRandomSource second = new SeededRandomSource(42);
+
+        // When
+        int[] firstRolls = roll(first, 1_000, 10);
+        int[] secondRolls = roll(second, 1_000, 10);
+
+        // Then
+        assertArrayEquals(firstRolls, secondRolls);
+    }
+
+    @Test
+    public void seededSource_should_coverWholeRange_uniformly() {
+        // Given
+        SeededRandomSource randomSource = new SeededRandomSource(1234);
+        int[] histogram = new int[10];
+
+        // When
+        for (int roll : roll(randomSource, 100_000, 10)) {
+            histogram[roll]++;
+        }
+
+        // Then
+        for (int count : histogram) {
+            assertTrue("Unbalanced histogram: " + count, count > 9_000 && count < 11_000);
+        }
+    }
+
+    @Test
+    public void allSources_should_stayInBounds() {
+        RandomSource[] randomSources = new RandomSource[]{
+            new ThreadLocalRandomSource(),
+            new SplittableRandomSource(),
+            new SeededRandomSource(7),
+            new PrefetchingRandomSource(new SeededRandomSource(7), 64),
+        };
+
+        for (RandomSource randomSource : randomSources) {
+            for (int roll : roll(randomSource, 10_000, 10)) {
+                assertTrue(randomSource.getClass().getSimpleName() + " rolled " + roll, roll >= 0 && roll < 10);
+            }
+        }
+    }
+
+    @Test
+    public void prefetchingSource_should_returnSameRolls_asItsDelegate() {
+        // Given
+        PrefetchingRandomSource prefetchingRandomSource = new PrefetchingRandomSource(new SeededRandomSource(99), 16);
+
+        // When
+        int[] prefetchedRolls = roll(prefetchingRandomSource, 100, 10);
+
+        // Then
+        assertArrayEquals(roll(new SeededRandomSource(99), 100, 10), prefetchedRolls);
+    }
+
+    @Test
+    public void prefetchingSource_should_refill_whenBoundChanges() {
+        // Given
+        PrefetchingRandomSource prefetchingRandomSource = new PrefetchingRandomSource(new SeededRandomSource(5), 16);
+        prefetchingRandomSource.nextInt(1_000);
+
+        // When
+        int[] rolls = roll(prefetchingRandomSource, 100, 2);
+
+        // Then
+        for (int roll : rolls) {
+            assertTrue(roll == 0 || roll == 1);
+        }
+    }
+
+    @Test
+    public void repository_should_replaySameRolls_withSameSeed() {
+        // Given
+        RandomRepository first = new RandomRepository(null, new SeededRandomSource(2021));
+        RandomRepository second = new RandomRepository(null, new SeededRandomSource(2021));
+
+        for (int i = 0; i < 100; i++) {
+            // When
+            first.rollNewRandom();
+            second.rollNewRandom();
+
+            // Then
+            int roll = first.getRandomNumberLiveData().getIntValue();
+            assertEquals(roll, second.getRandomNumberLiveData().getIntValue());
+            assertTrue(roll >= 1 && roll <= 10);
+        }
+    }
+
+    private static int[] roll(RandomSource randomSource, int count, int bound) {
+        int[] rolls = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            rolls[i] = randomSource.nextInt(bound);
+        }
+
+        return rolls;
+    }
+}
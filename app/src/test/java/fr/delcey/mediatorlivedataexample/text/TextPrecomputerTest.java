@@ -0,0 +1,260 @@
+package fr.delcey.mediatorlivedataexample.text;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.metrics.LatencyHistogram;
+import fr.delcey.mediatorlivedataexample.metrics.Metrics;
+import fr.delcey.mediatorlivedataexample.utils.QueueExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TextPrecomputerTest {
+
+    // Largeur de la TextView (en "pixels" de la police de test, voir "layout()")
+    private static final int LINE_WIDTH = 120;
+
+    private static final int TIMING_WARM_UP_EMISSIONS = 5_000;
+    private static final int TIMING_EMISSIONS = 20_000;
+
+    // Le test décide quand le "background" et le "thread principal" exécutent leurs tâches
+    private final QueueExecutor backgroundExecutor = new QueueExecutor();
+    private final QueueExecutor mainThreadExecutor = new QueueExecutor();
+
+    // Ce qui est "affiché" par la TextView
+    private final List<Layout> displayedLayouts = new ArrayList<>();
+
+    private final TextPrecomputer<Layout> textPrecomputer = new TextPrecomputer<>(
+        "TextPrecomputerTest",
+        text -> layout(text),
+        displayedLayouts::add,
+        backgroundExecutor,
+        mainThreadExecutor
+    );
+
+    @Test
+    public void precomputedText_should_renderLikeDirectLayout() {
+        for (int number = 0; number < 1_000; number += 37) {
+            // Given
+            String sentence = sentence(number, number % 7 + 1);
+
+            // When
+            textPrecomputer.submit(sentence);
+            backgroundExecutor.runAll();
+            mainThreadExecutor.runAll();
+
+            // Then
+            // Même texte et mêmes lignes qu'un "setText()" mesuré sur le thread principal
+            assertEquals(layout(sentence), displayedLayouts.get(displayedLayouts.size() - 1));
+        }
+    }
+
+    @Test
+    public void when_newTextSubmittedDuringPrecomputation_should_displayOnlyLatestText() {
+        // Given
+        textPrecomputer.submit(sentence(1, 2));
+        backgroundExecutor.runNext();
+
+        // When
+        // Le premier texte est calculé, mais pas encore appliqué : 2 autres textes arrivent
+        textPrecomputer.submit(sentence(2, 2));
+        textPrecomputer.submit(sentence(3, 2));
+        backgroundExecutor.runAll();
+        mainThreadExecutor.runAll();
+
+        // Then
+        // Le résultat du premier est ignoré, le deuxième n'est même pas calculé
+        assertEquals(Arrays.asList(layout(sentence(3, 2))), displayedLayouts);
+        assertEquals(2, textPrecomputer.getPrecomputeCount());
+        assertEquals(1, textPrecomputer.getApplyCount());
+    }
+
+    @Test
+    public void when_sameTextSubmitted_should_notPrecomputeAgain() {
+        // Given
+        textPrecomputer.submit(sentence(4, 5));
+        backgroundExecutor.runAll();
+        mainThreadExecutor.runAll();
+
+        // When
+        textPrecomputer.submit(sentence(4, 5));
+
+        // Then
+        assertEquals(0, backgroundExecutor.getPendingTaskCount());
+        assertEquals(1, displayedLayouts.size());
+    }
+
+    @Test
+    public void submitNow_should_displayImmediately_andDropPendingResults() {
+        // Given
+        textPrecomputer.submit(sentence(7, 8));
+        backgroundExecutor.runNext();
+
+        // When
+        textPrecomputer.submitNow(sentence(8, 8));
+
+        // Then
+        // Affiché avant que le thread principal ne traite quoi que ce soit
+        assertEquals(Arrays.asList(layout(sentence(8, 8))), displayedLayouts);
+
+        // When
+        mainThreadExecutor.runAll();
+
+        // Then
+        // Le résultat plus ancien, calculé en arrière plan, ne remplace pas le texte affiché
+        assertEquals(Arrays.asList(layout(sentence(8, 8))), displayedLayouts);
+    }
+
+    @Test
+    public void when_released_should_dropPendingResults() {
+        // Given
+        textPrecomputer.submit(sentence(5, 6));
+        backgroundExecutor.runNext();
+
+        // When
+        // La View est détruite pendant que le texte attend d'être appliqué
+        textPrecomputer.release();
+        mainThreadExecutor.runAll();
+        textPrecomputer.submit(sentence(6, 6));
+
+        // Then
+        assertEquals(0, displayedLayouts.size());
+        assertEquals(0, backgroundExecutor.getPendingTaskCount());
+    }
+
+    // Rapport : temps passé sur le thread principal par émission, avec un "setText()" classique (mesure + layout) et avec le pré-calcul
+    // (soumission + application du texte déjà mesuré)
+    @Test
+    public void precomputation_should_saveMainThreadTime() {
+        // Given
+        String[] sentences = new String[TIMING_WARM_UP_EMISSIONS + TIMING_EMISSIONS];
+        for (int i = 0; i < sentences.length; i++) {
+            sentences[i] = sentence(i * 1_021, i % 100 + 1);
+        }
+        LatencyHistogram precomputeDuration = Metrics.histogram("TextPrecomputerTest.precomputeDuration");
+        long directNanos = 0;
+        long precomputedNanos = 0;
+        int layoutHash = 0;
+
+        // When
+        for (int i = 0; i < sentences.length; i++) {
+            boolean isMeasured = i >= TIMING_WARM_UP_EMISSIONS;
+
+            long startNanos = System.nanoTime();
+            layoutHash += layout(sentences[i]).hashCode();
+            if (isMeasured) {
+                directNanos += System.nanoTime() - startNanos;
+            }
+
+            startNanos = System.nanoTime();
+            textPrecomputer.submit(sentences[i]);
+            if (isMeasured) {
+                precomputedNanos += System.nanoTime() - startNanos;
+            }
+
+            // Le "background" n'est pas compté : c'est justement le temps retiré du thread principal
+            backgroundExecutor.runAll();
+
+            startNanos = System.nanoTime();
+            mainThreadExecutor.runAll();
+            if (isMeasured) {
+                precomputedNanos += System.nanoTime() - startNanos;
+            }
+        }
+
+        // Then
+        System.out.println(
+            "TextPrecomputerTest: main thread time per emission, setText()=" + directNanos / TIMING_EMISSIONS + "ns"
+                + " precomputed=" + precomputedNanos / TIMING_EMISSIONS + "ns"
+                + " (background precompute p50=" + precomputeDuration.getValueAtPercentile(50) + "ns"
+                + " p99=" + precomputeDuration.getValueAtPercentile(99) + "ns, layout hash " + layoutHash + ")"
+        );
+
+        assertEquals(sentences.length, displayedLayouts.size());
+        assertTrue(
+            "Precomputation doesn't save main thread time: " + precomputedNanos + "ns vs " + directNanos + "ns",
+            precomputedNanos < directNanos
+        );
+    }
+
+    @NonNull
+    private static String sentence(int number, int randomNumber) {
+        return "Le nombre " + number + " est " + (number % 2 == 0 ? "pair" : "impair") + ", le nombre aléatoire est " + randomNumber;
+    }
+
+    // Ce que fait une TextView à la mesure : la largeur de chaque caractère, puis le découpage en lignes (aux espaces)
+    @NonNull
+    private static Layout layout(@NonNull String text) {
+        int[] widths = new int[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            widths[i] = c == ' ' ? 3 : Character.isDigit(c) ? 6 : Character.isUpperCase(c) ? 8 : 5 + (c & 1);
+        }
+
+        List<Integer> lineEnds = new ArrayList<>();
+        int lineWidth = 0;
+        int lastSpace = -1;
+        int lineStart = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ' ') {
+                lastSpace = i;
+            }
+
+            lineWidth += widths[i];
+
+            if (lineWidth > LINE_WIDTH && lastSpace > lineStart) {
+                lineEnds.add(lastSpace);
+                lineStart = lastSpace + 1;
+                lineWidth = 0;
+
+                for (int j = lineStart; j <= i; j++) {
+                    lineWidth += widths[j];
+                }
+            }
+        }
+
+        lineEnds.add(text.length());
+
+        return new Layout(text, lineEnds);
+    }
+
+    // Le texte "mesuré" : le texte lui-même et la fin de chaque ligne
+    private static final class Layout {
+
+        @NonNull
+        private final String text;
+        @NonNull
+        private final List<Integer> lineEnds;
+
+        private Layout(@NonNull String text, @NonNull List<Integer> lineEnds) {
+            this.text = text;
+            this.lineEnds = lineEnds;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Layout layout = (Layout) o;
+            return text.equals(layout.text) && lineEnds.equals(layout.lineEnds);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * text.hashCode() + lineEnds.hashCode();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Layout{" + text + ", lineEnds=" + lineEnds + '}';
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Observe une LiveData (observeForever) et garde toutes ses émissions, dans l'ordre, jusqu'au "stop()"
+public class LiveDataRecorder<T> {
+
+    @NonNull
+    private final LiveData<T> liveData;
+
+    private final List<T> values = new ArrayList<>();
+
+    private final Observer<T> observer = new Observer<T>() {
+        @Override
+        public void onChanged(T value) {
+            values.add(value);
+        }
+    };
+
+    public LiveDataRecorder(@NonNull LiveData<T> liveData) {
+        this.liveData = liveData;
+
+        liveData.observeForever(observer);
+    }
+
+    @NonNull
+    public List<T> getValues() {
+        return Collections.unmodifiableList(values);
+    }
+
+    public int getValueCount() {
+        return values.size();
+    }
+
+    // Echoue immédiatement (sans attendre) si la LiveData n'a encore rien émis
+    public T getLastValue() {
+        if (values.isEmpty()) {
+            throw new AssertionError("The LiveData didn't emit any value");
+        }
+
+        return values.get(values.size() - 1);
+    }
+
+    public void stop() {
+        liveData.removeObserver(observer);
+    }
+}
@@ -0,0 +1,59 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+/**
+ * Remplace InstantTaskExecutorRule quand un test a besoin de contrôler le thread principal : le thread du test EST le thread principal,
+ * mais les "posts" vers celui-ci (postValue(), getMainThreadExecutor(), etc...) sont mis en file d'attente au lieu d'être exécutés
+ * immédiatement. Le test les exécute quand il le veut avec "getMainThreadQueue().runAll()" : aucune attente, aucun "sleep", résultat
+ * déterministe.
+ */
+public class MainThreadQueueRule extends TestWatcher {
+
+    private final QueueExecutor mainThreadQueue = new QueueExecutor();
+    private final QueueExecutor diskIoQueue = new QueueExecutor();
+
+    private Thread mainThread;
+
+    @NonNull
+    public QueueExecutor getMainThreadQueue() {
+        return mainThreadQueue;
+    }
+
+    @NonNull
+    public QueueExecutor getDiskIoQueue() {
+        return diskIoQueue;
+    }
+
+    @Override
+    protected void starting(Description description) {
+        mainThread = Thread.currentThread();
+
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(@NonNull Runnable runnable) {
+                diskIoQueue.execute(runnable);
+            }
+
+            @Override
+            public void postToMainThread(@NonNull Runnable runnable) {
+                mainThreadQueue.execute(runnable);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == mainThread;
+            }
+        });
+    }
+
+    @Override
+    protected void finished(Description description) {
+        ArchTaskExecutor.getInstance().setDelegate(null);
+    }
+}
@@ -0,0 +1,140 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ProviderRegistryTest {
+
+    private final StartupTimings startupTimings = new StartupTimings();
+    private final ProviderRegistry registry = new ProviderRegistry(startupTimings);
+
+    @Test
+    public void singleton_should_notBeCreated_untilRequested() {
+        // Given
+        AtomicInteger creationCount = new AtomicInteger();
+        registry.registerSingleton(StringBuilder.class, () -> {
+            creationCount.incrementAndGet();
+            return new StringBuilder();
+        });
+
+        // Then
+        assertTrue(registry.isRegistered(StringBuilder.class));
+        assertFalse(registry.isCreated(StringBuilder.class));
+        assertEquals(0, creationCount.get());
+
+        // When
+        StringBuilder first = registry.get(StringBuilder.class);
+        StringBuilder second = registry.get(StringBuilder.class);
+
+        // Then
+        assertSame(first, second);
+        assertTrue(registry.isCreated(StringBuilder.class));
+        assertEquals(1, creationCount.get());
+    }
+
+    @Test
+    public void factory_should_createNewInstance_eachTime() {
+        // Given
+        registry.registerFactory(StringBuilder.class, StringBuilder::new);
+
+        // When
+        StringBuilder first = registry.get(StringBuilder.class);
+        StringBuilder second = registry.get(StringBuilder.class);
+
+        // Then
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void concurrentRequests_should_createSingletonOnlyOnce() throws InterruptedException {
+        // Given
+        AtomicInteger creationCount = new AtomicInteger();
+        registry.registerSingleton(Object.class, () -> {
+            creationCount.incrementAndGet();
+            return new Object();
+        });
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Object[] results = new Object[8];
+        Thread[] threads = new Thread[results.length];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+
+            threads[i] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                results[index] = registry.get(Object.class);
+            });
+            threads[i].start();
+        }
+
+        // When
+        startLatch.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertEquals(1, creationCount.get());
+        for (Object result : results) {
+            assertSame(results[0], result);
+        }
+    }
+
+    @Test
+    public void creation_should_beTimed() {
+        // Given
+        registry.registerSingleton(StringBuilder.class, StringBuilder::new);
+        registry.registerSingleton(Object.class, Object::new);
+
+        // When
+        registry.get(StringBuilder.class);
+        registry.get(StringBuilder.class);
+
+        // Then
+        String report = startupTimings.getDebugReport();
+        assertTrue(report, report.startsWith("Startup timings (1 dependencies)"));
+        assertTrue(report, report.contains("\nStringBuilder : "));
+        assertFalse(report, report.contains("Object"));
+    }
+
+    @Test
+    public void report_should_displayMilliseconds() {
+        // Given
+        long start = System.nanoTime();
+
+        // When
+        startupTimings.record("NumberRepository", start, start + 1_234_567);
+        startupTimings.record("RandomRepository", start, start + 1_005_000);
+
+        // Then
+        String report = startupTimings.getDebugReport();
+        assertTrue(report, report.contains("\nNumberRepository : 1.234 ms ("));
+        assertTrue(report, report.contains("\nRandomRepository : 1.005 ms ("));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownType_should_throw() {
+        registry.get(String.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void duplicateRegistration_should_throw() {
+        registry.registerSingleton(String.class, () -> "a");
+        registry.registerFactory(String.class, () -> "b");
+    }
+}
@@ -0,0 +1,50 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+// Executor de test : les tâches sont mises en file d'attente, et c'est le test qui décide quand (et combien) les exécuter, sur son thread
+public class QueueExecutor implements Executor {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public synchronized void execute(@NonNull Runnable command) {
+        tasks.add(command);
+    }
+
+    public synchronized int getPendingTaskCount() {
+        return tasks.size();
+    }
+
+    // Exécute uniquement la plus ancienne tâche. Renvoie faux s'il n'y en avait aucune.
+    public boolean runNext() {
+        Runnable task;
+
+        synchronized (this) {
+            task = tasks.poll();
+        }
+
+        if (task == null) {
+            return false;
+        }
+
+        task.run();
+
+        return true;
+    }
+
+    // Exécute toutes les tâches, y compris celles ajoutées pendant l'exécution. Renvoie le nombre de tâches exécutées.
+    public int runAll() {
+        int count = 0;
+
+        while (runNext()) {
+            count++;
+        }
+
+        return count;
+    }
+}
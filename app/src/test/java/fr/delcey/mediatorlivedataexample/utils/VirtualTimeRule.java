@@ -0,0 +1,62 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+import androidx.lifecycle.LiveData;
+
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+/**
+ * Remplace InstantTaskExecutorRule (et les "getOrAwaitValue()" qui attendaient une émission avec un CountDownLatch) : le thread du test
+ * est le thread principal, et tout ce qui est "posté" (vers le thread principal ou le disque) passe par un VirtualTimeScheduler. Les mêmes
+ * "getScheduler().asExecutor()" et "getScheduler().asFrameTicker()" peuvent être injectés dans le code testé : tout avance au même rythme,
+ * celui que le test choisit. Aucune attente réelle, aucun "sleep".<br/>
+ *
+ * "record()" enregistre toutes les émissions d'une LiveData : un test qui attend une émission qui n'arrive jamais échoue tout de suite.
+ */
+public class VirtualTimeRule extends TestWatcher {
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+
+    private Thread mainThread;
+
+    @NonNull
+    public VirtualTimeScheduler getScheduler() {
+        return scheduler;
+    }
+
+    // A appeler depuis le test ou un "@Before" (pas à l'initialisation des champs : la règle n'est pas encore installée)
+    @NonNull
+    public <T> LiveDataRecorder<T> record(@NonNull LiveData<T> liveData) {
+        return new LiveDataRecorder<>(liveData);
+    }
+
+    @Override
+    protected void starting(Description description) {
+        mainThread = Thread.currentThread();
+
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(@NonNull Runnable runnable) {
+                scheduler.schedule(runnable, 0);
+            }
+
+            @Override
+            public void postToMainThread(@NonNull Runnable runnable) {
+                scheduler.schedule(runnable, 0);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == mainThread;
+            }
+        });
+    }
+
+    @Override
+    protected void finished(Description description) {
+        ArchTaskExecutor.getInstance().setDelegate(null);
+    }
+}
@@ -0,0 +1,155 @@
+package fr.delcey.mediatorlivedataexample.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Ordonnanceur de test en "temps virtuel" : les tâches (posts vers le thread principal, Executors injectés, frames...) sont rangées par
+ * échéance, et ne sont exécutées que lorsque le test fait avancer l'horloge ("advanceTimeBy()", "advanceUntilIdle()"), sur le thread du
+ * test. L'horloge ne bouge jamais toute seule : 10 secondes "virtuelles" passent en quelques microsecondes, et le résultat est toujours le
+ * même (à échéance égale, les tâches sont exécutées dans l'ordre où elles ont été ajoutées).
+ */
+public class VirtualTimeScheduler {
+
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+
+    private long nowMillis;
+    private long taskCount;
+
+    // Temps virtuel écoulé depuis la création de l'ordonnanceur
+    public synchronized long getCurrentTimeMillis() {
+        return nowMillis;
+    }
+
+    public synchronized int getPendingTaskCount() {
+        return tasks.size();
+    }
+
+    public synchronized void schedule(@NonNull Runnable runnable, long delayMillis) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("delayMillis must be positive or zero, was " + delayMillis);
+        }
+
+        tasks.add(new Task(nowMillis + delayMillis, taskCount++, runnable));
+    }
+
+    // Les tâches sont exécutées à l'instant virtuel actuel, au prochain "runCurrent()" (ou "advanceXXX()")
+    @NonNull
+    public Executor asExecutor() {
+        return asExecutor(0);
+    }
+
+    // Chaque tâche est exécutée "delayMillis" après avoir été donnée : un thread d'arrière plan dont chaque calcul dure "delayMillis", par
+    // exemple
+    @NonNull
+    public Executor asExecutor(final long delayMillis) {
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                schedule(command, delayMillis);
+            }
+        };
+    }
+
+    // Comme le PeriodicFrameTicker, mais sur l'horloge virtuelle : les frames tombent sur les multiples de "tickPeriodMillis"
+    @NonNull
+    public FrameTicker asFrameTicker(final long tickPeriodMillis) {
+        if (tickPeriodMillis <= 0) {
+            throw new IllegalArgumentException("tickPeriodMillis must be positive, was " + tickPeriodMillis);
+        }
+
+        return new FrameTicker() {
+            @Override
+            public void scheduleFrame(@NonNull Runnable onFrame) {
+                schedule(onFrame, tickPeriodMillis - (getCurrentTimeMillis() % tickPeriodMillis));
+            }
+        };
+    }
+
+    // Exécute les tâches déjà échues, y compris celles qu'elles ajoutent pour le même instant. Renvoie le nombre de tâches exécutées.
+    public int runCurrent() {
+        return advanceTimeBy(0);
+    }
+
+    // Avance l'horloge de "durationMillis" en exécutant, dans l'ordre de leurs échéances, toutes les tâches qui tombent pendant ce temps
+    // (l'horloge vaut l'échéance de chaque tâche pendant son exécution). Renvoie le nombre de tâches exécutées.
+    public int advanceTimeBy(long durationMillis) {
+        if (durationMillis < 0) {
+            throw new IllegalArgumentException("durationMillis must be positive or zero, was " + durationMillis);
+        }
+
+        long targetMillis;
+
+        synchronized (this) {
+            targetMillis = nowMillis + durationMillis;
+        }
+
+        int count = 0;
+        Task task;
+
+        while ((task = pollDueTask(targetMillis)) != null) {
+            task.runnable.run();
+            count++;
+        }
+
+        synchronized (this) {
+            nowMillis = targetMillis;
+        }
+
+        return count;
+    }
+
+    // Avance l'horloge jusqu'à ce qu'il n'y ait plus aucune tâche. Echoue si les tâches s'ajoutent sans fin (une frame qui en demande
+    // toujours une autre, par exemple). Renvoie le nombre de tâches exécutées.
+    public int advanceUntilIdle() {
+        int count = 0;
+        Task task;
+
+        while ((task = pollDueTask(Long.MAX_VALUE)) != null) {
+            task.runnable.run();
+
+            if (++count > 1_000_000) {
+                throw new IllegalStateException("Still busy after " + count + " tasks: some task keeps scheduling new ones");
+            }
+        }
+
+        return count;
+    }
+
+    private synchronized Task pollDueTask(long targetMillis) {
+        Task task = tasks.peek();
+
+        if (task == null || task.dueMillis > targetMillis) {
+            return null;
+        }
+
+        nowMillis = Math.max(nowMillis, task.dueMillis);
+
+        return tasks.poll();
+    }
+
+    private static class Task implements Comparable<Task> {
+
+        private final long dueMillis;
+        private final long sequence;
+        @NonNull
+        private final Runnable runnable;
+
+        private Task(long dueMillis, long sequence, @NonNull Runnable runnable) {
+            this.dueMillis = dueMillis;
+            this.sequence = sequence;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (dueMillis != other.dueMillis) {
+                return Long.compare(dueMillis, other.dueMillis);
+            }
+
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
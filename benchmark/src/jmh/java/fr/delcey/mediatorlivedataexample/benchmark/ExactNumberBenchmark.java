@@ -0,0 +1,81 @@
+package fr.delcey.mediatorlivedataexample.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+
+import fr.delcey.mediatorlivedataexample.number.DigitChunkFormatter;
+import fr.delcey.mediatorlivedataexample.number.ExactNumber;
+
+/**
+ * Coût du mode EXACT du NumberRepository dans ses 2 régimes : "long" (le nombre tient dans un long, chemin rapide) et "big" (après ~200
+ * "x2", le nombre est un BigInteger d'une soixantaine de chiffres). Chaque mesure est comparée à l'approche naïve "tout en BigInteger"
+ * (multiplication, parité par "mod(2)", "toString()").
+ */
+@State(Scope.Thread)
+public class ExactNumberBenchmark {
+
+    private static final BigInteger TWO = BigInteger.valueOf(2);
+
+    @Param({"long", "big"})
+    public String regime;
+
+    private ExactNumber exactNumber;
+    private BigInteger bigInteger;
+
+    private final DigitChunkFormatter digitChunkFormatter = new DigitChunkFormatter();
+
+    // Pas "final" : le JIT ne doit pas pouvoir considérer le facteur comme une constante
+    private int randomNumber = 7;
+
+    @Setup
+    public void setUp() {
+        switch (regime) {
+            case "long":
+                bigInteger = BigInteger.valueOf(123_456_789_012L);
+                break;
+            case "big":
+                bigInteger = BigInteger.ONE.shiftLeft(200).add(BigInteger.valueOf(123_456_789));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown regime: " + regime);
+        }
+
+        exactNumber = ExactNumber.valueOf(bigInteger);
+    }
+
+    // Ce que fait "combine()" : nombre x nombre aléatoire
+    @Benchmark
+    public ExactNumber multiplyExact() {
+        return exactNumber.times(randomNumber);
+    }
+
+    @Benchmark
+    public BigInteger multiplyBigInteger() {
+        return bigInteger.multiply(BigInteger.valueOf(randomNumber));
+    }
+
+    @Benchmark
+    public boolean parityLowBit() {
+        return exactNumber.isEven();
+    }
+
+    @Benchmark
+    public boolean parityModulo() {
+        return bigInteger.mod(TWO).signum() == 0;
+    }
+
+    @Benchmark
+    public String formatDigitChunks() {
+        return digitChunkFormatter.format(exactNumber);
+    }
+
+    @Benchmark
+    public String formatToString() {
+        return bigInteger.toString();
+    }
+}
@@ -0,0 +1,162 @@
+package fr.delcey.mediatorlivedataexample.benchmark;
+
+import androidx.lifecycle.Observer;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import fr.delcey.mediatorlivedataexample.MainViewModel;
+import fr.delcey.mediatorlivedataexample.MainViewState;
+import fr.delcey.mediatorlivedataexample.flow.Conflation;
+import fr.delcey.mediatorlivedataexample.flow.ViewStateFlows;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import kotlinx.coroutines.CoroutineScope;
+import kotlinx.coroutines.CoroutineScopeKt;
+import kotlinx.coroutines.Dispatchers;
+import kotlinx.coroutines.ExecutorsKt;
+
+/**
+ * Compare le chemin LiveData (CombineLatestLiveData, "combine()" synchrone sur le thread qui modifie le nombre) au chemin Flow
+ * ("combine" sur Dispatchers.Default, ViewStates reçus par un thread "collecteur" qui joue le rôle du thread principal), pour un clic seul
+ * et pour une rafale de clics. Chaque mesure attend que le dernier ViewState soit arrivé à l'Observer : c'est le temps jusqu'à
+ * l'affichage du bon nombre, pas seulement celui des modifications.<br/>
+ *
+ * Le compteur "viewStates" donne le nombre de ViewStates reçus par clic : 1 pour la LiveData, bien moins pendant une rafale pour le Flow
+ * (les StateFlows ne gardent que leur dernière valeur). Le profiler "gc" donne les allocations par clic (les Integers des StateFlows, les
+ * objets des coroutines, etc...).
+ */
+@State(Scope.Thread)
+public class FlowBenchmark {
+
+    private static final int BURST_SIZE = 1_000;
+
+    @Param({"liveData", "flowBuffer", "flowConflate"})
+    public String path;
+
+    private NumberRepository numberRepository;
+
+    private ExecutorService collectorExecutor;
+    private CoroutineScope collectorScope;
+
+    private int number;
+
+    private volatile MainViewState lastViewState;
+    private volatile long viewStateCount;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long viewStates;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            viewStates = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SynchronousTaskExecutor.install();
+
+        numberRepository = new NumberRepository();
+
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, new RandomRepository());
+
+        Observer<MainViewState> observer = new Observer<MainViewState>() {
+            @Override
+            public void onChanged(MainViewState mainViewState) {
+                // Un seul thread écrit ce compteur (le thread du benchmark ou le thread collecteur)
+                //noinspection NonAtomicOperationOnVolatileField
+                viewStateCount++;
+                lastViewState = mainViewState;
+            }
+        };
+
+        switch (path) {
+            case "liveData":
+                mainViewModel.getViewStateLiveData().observeForever(observer);
+                break;
+            case "flowBuffer":
+            case "flowConflate":
+                collectorExecutor = Executors.newSingleThreadExecutor();
+                collectorScope = CoroutineScopeKt.CoroutineScope(ExecutorsKt.from(collectorExecutor));
+
+                ViewStateFlows.collectIn(
+                    mainViewModel.getViewStateFlow(
+                        path.equals("flowBuffer") ? Conflation.BUFFER : Conflation.CONFLATE,
+                        Dispatchers.getDefault()
+                    ),
+                    collectorScope,
+                    observer
+                );
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown path: " + path);
+        }
+
+        // Le premier ViewState : le nombre doit valoir 1 pour que la LiveData émette, le StateFlow démarre déjà à 0
+        numberRepository.addToNumber(1);
+        number = 1;
+        awaitNumber(Integer.toString(number));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (collectorScope != null) {
+            CoroutineScopeKt.cancel(collectorScope, null);
+            collectorExecutor.shutdownNow();
+        }
+
+        SynchronousTaskExecutor.uninstall();
+    }
+
+    @Benchmark
+    public MainViewState singleClick(Counters counters) {
+        return click(1, counters);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public MainViewState burstOfClicks(Counters counters) {
+        return click(BURST_SIZE, counters);
+    }
+
+    private MainViewState click(int clickCount, Counters counters) {
+        long previousViewStateCount = viewStateCount;
+
+        number += clickCount;
+        String expectedNumber = Integer.toString(number);
+
+        for (int i = 0; i < clickCount; i++) {
+            numberRepository.addToNumber(1);
+        }
+
+        MainViewState viewState = awaitNumber(expectedNumber);
+
+        counters.viewStates += viewStateCount - previousViewStateCount;
+
+        return viewState;
+    }
+
+    // Le nombre aléatoire vaut toujours 1 : le nombre affiché est le nombre du repository
+    private MainViewState awaitNumber(String expectedNumber) {
+        MainViewState viewState;
+
+        while ((viewState = lastViewState) == null || !expectedNumber.equals(viewState.getNumberToDisplay())) {
+            Thread.onSpinWait();
+        }
+
+        return viewState;
+    }
+}
@@ -0,0 +1,89 @@
+package fr.delcey.mediatorlivedataexample.benchmark;
+
+import androidx.lifecycle.Observer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+import fr.delcey.mediatorlivedataexample.KeyedMainViewModel;
+import fr.delcey.mediatorlivedataexample.MainViewModel;
+import fr.delcey.mediatorlivedataexample.MainViewState;
+import fr.delcey.mediatorlivedataexample.repository.KeyedCounterRepository;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+
+/**
+ * Coût mémoire de "keyCount" compteurs : un KeyedMainViewModel (une page observée) contre un MainViewModel (et ses 2 repositories) par
+ * clef. La métrique à regarder est "gc.alloc.rate.norm" (octets alloués par opération) : chaque opération construit tout le graphe, c'est
+ * donc sa taille en mémoire.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class KeyedMemoryBenchmark {
+
+    @Param({"10000", "100000"})
+    public int keyCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SynchronousTaskExecutor.install();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SynchronousTaskExecutor.uninstall();
+    }
+
+    @Benchmark
+    public Object keyedViewModel() {
+        KeyedCounterRepository keyedCounterRepository = new KeyedCounterRepository(keyCount);
+        KeyedMainViewModel keyedMainViewModel = new KeyedMainViewModel(keyedCounterRepository);
+
+        keyedMainViewModel.getPageLiveData(0).observeForever(new Observer<List<MainViewState>>() {
+            @Override
+            public void onChanged(List<MainViewState> mainViewStates) {
+            }
+        });
+
+        // Chaque clef est modifiée une fois : seules celles de la page observée sont recalculées
+        for (int key = 0; key < keyCount; key++) {
+            keyedMainViewModel.onAddButtonClicked(key);
+        }
+
+        return keyedMainViewModel;
+    }
+
+    @Benchmark
+    public Object viewModelPerKey() {
+        MainViewModel[] mainViewModels = new MainViewModel[keyCount];
+        Observer<MainViewState> observer = new Observer<MainViewState>() {
+            @Override
+            public void onChanged(MainViewState mainViewState) {
+            }
+        };
+
+        for (int key = 0; key < keyCount; key++) {
+            NumberRepository numberRepository = new NumberRepository();
+
+            mainViewModels[key] = new MainViewModel(numberRepository, new RandomRepository());
+            mainViewModels[key].getViewStateLiveData().observeForever(observer);
+
+            numberRepository.addToNumber(1);
+        }
+
+        return mainViewModels;
+    }
+}
@@ -0,0 +1,143 @@
+package fr.delcey.mediatorlivedataexample.benchmark;
+
+import androidx.lifecycle.Observer;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+import fr.delcey.mediatorlivedataexample.MainViewModel;
+import fr.delcey.mediatorlivedataexample.MainViewState;
+import fr.delcey.mediatorlivedataexample.MainViewStateLookupTable;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+import fr.delcey.mediatorlivedataexample.repository.random.SeededRandomSource;
+
+/**
+ * Mesure le coût d'un clic ("+1" 7 fois sur 8, "Random" 1 fois sur 8) avec et sans la MainViewStateLookupTable. La table est remplie sur un
+ * vrai thread d'arrière plan, comme dans l'application : les compteurs "tableHits" et "tableMisses" donnent le taux de clics servis par la
+ * table.<br/>
+ *
+ * "clickAtUserPace" laisse le thread d'arrière plan finir son travail entre 2 clics (hors mesure), comme entre 2 vrais clics espacés de
+ * plusieurs dizaines de millisecondes. "clickBurst" enchaine les clics sans pause : la table ne peut alors pas suivre (construire une ligne
+ * coûte 10 ViewStates, contre 1 seul pour le calcul classique).
+ */
+@State(Scope.Thread)
+public class LookupTableBenchmark {
+
+    private static final long PAUSE_BETWEEN_CLICKS_NANOS = 100_000;
+
+    @Param({"false", "true"})
+    public boolean lookupTable;
+
+    private ExecutorService refillExecutor;
+
+    private NumberRepository numberRepository;
+    private RandomRepository randomRepository;
+    private MainViewModel mainViewModel;
+
+    private int clickCount;
+    private long lastHitCount;
+    private long lastMissCount;
+
+    private MainViewState lastViewState;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long tableHits;
+        public long tableMisses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tableHits = 0;
+            tableMisses = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UserPace {
+
+        // Hors mesure : on attend que les reconstructions de fenêtre déjà demandées soient terminées, puis on laisse passer un peu de temps
+        // entre 2 clics. Ce temps est le même avec ou sans table : le thread "principal" se réveille toujours dans les mêmes conditions.
+        @Setup(Level.Invocation)
+        public void waitBetweenClicks(LookupTableBenchmark benchmark) throws Exception {
+            benchmark.refillExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+
+            LockSupport.parkNanos(PAUSE_BETWEEN_CLICKS_NANOS);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SynchronousTaskExecutor.install();
+
+        refillExecutor = Executors.newSingleThreadExecutor();
+
+        numberRepository = new NumberRepository();
+        randomRepository = new RandomRepository(null, new SeededRandomSource(42));
+
+        mainViewModel = new MainViewModel(
+            numberRepository,
+            randomRepository,
+            null,
+            null,
+            null,
+            lookupTable ? new MainViewStateLookupTable(refillExecutor) : null
+        );
+
+        mainViewModel.getViewStateLiveData().observeForever(new Observer<MainViewState>() {
+            @Override
+            public void onChanged(MainViewState mainViewState) {
+                lastViewState = mainViewState;
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        refillExecutor.shutdownNow();
+
+        SynchronousTaskExecutor.uninstall();
+    }
+
+    @Benchmark
+    public MainViewState clickAtUserPace(Counters counters, UserPace userPace) {
+        return click(counters);
+    }
+
+    @Benchmark
+    public MainViewState clickBurst(Counters counters) {
+        return click(counters);
+    }
+
+    private MainViewState click(Counters counters) {
+        if ((++clickCount & 7) == 0) {
+            randomRepository.rollNewRandom();
+        } else {
+            numberRepository.addToNumber(1);
+        }
+
+        long hitCount = mainViewModel.getLookupTableHitCount();
+        long missCount = mainViewModel.getLookupTableMissCount();
+        counters.tableHits += hitCount - lastHitCount;
+        counters.tableMisses += missCount - lastMissCount;
+        lastHitCount = hitCount;
+        lastMissCount = missCount;
+
+        return lastViewState;
+    }
+}
@@ -0,0 +1,84 @@
+package fr.delcey.mediatorlivedataexample.benchmark;
+
+import androidx.lifecycle.Observer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import fr.delcey.mediatorlivedataexample.MainViewModel;
+import fr.delcey.mediatorlivedataexample.MainViewState;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+
+/**
+ * Mesure le chemin complet d'une mise à jour : NumberRepository.addToNumber() -> observer de la source -> MainViewModel.combine() ->
+ * MainViewState -> Observer(s) de la View.
+ */
+@State(Scope.Thread)
+public class PipelineBenchmark {
+
+    private static final int BURST_SIZE = 1_000;
+
+    // Nombre d'Observers sur le ViewState (autant de "Views" qui observent le même ViewModel)
+    @Param({"1", "10", "100"})
+    public int observerCount;
+
+    private NumberRepository numberRepository;
+    private RandomRepository randomRepository;
+
+    private MainViewState lastViewState;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SynchronousTaskExecutor.install();
+
+        numberRepository = new NumberRepository();
+        randomRepository = new RandomRepository();
+
+        MainViewModel mainViewModel = new MainViewModel(numberRepository, randomRepository);
+
+        for (int i = 0; i < observerCount; i++) {
+            mainViewModel.getViewStateLiveData().observeForever(new Observer<MainViewState>() {
+                @Override
+                public void onChanged(MainViewState mainViewState) {
+                    lastViewState = mainViewState;
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SynchronousTaskExecutor.uninstall();
+    }
+
+    @Benchmark
+    public MainViewState singleUpdate() {
+        numberRepository.addToNumber(1);
+
+        return lastViewState;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public MainViewState burstOfUpdates() {
+        for (int i = 0; i < BURST_SIZE; i++) {
+            numberRepository.addToNumber(1);
+        }
+
+        return lastViewState;
+    }
+
+    @Benchmark
+    public MainViewState randomRoll() {
+        randomRepository.rollNewRandom();
+
+        return lastViewState;
+    }
+}
@@ -0,0 +1,70 @@
+package fr.delcey.mediatorlivedataexample.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Random;
+
+import fr.delcey.mediatorlivedataexample.repository.random.PrefetchingRandomSource;
+import fr.delcey.mediatorlivedataexample.repository.random.RandomSource;
+import fr.delcey.mediatorlivedataexample.repository.random.SeededRandomSource;
+import fr.delcey.mediatorlivedataexample.repository.random.SplittableRandomSource;
+import fr.delcey.mediatorlivedataexample.repository.random.ThreadLocalRandomSource;
+
+/**
+ * Compare les stratégies de tirage du RandomRepository avec l'ancienne implémentation ("new Random()" à chaque tirage), sur un seul thread
+ * puis sur 4 threads qui tirent en même temps (contention sur la graine globale de java.util.Random).
+ */
+@State(Scope.Thread)
+public class RandomSourceBenchmark {
+
+    private static final int BOUND = 10;
+
+    @Param({"newRandom", "threadLocal", "splittable", "seeded", "prefetched"})
+    public String strategy;
+
+    private RandomSource randomSource;
+
+    @Setup
+    public void setUp() {
+        switch (strategy) {
+            case "newRandom":
+                randomSource = new RandomSource() {
+                    @Override
+                    public int nextInt(int bound) {
+                        return new Random().nextInt(bound);
+                    }
+                };
+                break;
+            case "threadLocal":
+                randomSource = new ThreadLocalRandomSource();
+                break;
+            case "splittable":
+                randomSource = new SplittableRandomSource();
+                break;
+            case "seeded":
+                randomSource = new SeededRandomSource(System.nanoTime());
+                break;
+            case "prefetched":
+                randomSource = new PrefetchingRandomSource(new SeededRandomSource(System.nanoTime()), 256);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+
+    @Benchmark
+    public int singleThread() {
+        return randomSource.nextInt(BOUND) + 1;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int contended() {
+        return randomSource.nextInt(BOUND) + 1;
+    }
+}
@@ -0,0 +1,72 @@
+package fr.delcey.mediatorlivedataexample.benchmark;
+
+import androidx.lifecycle.Observer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import fr.delcey.mediatorlivedataexample.MainViewModel;
+import fr.delcey.mediatorlivedataexample.MainViewState;
+import fr.delcey.mediatorlivedataexample.SharedMainViewStateStream;
+import fr.delcey.mediatorlivedataexample.repository.NumberRepository;
+import fr.delcey.mediatorlivedataexample.repository.RandomRepository;
+
+/**
+ * Un changement du NumberRepository observé par 1, 10 ou 1000 MainViewModels (autant d'écrans ou de Fragments) :<br/>
+ * - "perViewModel" : chaque ViewModel observe les repositories et fait son propre "combine()",<br/>
+ * - "shared" : un seul "combine()" dans le SharedMainViewStateStream, distribué à tous les ViewModels.
+ */
+@State(Scope.Thread)
+public class SharedStreamBenchmark {
+
+    @Param({"1", "10", "1000"})
+    public int subscriberCount;
+
+    @Param({"perViewModel", "shared"})
+    public String mode;
+
+    private NumberRepository numberRepository;
+
+    private MainViewState lastViewState;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SynchronousTaskExecutor.install();
+
+        numberRepository = new NumberRepository();
+        RandomRepository randomRepository = new RandomRepository();
+        SharedMainViewStateStream stream = new SharedMainViewStateStream(numberRepository, randomRepository);
+
+        Observer<MainViewState> observer = new Observer<MainViewState>() {
+            @Override
+            public void onChanged(MainViewState mainViewState) {
+                lastViewState = mainViewState;
+            }
+        };
+
+        for (int i = 0; i < subscriberCount; i++) {
+            MainViewModel mainViewModel = mode.equals("shared")
+                ? new MainViewModel(numberRepository, randomRepository, stream)
+                : new MainViewModel(numberRepository, randomRepository);
+
+            mainViewModel.getViewStateLiveData().observeForever(observer);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SynchronousTaskExecutor.uninstall();
+    }
+
+    @Benchmark
+    public MainViewState numberChange() {
+        numberRepository.addToNumber(1);
+
+        return lastViewState;
+    }
+}
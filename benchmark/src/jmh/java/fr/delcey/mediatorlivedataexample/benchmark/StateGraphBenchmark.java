@@ -0,0 +1,252 @@
+package fr.delcey.mediatorlivedataexample.benchmark;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import fr.delcey.mediatorlivedataexample.livedata.StateGraph;
+
+/**
+ * Compare le StateGraph à des MediatorLiveData en chaîne (chaque valeur dérivée est un MediatorLiveData qui relit ses sources avec
+ * "getValue()" à chaque émission de l'une d'elles), pour un changement de la source :<br/>
+ * - "chain100" : 100 valeurs dérivées à la suite, sans diamant (pas de glitch possible : on mesure le coût de la mécanique seule),<br/>
+ * - "deep10" : 10 niveaux de 2 valeurs qui dépendent chacune des 2 valeurs du niveau précédent (un diamant par niveau),<br/>
+ * - "wide10" et "wide100" : 10 ou 100 valeurs dérivées de la source, toutes combinées par une dernière valeur.<br/>
+ *
+ * Les compteurs "computes" et "sinkEmissions" donnent le nombre de calculs et d'émissions de la dernière valeur par changement : avec les
+ * MediatorLiveData, un diamant double les calculs à chaque niveau (2^10 pour "deep10"), et la dernière valeur émet des états incohérents.
+ */
+@State(Scope.Thread)
+public class StateGraphBenchmark {
+
+    @Param({"mediator", "graph"})
+    public String engine;
+
+    @Param({"chain100", "deep10", "wide10", "wide100"})
+    public String topology;
+
+    private long computeCount;
+    private long sinkEmissionCount;
+
+    private MutableLiveData<Integer> mediatorSource;
+    private StateGraph.Node<Integer> graphSource;
+    private LiveData<Integer> sink;
+
+    private final Observer<Integer> sinkObserver = new Observer<Integer>() {
+        @Override
+        public void onChanged(Integer value) {
+            sinkEmissionCount++;
+        }
+    };
+
+    private int sourceValue;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long computes;
+        public long sinkEmissions;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            computes = 0;
+            sinkEmissions = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SynchronousTaskExecutor.install();
+
+        int size = Integer.parseInt(topology.replaceAll("[a-z]", ""));
+        boolean isMediator = engine.equals("mediator");
+
+        if (isMediator) {
+            mediatorSource = new MutableLiveData<>(0);
+        }
+
+        StateGraph graph = new StateGraph();
+        graphSource = graph.source(0);
+
+        if (topology.startsWith("chain")) {
+            sink = isMediator ? buildMediatorChain(size) : buildGraphChain(graph, size);
+        } else if (topology.startsWith("deep")) {
+            sink = isMediator ? buildMediatorDiamonds(size) : buildGraphDiamonds(graph, size);
+        } else if (topology.startsWith("wide")) {
+            sink = isMediator ? buildMediatorWide(size) : buildGraphWide(graph, size);
+        } else {
+            throw new IllegalArgumentException("Unknown topology: " + topology);
+        }
+
+        sink.observeForever(sinkObserver);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sink.removeObserver(sinkObserver);
+
+        SynchronousTaskExecutor.uninstall();
+    }
+
+    @Benchmark
+    public Integer sourceChange(Counters counters) {
+        long previousComputeCount = computeCount;
+        long previousSinkEmissionCount = sinkEmissionCount;
+
+        sourceValue++;
+
+        if (mediatorSource != null) {
+            mediatorSource.setValue(sourceValue);
+        } else {
+            graphSource.setValue(sourceValue);
+        }
+
+        counters.computes += computeCount - previousComputeCount;
+        counters.sinkEmissions += sinkEmissionCount - previousSinkEmissionCount;
+
+        return sink.getValue();
+    }
+
+    @NonNull
+    private LiveData<Integer> buildMediatorChain(int length) {
+        LiveData<Integer> previous = mediatorSource;
+
+        for (int i = 0; i < length; i++) {
+            previous = mediator(previous);
+        }
+
+        return previous;
+    }
+
+    @NonNull
+    private LiveData<Integer> buildMediatorDiamonds(int depth) {
+        LiveData<Integer> left = mediatorSource;
+        LiveData<Integer> right = mediatorSource;
+
+        for (int i = 0; i < depth; i++) {
+            LiveData<Integer> newLeft = mediator(left, right);
+            LiveData<Integer> newRight = mediator(left, right);
+
+            left = newLeft;
+            right = newRight;
+        }
+
+        return mediator(left, right);
+    }
+
+    @NonNull
+    private LiveData<Integer> buildMediatorWide(int width) {
+        @SuppressWarnings("unchecked")
+        LiveData<Integer>[] middles = new LiveData[width];
+
+        for (int i = 0; i < width; i++) {
+            middles[i] = mediator(mediatorSource);
+        }
+
+        return mediator(middles);
+    }
+
+    // Somme des sources + 1, recalculée à chaque émission de l'une d'elles (en relisant les autres)
+    @SafeVarargs
+    @NonNull
+    private final LiveData<Integer> mediator(@NonNull final LiveData<Integer>... sources) {
+        final MediatorLiveData<Integer> mediatorLiveData = new MediatorLiveData<>();
+
+        Observer<Integer> observer = new Observer<Integer>() {
+            @Override
+            public void onChanged(Integer ignored) {
+                int sum = 1;
+
+                for (LiveData<Integer> source : sources) {
+                    Integer value = source.getValue();
+
+                    if (value == null) {
+                        return;
+                    }
+
+                    sum += value;
+                }
+
+                computeCount++;
+                mediatorLiveData.setValue(sum);
+            }
+        };
+
+        for (LiveData<Integer> source : sources) {
+            // La même source peut être donnée 2 fois (premier niveau des diamants) : avec le même Observer, "addSource()" l'ignore
+            mediatorLiveData.addSource(source, observer);
+        }
+
+        return mediatorLiveData;
+    }
+
+    @NonNull
+    private LiveData<Integer> buildGraphChain(@NonNull StateGraph graph, int length) {
+        StateGraph.Node<Integer> previous = graphSource;
+
+        for (int i = 0; i < length; i++) {
+            previous = sum(graph, previous);
+        }
+
+        return previous.asLiveData();
+    }
+
+    @NonNull
+    private LiveData<Integer> buildGraphDiamonds(@NonNull StateGraph graph, int depth) {
+        StateGraph.Node<Integer> left = graphSource;
+        StateGraph.Node<Integer> right = graphSource;
+
+        for (int i = 0; i < depth; i++) {
+            StateGraph.Node<Integer> newLeft = sum(graph, left, right);
+            StateGraph.Node<Integer> newRight = sum(graph, left, right);
+
+            left = newLeft;
+            right = newRight;
+        }
+
+        return sum(graph, left, right).asLiveData();
+    }
+
+    @NonNull
+    private LiveData<Integer> buildGraphWide(@NonNull StateGraph graph, int width) {
+        @SuppressWarnings("unchecked")
+        StateGraph.Node<Integer>[] middles = new StateGraph.Node[width];
+
+        for (int i = 0; i < width; i++) {
+            middles[i] = sum(graph, graphSource);
+        }
+
+        return sum(graph, middles).asLiveData();
+    }
+
+    @SafeVarargs
+    @NonNull
+    private final StateGraph.Node<Integer> sum(@NonNull StateGraph graph, @NonNull final StateGraph.Node<Integer>... dependencies) {
+        return graph.derive(new StateGraph.Derivation<Integer>() {
+            @Override
+            public Integer compute(@NonNull StateGraph.Inputs inputs) {
+                int sum = 1;
+
+                for (StateGraph.Node<Integer> dependency : dependencies) {
+                    sum += inputs.get(dependency);
+                }
+
+                computeCount++;
+
+                return sum;
+            }
+        }, dependencies);
+    }
+
+}
@@ -0,0 +1,34 @@
+package fr.delcey.mediatorlivedataexample.benchmark;
+
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+
+/**
+ * Equivalent de InstantTaskExecutorRule pour les benchmarks : tout thread est considéré comme le "thread principal" et tout est exécuté
+ * immédiatement, de manière synchrone. Il n'y a pas de Looper sur la JVM.
+ */
+public class SynchronousTaskExecutor extends TaskExecutor {
+
+    public static void install() {
+        ArchTaskExecutor.getInstance().setDelegate(new SynchronousTaskExecutor());
+    }
+
+    public static void uninstall() {
+        ArchTaskExecutor.getInstance().setDelegate(null);
+    }
+
+    @Override
+    public void executeOnDiskIO(Runnable runnable) {
+        runnable.run();
+    }
+
+    @Override
+    public void postToMainThread(Runnable runnable) {
+        runnable.run();
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return true;
+    }
+}